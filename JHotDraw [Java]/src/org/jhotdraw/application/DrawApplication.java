@@ -36,6 +36,7 @@ import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.JToolBar;
 import javax.swing.KeyStroke;
+import javax.swing.ProgressMonitor;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.WindowConstants;
@@ -68,9 +69,13 @@ import org.jhotdraw.standard.SendToBackCommand;
 import org.jhotdraw.standard.StandardDrawing;
 import org.jhotdraw.standard.StandardDrawingView;
 import org.jhotdraw.standard.ToolButton;
+import org.jhotdraw.util.BinaryStorageFormat;
+import org.jhotdraw.util.ChunkedStorageFormat;
 import org.jhotdraw.util.ColorMap;
 import org.jhotdraw.util.Command;
 import org.jhotdraw.util.CommandMenu;
+import org.jhotdraw.util.DrawingRestore;
+import org.jhotdraw.util.DrawingRestoreListener;
 import org.jhotdraw.util.Iconkit;
 import org.jhotdraw.util.PaletteButton;
 import org.jhotdraw.util.PaletteListener;
@@ -661,6 +666,8 @@ public	class DrawApplication extends JFrame implements DrawingEditor, PaletteLis
 		storageFormatManager.setDefaultStorageFormat(new StandardStorageFormat());
 		storageFormatManager.addStorageFormat(storageFormatManager.getDefaultStorageFormat());
 		storageFormatManager.addStorageFormat(new SerializationStorageFormat());
+		storageFormatManager.addStorageFormat(new BinaryStorageFormat());
+		storageFormatManager.addStorageFormat(new ChunkedStorageFormat());
 		return storageFormatManager;
 	}
 
@@ -1029,21 +1036,56 @@ public	class DrawApplication extends JFrame implements DrawingEditor, PaletteLis
 	}
 
 	/**
-	 * Load a Drawing from a file
+	 * Load a Drawing from a file. The drawing is restored in the background
+	 * and opened in a new window as soon as it has been created. The window
+	 * shows the figures while they are added, but the drawing can't be
+	 * edited until it has been restored completely.
 	 */
-	protected void loadDrawing(StorageFormat restoreFormat, String file) {
-		try {
-			Drawing restoredDrawing = restoreFormat.restore(file);
-			if (restoredDrawing != null) {
+	protected void loadDrawing(StorageFormat restoreFormat, final String file) {
+		final ProgressMonitor monitor = new ProgressMonitor(this, "Loading " + file, null, 0, 100);
+		restoreFormat.restoreInBackground(file, new DrawingRestoreListener() {
+			private DrawApplication fWindow;
+
+			public void drawingCreated(DrawingRestore restore) {
+				Drawing restoredDrawing = restore.getDrawing();
 				restoredDrawing.setTitle(file);
-				newWindow(restoredDrawing);
+				fWindow = createApplication();
+				DrawingView restoredView = fWindow.createDrawingView(restoredDrawing);
+				setReadOnly(restoredView, true);
+				fWindow.open(restoredView);
 			}
-			else {
-			   showStatus("Unknown file type: could not open file '" + file + "'");
+
+			public void figuresRestored(DrawingRestore restore) {
+				if (monitor.isCanceled()) {
+					restore.cancel();
+				}
+				else if (restore.getFigureCount() > 0) {
+					monitor.setProgress((int)(100L * restore.getRestoredFigureCount() / restore.getFigureCount()));
+				}
 			}
-		}
-		catch (IOException e) {
-			showStatus("Error: " + e);
+
+			public void restoreFinished(DrawingRestore restore) {
+				monitor.close();
+				if (restore.isCancelled() || (restore.getException() != null)) {
+					// don't leave a partially restored drawing which could be saved
+					if (fWindow != null) {
+						fWindow.exit();
+					}
+					showStatus(restore.isCancelled() ? "Loading of '" + file + "' cancelled" : "Error: " + restore.getException());
+				}
+				else if (restore.getDrawing() == null) {
+					showStatus("Unknown file type: could not open file '" + file + "'");
+				}
+				else {
+					setReadOnly(fWindow.view(), false);
+				}
+			}
+		});
+	}
+
+	private static void setReadOnly(DrawingView view, boolean isReadOnly) {
+		if (view instanceof StandardDrawingView) {
+			((StandardDrawingView)view).setReadOnly(isReadOnly);
 		}
 	}
 
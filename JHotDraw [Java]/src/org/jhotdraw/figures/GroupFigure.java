@@ -49,13 +49,7 @@ public  class GroupFigure extends CompositeFigure {
 	* of the contained figures.
 	*/
 	public Rectangle displayBox() {
-		FigureEnumeration fe = figures();
-		Rectangle r = new Rectangle();
-
-		while (fe.hasNextFigure()) {
-			r.add(fe.nextFigure().displayBox());
-		}
-		return r;
+		return figuresDisplayBox();
 	}
 
 	public void basicDisplayBox(Point origin, Point corner) {
@@ -27,7 +27,7 @@ import org.jhotdraw.util.*;
  *
  * @version <$CURRENT_VERSION$>
  */
-public  class LineConnection extends PolyLineFigure implements ConnectionFigure {
+public  class LineConnection extends PolyLineFigure implements ConnectionFigure, DependentFigure {
 
 	protected Connector    myStartConnector;
 	protected Connector    myEndConnector;
@@ -65,7 +65,10 @@ public  class LineConnection extends PolyLineFigure implements ConnectionFigure
 			pointAt(i).translate(dx, dy);
 		}
 
-		updateConnection(); // make sure that we are still connected
+		// make sure that we are still connected
+		if (!DependencyUpdateQueue.defer(this)) {
+			updateConnection();
+		}
 	}
 
 	/**
@@ -185,13 +188,20 @@ public  class LineConnection extends PolyLineFigure implements ConnectionFigure
 	 */
 	public void startPoint(int x, int y) {
 		willChange();
+		basicStartPoint(x, y);
+		changed();
+	}
+
+	/**
+	 * Sets the start point without notifying the listeners.
+	 */
+	protected void basicStartPoint(int x, int y) {
 		if (fPoints.size() == 0) {
 			fPoints.add(new Point(x, y));
 		}
 		else {
 			fPoints.set(0, new Point(x, y));
 		}
-		changed();
 	}
 
 	/**
@@ -199,13 +209,20 @@ public  class LineConnection extends PolyLineFigure implements ConnectionFigure
 	 */
 	public void endPoint(int x, int y) {
 		willChange();
+		basicEndPoint(x, y);
+		changed();
+	}
+
+	/**
+	 * Sets the end point without notifying the listeners.
+	 */
+	protected void basicEndPoint(int x, int y) {
 		if (fPoints.size() < 2) {
 			fPoints.add(new Point(x, y));
 		}
 		else {
 			fPoints.set(fPoints.size()-1, new Point(x, y));
 		}
-		changed();
 	}
 
 	/**
@@ -269,23 +286,34 @@ public  class LineConnection extends PolyLineFigure implements ConnectionFigure
 	}
 
 	/**
-	 * Updates the connection.
+	 * Updates the connection. The listeners are notified once for
+	 * both end points and not at all if the end points didn't move.
 	 */
 	public void updateConnection() {
+		boolean changing = false;
 		if (getStartConnector() != null) {
 			Point start = getStartConnector().findStart(this);
 
-			if (start != null) {
-				startPoint(start.x, start.y);
+			if ((start != null) && ((fPoints.size() == 0) || !start.equals(pointAt(0)))) {
+				willChange();
+				changing = true;
+				basicStartPoint(start.x, start.y);
 			}
 		}
 		if (getEndConnector() != null) {
 			Point end = getEndConnector().findEnd(this);
 
-			if (end != null) {
-				endPoint(end.x, end.y);
+			if ((end != null) && ((fPoints.size() < 2) || !end.equals(pointAt(fPoints.size()-1)))) {
+				if (!changing) {
+					willChange();
+					changing = true;
+				}
+				basicEndPoint(end.x, end.y);
 			}
 		}
+		if (changing) {
+			changed();
+		}
 	}
 
 	/**
@@ -297,6 +325,33 @@ public  class LineConnection extends PolyLineFigure implements ConnectionFigure
 	}
 
 	public void figureChanged(FigureChangeEvent e) {
+		if (!DependencyUpdateQueue.defer(this)) {
+			updateConnection();
+		}
+	}
+
+	/**
+	 * Gets the figures the connection is connected to.
+	 *
+	 * @see DependentFigure
+	 */
+	public List<Figure> getDependencies() {
+		List<Figure> dependencies = new ArrayList<Figure>(2);
+		if (startFigure() != null) {
+			dependencies.add(startFigure());
+		}
+		if (endFigure() != null) {
+			dependencies.add(endFigure());
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Updates the connection after a connected figure changed.
+	 *
+	 * @see DependentFigure
+	 */
+	public void updateDependent() {
 		updateConnection();
 	}
 
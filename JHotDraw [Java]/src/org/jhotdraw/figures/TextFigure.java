@@ -30,6 +30,8 @@ import org.jhotdraw.framework.FigureChangeEvent;
 import org.jhotdraw.framework.FigureChangeListener;
 import org.jhotdraw.framework.Handle;
 import org.jhotdraw.framework.HandleEnumeration;
+import org.jhotdraw.standard.DependencyUpdateQueue;
+import org.jhotdraw.standard.DependentFigure;
 import org.jhotdraw.standard.HandleEnumerator;
 import org.jhotdraw.standard.NullHandle;
 import org.jhotdraw.standard.OffsetLocator;
@@ -46,7 +48,7 @@ import org.jhotdraw.util.StorableOutput;
  *
  * @version <$CURRENT_VERSION$>
  */
-public class TextFigure extends AttributeFigure implements FigureChangeListener, TextHolder {
+public class TextFigure extends AttributeFigure implements FigureChangeListener, TextHolder, DependentFigure {
 
 	private int fOriginX;
 	private int fOriginY;
@@ -400,6 +402,30 @@ public class TextFigure extends AttributeFigure implements FigureChangeListener,
 	 * @see org.jhotdraw.framework.FigureChangeListener#figureChanged(org.jhotdraw.framework.FigureChangeEvent)
 	 */
 	public void figureChanged(FigureChangeEvent e) {
+		if (!DependencyUpdateQueue.defer(this)) {
+			updateDependent();
+		}
+	}
+
+	/**
+	 * Gets the figure the text is connected to.
+	 *
+	 * @see DependentFigure
+	 */
+	public List<Figure> getDependencies() {
+		List<Figure> dependencies = new ArrayList<Figure>(1);
+		if (getObservedFigure() != null) {
+			dependencies.add(getObservedFigure());
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Moves the text to its location relative to the connected figure.
+	 *
+	 * @see DependentFigure
+	 */
+	public void updateDependent() {
 		willChange();
 		updateLocation();
 		changed();
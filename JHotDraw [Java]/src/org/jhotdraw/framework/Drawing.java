@@ -64,6 +64,19 @@ public interface Drawing
 	 */
 	public FigureEnumeration figuresReverse();
 
+	/**
+	 * Gets the display box of the drawing, i.e. the area
+	 * that is covered by the contained figures.
+	 */
+	public Rectangle displayBox();
+
+	/**
+	 * Returns an enumeration to iterate in
+	 * Z-order front to back over the figures
+	 * that lie within the absolute bounds.
+	 */
+	public FigureEnumeration figuresReverse(Rectangle viewRectangle);
+
 	/**
 	 * Finds a top level Figure. Use this call for hit detection that
 	 * should not descend into the figure's children.
@@ -303,6 +316,22 @@ public interface Drawing
 	 */
 	public void unlock();
 
+	/**
+	 * Starts a batch of changes. Until the matching call of endUpdate()
+	 * the areas invalidated by changed figures are collected and
+	 * reported to the listeners at once when the batch ends. Batches
+	 * can be nested, the outermost endUpdate() ends the batch. Always
+	 * call endUpdate() in a finally block.
+	 *
+	 * @see #endUpdate
+	 */
+	public void beginUpdate();
+
+	/**
+	 * Ends a batch of changes started with beginUpdate().
+	 */
+	public void endUpdate();
+
 	/**
 	 * Used to optimize rendering.  Rendering of many objects may
 	 * be slow until this method is called.  The view rectangle
@@ -16,6 +16,9 @@ import java.util.EventObject;
 
 /**
  * FigureChange event passed to FigureChangeListeners.
+ * Figures may reuse their events and change the invalidated
+ * rectangle after the listeners returned, so listeners have to
+ * copy the rectangle if they want to keep it.
  *
  * @version <$CURRENT_VERSION$>
  */
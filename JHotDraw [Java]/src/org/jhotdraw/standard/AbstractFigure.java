@@ -62,12 +62,25 @@ public abstract class AbstractFigure implements Figure {
 
 	/**
 	 * The listeners for a figure's changes.
-	 * It is only one listener but this one can be a (chained) MultiCastFigureChangeListener
+	 * It is only one listener but this one can be a FigureChangeListenerList.
+	 * The field is replaced instead of changed (copy-on-write) so it can be
+	 * read without locking when events are dispatched.
 	 * @see #invalidate
 	 * @see #changed
 	 * @see #willChange
 	 */
-	private transient FigureChangeListener fListener;
+	private transient volatile FigureChangeListener fListener;
+
+	/**
+	 * The events passed to the listeners by invalidate(), changed() and
+	 * release(). They are created lazily and reused so that moving or
+	 * changing a figure doesn't allocate new events each time. The
+	 * invalidated rectangle of fInvalidateEvent is changed in place.
+	 */
+	private transient FigureChangeEvent fChangeEvent;
+	private transient FigureChangeEvent fInvalidateEvent;
+	private transient Rectangle fInvalidatedRectangle;
+	private transient boolean fInvalidating;
 
 	/**
 	 * The dependend figures which have been added to this container.
@@ -233,20 +246,20 @@ public abstract class AbstractFigure implements Figure {
 	 * Adds a listener for this figure.
 	 */
 	public synchronized void addFigureChangeListener(FigureChangeListener l) {
-		fListener = FigureChangeEventMulticaster.add(listener(), l);
+		fListener = FigureChangeListenerList.add(fListener, l);
 	}
 
 	/**
 	 * Removes a listener for this figure.
 	 */
 	public synchronized void removeFigureChangeListener(FigureChangeListener l) {
-		fListener = FigureChangeEventMulticaster.remove(listener(), l);
+		fListener = FigureChangeListenerList.remove(fListener, l);
 	}
 
 	/**
 	 * Gets the figure's listners.
 	 */
-	public synchronized FigureChangeListener listener() {
+	public FigureChangeListener listener() {
 		return fListener;
 	}
 
@@ -256,8 +269,9 @@ public abstract class AbstractFigure implements Figure {
 	 * @see Figure#release
 	 */
 	public void release() {
-		if (listener() != null) {
-			listener().figureRemoved(new FigureChangeEvent(this));
+		FigureChangeListener l = listener();
+		if (l != null) {
+			l.figureRemoved(changeEvent());
 		}
 	}
 
@@ -267,9 +281,27 @@ public abstract class AbstractFigure implements Figure {
 	 * refreshed.
 	 */
 	public void invalidate() {
-		if (listener() != null) {
+		FigureChangeListener l = listener();
+		if (l != null) {
 			Rectangle r = invalidateRectangle(displayBox());
-			listener().figureInvalidated(new FigureChangeEvent(this, r));
+			if (fInvalidating) {
+				// a listener invalidated the figure again while the
+				// reused event is still being dispatched
+				l.figureInvalidated(new FigureChangeEvent(this, r));
+				return;
+			}
+			if (fInvalidateEvent == null) {
+				fInvalidatedRectangle = new Rectangle();
+				fInvalidateEvent = new FigureChangeEvent(this, fInvalidatedRectangle);
+			}
+			fInvalidatedRectangle.setBounds(r);
+			fInvalidating = true;
+			try {
+				l.figureInvalidated(fInvalidateEvent);
+			}
+			finally {
+				fInvalidating = false;
+			}
 		}
 	}
 
@@ -300,11 +332,24 @@ public abstract class AbstractFigure implements Figure {
 	 */
 	public void changed() {
 		invalidate();
-		if (listener() != null) {
-			listener().figureChanged(new FigureChangeEvent(this));
+		FigureChangeListener l = listener();
+		if (l != null) {
+			l.figureChanged(changeEvent());
 		}
 	}
 
+	/**
+	 * Gets the event without an invalidated rectangle that is passed
+	 * to the listeners. It doesn't carry any state besides the figure
+	 * so it can be shared by all notifications.
+	 */
+	private FigureChangeEvent changeEvent() {
+		if (fChangeEvent == null) {
+			fChangeEvent = new FigureChangeEvent(this);
+		}
+		return fChangeEvent;
+	}
+
 	/**
 	 * Gets the center of a figure. A convenice
 	 * method that is rarely overridden.
@@ -491,7 +536,11 @@ public abstract class AbstractFigure implements Figure {
 	}
 
 	public synchronized void removeDependendFigure(Figure oldDependendFigure) {
-		myDependendFigures.remove(oldDependendFigure);
+		// dependent figures are usually removed in reverse order, e.g. by the DeleteCommand
+		int index = myDependendFigures.lastIndexOf(oldDependendFigure);
+		if (index != -1) {
+			myDependendFigures.remove(index);
+		}
 	}
 
 	public TextHolder getTextHolder() {
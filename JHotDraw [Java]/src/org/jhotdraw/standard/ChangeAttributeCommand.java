@@ -45,8 +45,14 @@ public  class ChangeAttributeCommand extends AbstractCommand {
 		setUndoActivity(createUndoActivity());
 		getUndoActivity().setAffectedFigures(view().selection());
 		FigureEnumeration fe = getUndoActivity().getAffectedFigures();
-		while (fe.hasNextFigure()) {
-			fe.nextFigure().setAttribute(fAttribute, fValue);
+		view().drawing().beginUpdate();
+		try {
+			while (fe.hasNextFigure()) {
+				fe.nextFigure().setAttribute(fAttribute, fValue);
+			}
+		}
+		finally {
+			view().drawing().endUpdate();
 		}
 		view().checkDamage();
 	}
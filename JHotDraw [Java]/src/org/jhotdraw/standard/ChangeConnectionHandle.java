@@ -191,7 +191,9 @@ public abstract class ChangeConnectionHandle extends AbstractHandle {
 	}
 
 	private Figure findConnectableFigure(int x, int y, Drawing drawing) {
-		FigureEnumeration fe = drawing.figuresReverse();
+		Rectangle hitRectangle = new Rectangle(x, y, 1, 1);
+		hitRectangle.grow(HANDLESIZE, HANDLESIZE);
+		FigureEnumeration fe = drawing.figuresReverse(hitRectangle);
 		while (fe.hasNextFigure()) {
 			Figure figure = fe.nextFigure();
 			if (!figure.includes(getConnection()) && figure.canConnect()) {
@@ -0,0 +1,658 @@
+/*
+ * @(#)ChunkedDrawing.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.JComponent;
+
+import org.jhotdraw.framework.DrawingChangeListener;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureChangeEvent;
+import org.jhotdraw.framework.FigureChangeListener;
+import org.jhotdraw.framework.FigureEnumeration;
+import org.jhotdraw.framework.JHotDrawRuntimeException;
+import org.jhotdraw.util.ChunkedFile;
+import org.jhotdraw.util.StorableOutput;
+
+/**
+ * A drawing which is restored from a ChunkedFile piece by piece. Only
+ * the chunks of figures around the visible areas of the views of the
+ * drawing are read, more chunks are read when the views are scrolled.
+ * Chunks which haven't been used for a while are removed from memory
+ * again when too many figures are loaded or the heap gets scarce.
+ * <p>
+ * Chunks whose figures have been changed, and chunks with figures that
+ * are selected or observed by other objects than the figures of their
+ * group, are kept in memory. Figures keep their chunk when they are
+ * moved. Added figures are assigned to the chunk of the cell which
+ * contains their center.
+ * <p>
+ * figures(), figureCount() and the findFigure methods only cover the
+ * loaded figures, figures(Rectangle) loads the chunks in the rectangle
+ * and around the views first. As the update strategies of the views
+ * draw through figures(Rectangle), unused chunks are removed there too.
+ * Writing the drawing with a StorableOutput loads all chunks.
+ *
+ * @see ChunkedFile
+ * @see org.jhotdraw.util.ChunkedStorageFormat
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class ChunkedDrawing extends StandardDrawing {
+
+	/**
+	 * The default distance around the visible area of a view in which
+	 * the chunks are read in advance.
+	 */
+	public static final int DEFAULT_PREFETCH_MARGIN = 512;
+
+	/**
+	 * The default number of loaded figures above which unused chunks
+	 * are removed from memory.
+	 */
+	public static final int DEFAULT_MAX_LOADED_FIGURES = 200000;
+
+	/**
+	 * The part of the maximum heap which may be used before unused
+	 * chunks are removed from memory.
+	 */
+	private static final double MAX_HEAP_USAGE = 0.75;
+
+	private transient ChunkedFile fFile;
+	private transient List<Chunk> fChunks;
+	private transient Map<Long, Chunk> fCells;
+	private transient Map<Integer, List<Chunk>> fGroups;
+	private transient Map<Figure, Chunk> fChunkOfFigure;
+	private transient Rectangle fUnloadedBounds;
+	private transient boolean fLoading;
+	private transient long fUseCount;
+	private int fPrefetchMargin = DEFAULT_PREFETCH_MARGIN;
+	private int fMaxLoadedFigures = DEFAULT_MAX_LOADED_FIGURES;
+
+	/*
+	 * Serialization support
+	 */
+	private static final long serialVersionUID = 2740528327519385163L;
+
+	/**
+	 * Constructs a drawing whose figures are read from the given file
+	 * when they are needed. The file is kept open.
+	 */
+	public ChunkedDrawing(ChunkedFile file) {
+		super();
+		fChunks = new ArrayList<Chunk>();
+		fCells = new HashMap<Long, Chunk>();
+		fChunkOfFigure = new IdentityHashMap<Figure, Chunk>();
+		fFile = file;
+		for (int i = 0; i < file.getChunkCount(); i++) {
+			ChunkedFile.Entry entry = file.getEntry(i);
+			Chunk chunk = new Chunk(entry.getColumn(), entry.getRow());
+			chunk.fBounds = entry.getBounds();
+			chunk.fGroup = entry.getGroup();
+			fChunks.add(chunk);
+			fCells.put(key(chunk.fColumn, chunk.fRow), chunk);
+		}
+		updateGroups();
+		_nLowestZ = file.getLowestZValue();
+		_nHighestZ = file.getHighestZValue();
+		init(displayBox());
+	}
+
+	/**
+	 * Gets the file the figures are read from.
+	 */
+	public ChunkedFile getChunkedFile() {
+		return fFile;
+	}
+
+	/**
+	 * Gets the width and height of the cells the figures are divided into.
+	 */
+	public int getCellSize() {
+		return fFile.getCellSize();
+	}
+
+	/**
+	 * Sets the distance around the visible area of a view in which the
+	 * chunks are read in advance.
+	 */
+	public void setPrefetchMargin(int margin) {
+		fPrefetchMargin = margin;
+	}
+
+	public int getPrefetchMargin() {
+		return fPrefetchMargin;
+	}
+
+	/**
+	 * Sets the number of loaded figures above which unused chunks are
+	 * removed from memory.
+	 */
+	public void setMaxLoadedFigures(int count) {
+		fMaxLoadedFigures = count;
+	}
+
+	public int getMaxLoadedFigures() {
+		return fMaxLoadedFigures;
+	}
+
+	/**
+	 * Gets the number of chunks of the drawing.
+	 */
+	public int getChunkCount() {
+		return fChunks.size();
+	}
+
+	/**
+	 * Gets the number of chunks which are in memory.
+	 */
+	public int getLoadedChunkCount() {
+		int count = 0;
+		for (int i = 0; i < fChunks.size(); i++) {
+			if (fChunks.get(i).fLoaded) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Draws the figures within the clip area.
+	 *
+	 * @see #figures(Rectangle)
+	 */
+	public void draw(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		draw(g, (clip != null) ? figures(clip) : figures());
+	}
+
+	/**
+	 * Returns the figures within the given rectangle in drawing order.
+	 * The chunks in the rectangle and around the visible areas of the
+	 * views are read first and unused chunks are removed from memory.
+	 */
+	public FigureEnumeration figures(Rectangle viewRectangle) {
+		List<Rectangle> areas = getViewAreas();
+		areas.add(viewRectangle);
+		load(areas);
+		evict(areas);
+		return super.figures(viewRectangle);
+	}
+
+	/**
+	 * Gets the visible areas of the views of the drawing
+	 * grown by the prefetch margin.
+	 */
+	protected List<Rectangle> getViewAreas() {
+		List<Rectangle> areas = new ArrayList<Rectangle>();
+		Iterator<DrawingChangeListener> iter = drawingChangeListeners();
+		while (iter.hasNext()) {
+			Object listener = iter.next();
+			if (listener instanceof JComponent) {
+				Rectangle r = ((JComponent)listener).getVisibleRect();
+				r.grow(fPrefetchMargin, fPrefetchMargin);
+				areas.add(r);
+			}
+		}
+		return areas;
+	}
+
+	/**
+	 * Reads the chunks intersecting the given areas together
+	 * with the other chunks of their groups.
+	 */
+	public void load(List<Rectangle> areas) {
+		for (int i = 0; i < fChunks.size(); i++) {
+			Chunk chunk = fChunks.get(i);
+			if (intersects(chunk.fBounds, areas)) {
+				if (!chunk.fLoaded) {
+					loadGroup(chunk.fGroup);
+				}
+				chunk.fLastUse = ++fUseCount;
+			}
+		}
+	}
+
+	/**
+	 * Reads all chunks.
+	 */
+	public void loadAll() {
+		for (int i = 0; i < fChunks.size(); i++) {
+			if (!fChunks.get(i).fLoaded) {
+				loadGroup(fChunks.get(i).fGroup);
+			}
+		}
+	}
+
+	private void loadGroup(int group) {
+		List<ChunkedFile.Content> contents;
+		try {
+			contents = fFile.readGroup(group);
+		}
+		catch (IOException e) {
+			throw new JHotDrawRuntimeException(e);
+		}
+		fLoading = true;
+		try {
+			for (int i = 0; i < contents.size(); i++) {
+				ChunkedFile.Content content = contents.get(i);
+				Chunk chunk = fChunks.get(content.getChunk());
+				Figure[] figures = content.getFigures();
+				chunk.fFigures = new ArrayList<Figure>(figures.length);
+				for (int j = 0; j < figures.length; j++) {
+					chunk.fFigures.add(figures[j]);
+					fChunkOfFigure.put(figures[j], chunk);
+					insert(figures[j]);
+				}
+				chunk.fLevels = content.getLevels();
+				chunk.fLoaded = true;
+			}
+		}
+		finally {
+			fLoading = false;
+			fUnloadedBounds = null;
+		}
+	}
+
+	/**
+	 * Removes the least recently used chunks from memory if too many
+	 * figures are loaded or the heap gets scarce. Chunks intersecting
+	 * the given areas are kept.
+	 */
+	protected void evict(List<Rectangle> areas) {
+		Runtime runtime = Runtime.getRuntime();
+		boolean scarce = runtime.totalMemory() - runtime.freeMemory() > runtime.maxMemory() * MAX_HEAP_USAGE;
+		if (!scarce && (figureCount() <= fMaxLoadedFigures)) {
+			return;
+		}
+		// the heap is only freed by the next garbage collection
+		int target = scarce ? Math.min(figureCount() / 2, fMaxLoadedFigures) : fMaxLoadedFigures;
+		final Map<List<Chunk>, Long> lastUses = new IdentityHashMap<List<Chunk>, Long>();
+		for (Iterator<List<Chunk>> iter = fGroups.values().iterator(); iter.hasNext(); ) {
+			List<Chunk> group = iter.next();
+			if (isEvictable(group, areas)) {
+				long lastUse = 0;
+				for (int i = 0; i < group.size(); i++) {
+					lastUse = Math.max(lastUse, group.get(i).fLastUse);
+				}
+				lastUses.put(group, Long.valueOf(lastUse));
+			}
+		}
+		List<List<Chunk>> candidates = new ArrayList<List<Chunk>>(lastUses.keySet());
+		Collections.sort(candidates, new Comparator<List<Chunk>>() {
+			public int compare(List<Chunk> g1, List<Chunk> g2) {
+				return lastUses.get(g1).compareTo(lastUses.get(g2));
+			}
+		});
+		for (int i = 0; (i < candidates.size()) && (figureCount() > target); i++) {
+			evictGroup(candidates.get(i));
+		}
+	}
+
+	private boolean isEvictable(List<Chunk> group, List<Rectangle> areas) {
+		for (int i = 0; i < group.size(); i++) {
+			Chunk chunk = group.get(i);
+			if (!chunk.fLoaded || chunk.fModified || intersects(chunk.fBounds, areas)) {
+				return false;
+			}
+		}
+		for (int i = 0; i < group.size(); i++) {
+			List<Figure> figures = group.get(i).fFigures;
+			for (int j = 0; j < figures.size(); j++) {
+				if (isObserved(figures.get(j), group.get(i).fGroup)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether other objects than the drawing and the figures of
+	 * the same group listen to a figure, e.g. the selection of a view.
+	 */
+	private boolean isObserved(Figure figure, int group) {
+		FigureChangeListener listener = figure.listener();
+		if (listener instanceof FigureChangeListenerList) {
+			FigureChangeListenerList list = (FigureChangeListenerList)listener;
+			for (int i = 0; i < list.size(); i++) {
+				if (isForeignListener(list.get(i), group)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return (listener != null) && isForeignListener(listener, group);
+	}
+
+	private boolean isForeignListener(FigureChangeListener listener, int group) {
+		if (listener == this) {
+			return false;
+		}
+		Chunk chunk = fChunkOfFigure.get(listener);
+		return (chunk == null) || (chunk.fGroup != group);
+	}
+
+	private void evictGroup(List<Chunk> group) {
+		fLoading = true;
+		try {
+			for (int i = 0; i < group.size(); i++) {
+				Chunk chunk = group.get(i);
+				for (int j = 0; j < chunk.fFigures.size(); j++) {
+					Figure figure = chunk.fFigures.get(j);
+					fChunkOfFigure.remove(figure);
+					extract(figure);
+				}
+				chunk.fFigures = new ArrayList<Figure>();
+				chunk.fLevels = null;
+				chunk.fLoaded = false;
+			}
+		}
+		finally {
+			fLoading = false;
+			fUnloadedBounds = null;
+		}
+	}
+
+	public synchronized Figure add(Figure figure) {
+		Chunk chunk = null;
+		if (!containsFigure(figure)) {
+			Rectangle r = figure.displayBox();
+			chunk = getChunk(cell(r.x + r.width / 2), cell(r.y + r.height / 2));
+		}
+		Figure addedFigure = super.add(figure);
+		if ((chunk != null) && !fChunkOfFigure.containsKey(addedFigure)) {
+			chunk.fFigures.add(addedFigure);
+			fChunkOfFigure.put(addedFigure, chunk);
+			markChanged(chunk);
+		}
+		return addedFigure;
+	}
+
+	/**
+	 * Gets the chunk of a cell. A chunk which has been stored is read
+	 * first, a new chunk is created if there is none.
+	 */
+	private Chunk getChunk(int column, int row) {
+		Long key = key(column, row);
+		Chunk chunk = fCells.get(key);
+		if (chunk == null) {
+			chunk = new Chunk(column, row);
+			chunk.fLoaded = true;
+			fChunks.add(chunk);
+			fCells.put(key, chunk);
+		}
+		else if (!chunk.fLoaded) {
+			loadGroup(chunk.fGroup);
+		}
+		chunk.fLastUse = ++fUseCount;
+		return chunk;
+	}
+
+	public synchronized Figure orphan(Figure figure) {
+		Figure orphanedFigure = super.orphan(figure);
+		Chunk chunk = fChunkOfFigure.remove(orphanedFigure);
+		if (chunk != null) {
+			chunk.fFigures.remove(orphanedFigure);
+			markChanged(chunk);
+		}
+		return orphanedFigure;
+	}
+
+	/**
+	 * Removes all figures including the figures which haven't been read.
+	 */
+	public void removeAll() {
+		super.removeAll();
+		fChunkOfFigure.clear();
+		for (int i = 0; i < fChunks.size(); i++) {
+			Chunk chunk = fChunks.get(i);
+			chunk.fFigures = new ArrayList<Figure>();
+			chunk.fLoaded = true;
+			markChanged(chunk);
+		}
+		fUnloadedBounds = null;
+	}
+
+	public synchronized Figure replace(Figure figure, Figure replacement) {
+		Chunk chunk = fChunkOfFigure.get(figure);
+		Figure replacedFigure = super.replace(figure, replacement);
+		if ((chunk != null) && containsFigure(replacement)) {
+			fChunkOfFigure.remove(figure);
+			chunk.fFigures.set(chunk.fFigures.indexOf(figure), replacement);
+			fChunkOfFigure.put(replacement, chunk);
+			markChanged(chunk);
+		}
+		return replacedFigure;
+	}
+
+	/**
+	 * Sends a figure to a layer. The figures between the old and the new
+	 * layer get new z values, so their chunks are changed as well.
+	 */
+	public void sendToLayer(Figure figure, int layerNr) {
+		int oldLayer = getLayer(figure);
+		super.sendToLayer(figure, layerNr);
+		int newLayer = getLayer(figure);
+		if ((oldLayer != -1) && (newLayer != -1)) {
+			for (int i = Math.min(oldLayer, newLayer); i <= Math.max(oldLayer, newLayer); i++) {
+				markChanged(fChunkOfFigure.get(getFigureFromLayer(i)));
+			}
+		}
+	}
+
+	public void figureChanged(FigureChangeEvent e) {
+		if (!fLoading) {
+			markChanged(fChunkOfFigure.get(e.getFigure()));
+		}
+		super.figureChanged(e);
+	}
+
+	/**
+	 * Ignores the invalidations caused by reading and removing chunks.
+	 */
+	public void figureInvalidated(FigureChangeEvent e) {
+		if (!fLoading) {
+			super.figureInvalidated(e);
+		}
+	}
+
+	private void markChanged(Chunk chunk) {
+		if (chunk != null) {
+			chunk.fChanged = true;
+			chunk.fModified = true;
+			chunk.fLevels = null;
+		}
+	}
+
+	/**
+	 * Gets the display box. This is the union of the loaded figures and
+	 * the stored bounds of the chunks which haven't been read.
+	 */
+	public Rectangle displayBox() {
+		if (fUnloadedBounds == null) {
+			Rectangle r = null;
+			for (int i = 0; i < fChunks.size(); i++) {
+				Chunk chunk = fChunks.get(i);
+				if (!chunk.fLoaded) {
+					if (r == null) {
+						r = new Rectangle(chunk.fBounds);
+					}
+					else {
+						r.add(chunk.fBounds);
+					}
+				}
+			}
+			fUnloadedBounds = (r != null) ? r : new Rectangle(0, 0, -1, -1);
+		}
+		Rectangle box = super.displayBox();
+		if (fUnloadedBounds.isEmpty()) {
+			return box;
+		}
+		if (figureCount() == 0) {
+			return new Rectangle(fUnloadedBounds);
+		}
+		box.add(fUnloadedBounds);
+		return box;
+	}
+
+	/**
+	 * Writes all figures. The chunks which haven't been read are read first.
+	 */
+	public void write(StorableOutput dw) {
+		loadAll();
+		super.write(dw);
+	}
+
+	/**
+	 * Gets the layouts of the chunks to store the drawing in a
+	 * chunked file. The unchanged chunks are copied from the
+	 * current file.
+	 *
+	 * @see #chunksStored
+	 */
+	public List<ChunkedFile.Layout> getLayouts() {
+		List<ChunkedFile.Layout> layouts = new ArrayList<ChunkedFile.Layout>(fChunks.size());
+		for (int i = 0; i < fChunks.size(); i++) {
+			Chunk chunk = fChunks.get(i);
+			ChunkedFile.Layout layout = new ChunkedFile.Layout(chunk.fColumn, chunk.fRow);
+			if (i < fFile.getChunkCount()) {
+				layout.setSource(fFile);
+			}
+			if (chunk.fLoaded) {
+				layout.setFigures(new ArrayList<Figure>(chunk.fFigures), chunk.fChanged ? null : chunk.fLevels);
+			}
+			layouts.add(layout);
+		}
+		return layouts;
+	}
+
+	/**
+	 * Reads the figures from the given file from now on after the
+	 * chunks have been stored in it. The current file is closed.
+	 *
+	 * @param file the file the chunks have been stored in
+	 * @param layouts the layouts the chunks have been stored with
+	 * @see #getLayouts
+	 */
+	public void chunksStored(ChunkedFile file, List<ChunkedFile.Layout> layouts) throws IOException {
+		if (layouts.size() != fChunks.size()) {
+			throw new IllegalArgumentException("The layouts don't match the chunks of the drawing");
+		}
+		ChunkedFile oldFile = fFile;
+		fFile = file;
+		for (int i = 0; i < fChunks.size(); i++) {
+			Chunk chunk = fChunks.get(i);
+			ChunkedFile.Entry entry = file.getEntry(i);
+			ChunkedFile.Layout layout = layouts.get(i);
+			chunk.fBounds = entry.getBounds();
+			chunk.fGroup = entry.getGroup();
+			if (layout.getFigures() != null) {
+				chunk.fFigures = new ArrayList<Figure>(layout.getFigures());
+				chunk.fLevels = layout.getLevels();
+			}
+			chunk.fChanged = false;
+		}
+		updateGroups();
+		if (oldFile != file) {
+			oldFile.close();
+		}
+	}
+
+	/**
+	 * Closes the file the figures are read from.
+	 */
+	public void release() {
+		super.release();
+		try {
+			fFile.close();
+		}
+		catch (IOException e) {
+			// the file is only read
+		}
+	}
+
+	private void updateGroups() {
+		fGroups = new LinkedHashMap<Integer, List<Chunk>>();
+		for (int i = 0; i < fChunks.size(); i++) {
+			Chunk chunk = fChunks.get(i);
+			Integer group = Integer.valueOf(chunk.fGroup);
+			List<Chunk> chunks = fGroups.get(group);
+			if (chunks == null) {
+				chunks = new ArrayList<Chunk>(1);
+				fGroups.put(group, chunks);
+			}
+			chunks.add(chunk);
+		}
+	}
+
+	private static boolean intersects(Rectangle bounds, List<Rectangle> areas) {
+		for (int i = 0; i < areas.size(); i++) {
+			// the bounds of a single point or line are empty
+			Rectangle area = areas.get(i);
+			if ((bounds.x <= area.x + area.width) && (area.x <= bounds.x + bounds.width)
+					&& (bounds.y <= area.y + area.height) && (area.y <= bounds.y + bounds.height)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int cell(int coordinate) {
+		int cellSize = fFile.getCellSize();
+		// round towards negative infinity
+		return (coordinate >= 0) ? coordinate / cellSize : -((-coordinate - 1) / cellSize) - 1;
+	}
+
+	private static Long key(int column, int row) {
+		return Long.valueOf(((long)column << 32) | (row & 0xFFFFFFFFL));
+	}
+
+	/**
+	 * The figures are read from a file which isn't part of the
+	 * serialized state.
+	 */
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		throw new NotSerializableException(getClass().getName());
+	}
+
+	private static final class Chunk {
+		final int fColumn;
+		final int fRow;
+		Rectangle fBounds = new Rectangle(0, 0, -1, -1);
+		int fGroup = -1;
+		List<Figure> fFigures = new ArrayList<Figure>();
+		int[] fLevels;
+		boolean fLoaded;
+		boolean fChanged;
+		boolean fModified;
+		long fLastUse;
+
+		Chunk(int column, int row) {
+			fColumn = column;
+			fRow = row;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * @(#)ClippingUpdateStrategy.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.awt.*;
+import org.jhotdraw.framework.*;
+
+/**
+ * The ClippingUpdateStrategy implements an update strategy
+ * that only redraws the figures within the clip area of the
+ * Graphics, i.e. the damaged area of the DrawingView. The
+ * figures are looked up with Drawing.figures(Rectangle), so
+ * repairing a small area is independent of the drawing's size.
+ *
+ * @see DrawingView
+ * @see Drawing#figures(Rectangle)
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class ClippingUpdateStrategy implements Painter {
+
+	/*
+	 * Serialization support. In JavaDraw only the Drawing is serialized.
+	 * However, for beans support ClippingUpdateStrategy supports
+	 * serialization
+	 */
+	private static final long serialVersionUID = 2615471652806447151L;
+
+	/**
+	* Draws the view contents within the clip area.
+	*/
+	public void draw(Graphics g, DrawingView view) {
+		Rectangle clip = g.getClipBounds();
+		if ((clip == null) || (g instanceof PrintGraphics) || (view.drawing() == null)) {
+			view.drawAll(g);
+			return;
+		}
+
+		// figures are invalidated with their display box grown by the
+		// handle size so include figures that may paint into the clip area
+		Rectangle r = new Rectangle(clip);
+		r.grow(Handle.HANDLESIZE, Handle.HANDLESIZE);
+
+		view.drawBackground(g);
+		view.draw(g, view.drawing().figures(r));
+	}
+}
@@ -15,6 +15,7 @@ import org.jhotdraw.util.*;
 import org.jhotdraw.framework.*;
 
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 import java.util.*;
 import java.util.List;
 import java.io.*;
@@ -38,9 +39,12 @@ import java.io.*;
 public abstract class CompositeFigure extends AbstractFigure implements FigureChangeListener {
 
 	/**
-	 * The figures that this figure is composed of
+	 * The figures that this figure is composed of in drawing order.
+	 * An OrderedFigureList makes lookups of figures and their layers
+	 * efficient.
 	 * @see #add
 	 * @see #remove
+	 * @see OrderedFigureList
 	 */
 	protected List<Figure> fFigures;
 
@@ -48,12 +52,28 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * Serialization support.
 	 */
 	private static final long serialVersionUID = 7408153435700021866L;
-	private transient QuadTree  _theQuadTree;
+	private transient SpatialIndex  _theSpatialIndex;
+
+	/**
+	 * The union of the display boxes of all contained figures (and the
+	 * origin). It is grown when figures are added or enlarged and only
+	 * computed again after a figure that defines its border is removed
+	 * or shrinks. Null if it has to be computed again.
+	 */
+	private transient Rectangle _theFiguresBounds;
+
+	/**
+	 * Nesting level of beginUpdate() calls and the figures changed
+	 * since the batch began. Their spatial index entries are updated
+	 * when the batch ends.
+	 */
+	private transient int _nUpdateLevel;
+	private transient Set<Figure> _theChangedFigures;
 	protected int _nLowestZ;
 	protected int _nHighestZ;
 
 	protected CompositeFigure() {
-		fFigures = new ArrayList<Figure>();
+		fFigures = new OrderedFigureList();
 		_nLowestZ = 0;
 		_nHighestZ = 0;
 	}
@@ -70,7 +90,41 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 			figure.setZValue(++_nHighestZ);
 			fFigures.add(figure);
 			figure.addToContainer(this);
-			_addToQuadTree(figure);
+			_addToSpatialIndex(figure);
+			_growFiguresBounds(figure);
+		}
+		return figure;
+	}
+
+	/**
+	 * Adds a figure which keeps its z value, e.g. a figure which is read
+	 * again after it has been removed temporarily. It is inserted in front
+	 * of the figures with a lower or the same z value.
+	 *
+	 * @param figure to be added to the drawing
+	 * @return the figure that was inserted
+	 */
+	protected Figure insert(Figure figure) {
+		if (!containsFigure(figure)) {
+			int z = figure.getZValue();
+			// the figures are ordered by their z values
+			int low = 0;
+			int high = fFigures.size();
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (fFigures.get(middle).getZValue() <= z) {
+					low = middle + 1;
+				}
+				else {
+					high = middle;
+				}
+			}
+			fFigures.add(low, figure);
+			_nLowestZ = Math.min(_nLowestZ, z);
+			_nHighestZ = Math.max(_nHighestZ, z);
+			figure.addToContainer(this);
+			_addToSpatialIndex(figure);
+			_growFiguresBounds(figure);
 		}
 		return figure;
 	}
@@ -92,8 +146,14 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * @param fe (unused) enumeration containing all figures to be added
 	 */
 	public void addAll(FigureEnumeration fe) {
-		while (fe.hasNextFigure()) {
-			add(fe.nextFigure());
+		beginUpdate();
+		try {
+			while (fe.hasNextFigure()) {
+				add(fe.nextFigure());
+			}
+		}
+		finally {
+			endUpdate();
 		}
 	}
 
@@ -127,8 +187,14 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * @see #remove
 	 */
 	public void removeAll(FigureEnumeration fe) {
-		while (fe.hasNextFigure()) {
-			remove(fe.nextFigure());
+		beginUpdate();
+		try {
+			while (fe.hasNextFigure()) {
+				remove(fe.nextFigure());
+			}
+		}
+		finally {
+			endUpdate();
 		}
 	}
 
@@ -144,7 +210,8 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 		}
 		fFigures.clear();
 
-		_clearQuadTree();
+		_clearSpatialIndex();
+		_theFiguresBounds = new Rectangle();
 		_nLowestZ = 0;
 		_nHighestZ = 0;
 	}
@@ -157,9 +224,22 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * @param figure that is part of the drawing and should be added
 	 */
 	public synchronized Figure orphan(Figure figure) {
+		return extract(figure);
+	}
+
+	/**
+	 * Removes a figure which is inserted again later, e.g. a figure
+	 * which is only kept in memory while it is needed. Unlike orphan()
+	 * this is not overridden by subclasses to announce the removal.
+	 *
+	 * @param figure that is part of the drawing
+	 * @return the figure that has been removed
+	 * @see #insert
+	 */
+	protected Figure extract(Figure figure) {
 		figure.removeFromContainer(this);
 		fFigures.remove(figure);
-		_removeFromQuadTree(figure);
+		_shrinkFiguresBounds(_removeFromSpatialIndex(figure), null);
 		return figure;
 	}
 
@@ -175,8 +255,76 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	}
 
 	public void orphanAll(FigureEnumeration fe) {
-		while (fe.hasNextFigure()) {
-			orphan(fe.nextFigure());
+		beginUpdate();
+		try {
+			while (fe.hasNextFigure()) {
+				orphan(fe.nextFigure());
+			}
+		}
+		finally {
+			endUpdate();
+		}
+	}
+
+	/**
+	 * Starts a batch of changes. While a batch is running the spatial
+	 * index isn't updated for changed figures, so figures(Rectangle) and
+	 * the findFigure methods may still see the old locations. The updates
+	 * of dependent figures like connections are deferred until the batch
+	 * ends. Batches can be nested.
+	 *
+	 * @see #endUpdate
+	 * @see DependencyUpdateQueue
+	 */
+	public void beginUpdate() {
+		_nUpdateLevel++;
+		DependencyUpdateQueue.begin();
+	}
+
+	/**
+	 * Ends a batch of changes. Ending the outermost batch
+	 * commits the changes.
+	 *
+	 * @see #commitUpdate
+	 */
+	public void endUpdate() {
+		if (_nUpdateLevel == 0) {
+			throw new IllegalStateException("endUpdate() called without beginUpdate()");
+		}
+		try {
+			// dependent figures are updated while the batch is still running
+			DependencyUpdateQueue.end();
+		}
+		finally {
+			_nUpdateLevel--;
+			if (_nUpdateLevel == 0) {
+				commitUpdate();
+			}
+		}
+	}
+
+	/**
+	 * Checks whether a batch of changes is running.
+	 */
+	protected boolean isUpdating() {
+		return _nUpdateLevel > 0;
+	}
+
+	/**
+	 * Applies the changes collected during a batch. Subclasses
+	 * extending this method have to call super.commitUpdate().
+	 */
+	protected void commitUpdate() {
+		if ((_theChangedFigures == null) || _theChangedFigures.isEmpty()) {
+			return;
+		}
+		Figure[] changedFigures = _theChangedFigures.toArray(new Figure[_theChangedFigures.size()]);
+		_theChangedFigures.clear();
+		for (int i = 0; i < changedFigures.length; i++) {
+			// figures might have been removed during the batch
+			if (containsFigure(changedFigures[i])) {
+				_updateSpatialIndex(changedFigures[i]);
+			}
 		}
 	}
 
@@ -195,6 +343,7 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 			replacement.addToContainer(this);   // will invalidate figure
 			figure.removeFromContainer(this);
 			fFigures.set(index, replacement);
+			_theFiguresBounds = null;
 			figure.changed();
 			replacement.changed();
 		}
@@ -338,16 +487,17 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * @see Figure#draw
 	 */
 	public void draw(Graphics g) {
-		Graphics2D g2d = (Graphics2D)g;
-		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,RenderingHints.VALUE_ANTIALIAS_ON);
-		draw(g2d, figures());
+		draw(g, figures());
 	}
 
 	/**
-	 * Draws only the given figures
+	 * Draws only the given figures. The figures are antialiased, the
+	 * update strategies of the views draw through this method as well.
 	 * @see Figure#draw
 	 */
 	public void draw(Graphics g, FigureEnumeration fe) {
+		Graphics2D g2d = (Graphics2D)g;
+		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,RenderingHints.VALUE_ANTIALIAS_ON);
 		while (fe.hasNextFigure()) {
 			fe.nextFigure().draw(g);
 		}
@@ -368,7 +518,7 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * The figures are returned in the drawing order.
 	 */
 	public FigureEnumeration figures() {
-		return new FigureEnumerator(new ArrayList<Figure>(fFigures));
+		return new FigureEnumerator(_snapshot());
 	}
 
 	/**
@@ -377,29 +527,8 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * that lie within the given bounds.
 	 */
 	public FigureEnumeration figures(Rectangle viewRectangle) {
-		if (_theQuadTree != null) {
-
-			FigureEnumeration fe =
-				_theQuadTree.getAllWithin(new Bounds(viewRectangle).asRectangle2D());
-
-			List<OrderedFigureElement> l2 = new ArrayList<OrderedFigureElement>();
-
-			while (fe.hasNextFigure()) {
-				Figure f = fe.nextFigure();
-				//int z = fFigures.indexOf(f);
-				l2.add(new OrderedFigureElement(f, f.getZValue()));
-			}
-
-			Collections.sort(l2);
-
-			List<Figure> l3 = new ArrayList<Figure>();
-
-			for (Iterator<OrderedFigureElement> iter = l2.iterator(); iter.hasNext(); ) {
-				OrderedFigureElement ofe = (OrderedFigureElement)iter.next();
-				l3.add(ofe.getFigure());
-			}
-
-			return new FigureEnumerator(l3);
+		if (_theSpatialIndex != null) {
+			return new FigureEnumerator(_figuresWithin(viewRectangle));
 		}
 
 		return figures();
@@ -424,7 +553,16 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * in the reverse drawing order.
 	 */
 	public final FigureEnumeration figuresReverse() {
-		return new ReverseFigureEnumerator(new ArrayList<Figure>(fFigures));
+		return new ReverseFigureEnumerator(_snapshot());
+	}
+
+	/**
+	 * Returns an enumeration to iterate in
+	 * Z-order front to back over the figures
+	 * that lie within the given bounds.
+	 */
+	public FigureEnumeration figuresReverse(Rectangle viewRectangle) {
+		return _hitCandidates(viewRectangle);
 	}
 
 	/**
@@ -432,7 +570,7 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * should not descend into the figure's children.
 	 */
 	public Figure findFigure(int x, int y) {
-		FigureEnumeration fe = figuresReverse();
+		FigureEnumeration fe = _hitCandidates(x, y);
 		while (fe.hasNextFigure()) {
 			Figure figure = fe.nextFigure();
 			if (figure.containsPoint(x, y)) {
@@ -446,7 +584,7 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * Finds a top level Figure that intersects the given rectangle.
 	 */
 	public Figure findFigure(Rectangle r) {
-		FigureEnumeration fe = figuresReverse();
+		FigureEnumeration fe = _hitCandidates(r);
 		while (fe.hasNextFigure()) {
 			Figure figure = fe.nextFigure();
 			Rectangle fr = figure.displayBox();
@@ -471,7 +609,7 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 			return findFigure(x, y);
 		}
 
-		FigureEnumeration fe = figuresReverse();
+		FigureEnumeration fe = _hitCandidates(x, y);
 		while (fe.hasNextFigure()) {
 			Figure figure = fe.nextFigure();
 			if (figure.containsPoint(x, y) && !figure.includes(without)) {
@@ -492,7 +630,7 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 			return findFigure(r);
 		}
 
-		FigureEnumeration fe = figuresReverse();
+		FigureEnumeration fe = _hitCandidates(r);
 		while (fe.hasNextFigure()) {
 			Figure figure = fe.nextFigure();
 			Rectangle fr = figure.displayBox();
@@ -510,7 +648,7 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	 * figure containing the given point.
 	 */
 	public Figure findFigureInside(int x, int y) {
-		FigureEnumeration fe = figuresReverse();
+		FigureEnumeration fe = _hitCandidates(x, y);
 		while (fe.hasNextFigure()) {
 			Figure figure = fe.nextFigure().findFigureInside(x, y);
 			if (figure != null) {
@@ -538,7 +676,7 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 			return findFigureInside(x, y);
 		}
 
-		FigureEnumeration fe = figuresReverse();
+		FigureEnumeration fe = _hitCandidates(x, y);
 		while (fe.hasNextFigure()) {
 			Figure figure = fe.nextFigure();
 			if (figure != without) {
@@ -557,6 +695,123 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 		}
 	}
 
+	/**
+	 * Returns the distance by which a child figure may report
+	 * containsPoint() outside of its display box (e.g. lines accept
+	 * clicks close to them). Hit detection only tests figures whose
+	 * display box lies within this distance of the point.
+	 */
+	protected int getHitTolerance() {
+		return Handle.HANDLESIZE;
+	}
+
+	/**
+	 * Returns the figures which might contain the given point in
+	 * reverse drawing order. Without a spatial index all figures
+	 * are returned.
+	 */
+	private FigureEnumeration _hitCandidates(int x, int y) {
+		if (_theSpatialIndex != null) {
+			Rectangle r = new Rectangle(x, y, 1, 1);
+			r.grow(getHitTolerance(), getHitTolerance());
+			return new ReverseFigureEnumerator(_figuresWithin(r));
+		}
+		return figuresReverse();
+	}
+
+	/**
+	 * Returns the figures which might intersect the given rectangle in
+	 * reverse drawing order.
+	 */
+	private FigureEnumeration _hitCandidates(Rectangle r) {
+		if (_theSpatialIndex != null) {
+			return new ReverseFigureEnumerator(_figuresWithin(r));
+		}
+		return figuresReverse();
+	}
+
+	/**
+	 * Gets the union of the display boxes of the contained figures
+	 * and the origin. The result is maintained incrementally, so
+	 * usually no figure has to be asked for its display box.
+	 */
+	protected Rectangle figuresDisplayBox() {
+		if (_theFiguresBounds == null) {
+			Rectangle r = new Rectangle();
+			for (Iterator<Figure> iter = fFigures.iterator(); iter.hasNext(); ) {
+				r.add(iter.next().displayBox());
+			}
+			_theFiguresBounds = r;
+		}
+		return new Rectangle(_theFiguresBounds);
+	}
+
+	private void _growFiguresBounds(Figure f) {
+		if (_theFiguresBounds != null) {
+			_theFiguresBounds.add(f.displayBox());
+		}
+	}
+
+	/**
+	 * Forces the figures' bounds to be computed again if a figure with
+	 * the given old bounds might have defined their border and doesn't
+	 * cover its old bounds anymore. Unknown old bounds are treated
+	 * as bordering.
+	 */
+	private void _shrinkFiguresBounds(Rectangle2D oldBounds, Rectangle2D newBounds) {
+		if (_theFiguresBounds == null) {
+			return;
+		}
+		if (oldBounds == null) {
+			_theFiguresBounds = null;
+		}
+		else if ((newBounds == null) || !newBounds.contains(oldBounds)) {
+			Rectangle r = _theFiguresBounds;
+			if ((oldBounds.getMinX() <= r.x) || (oldBounds.getMinY() <= r.y)
+					|| (oldBounds.getMaxX() >= r.x + r.width)
+					|| (oldBounds.getMaxY() >= r.y + r.height)) {
+				_theFiguresBounds = null;
+			}
+		}
+	}
+
+	/**
+	 * Returns an unmodifiable copy of the contained figures. The copy
+	 * is shared between all enumerations until the figures change.
+	 */
+	private List<Figure> _snapshot() {
+		if (fFigures instanceof OrderedFigureList) {
+			return ((OrderedFigureList)fFigures).snapshot();
+		}
+		return new ArrayList<Figure>(fFigures);
+	}
+
+	/**
+	 * Looks up the figures within the given rectangle in the spatial
+	 * index and orders them back to front by their z value.
+	 */
+	private List<Figure> _figuresWithin(Rectangle r) {
+		FigureEnumeration fe = _theSpatialIndex.getAllWithin(new Bounds(r).asRectangle2D());
+
+		List<OrderedFigureElement> l2 = new ArrayList<OrderedFigureElement>();
+
+		while (fe.hasNextFigure()) {
+			Figure f = fe.nextFigure();
+			l2.add(new OrderedFigureElement(f, f.getZValue()));
+		}
+
+		Collections.sort(l2);
+
+		List<Figure> l3 = new ArrayList<Figure>(l2.size());
+
+		for (Iterator<OrderedFigureElement> iter = l2.iterator(); iter.hasNext(); ) {
+			OrderedFigureElement ofe = iter.next();
+			l3.add(ofe.getFigure());
+		}
+
+		return l3;
+	}
+
 	/**
 	 * Checks if the composite figure has the argument as one of
 	 * its children.
@@ -634,8 +889,25 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	}
 
 	public void figureChanged(FigureChangeEvent e) {
-		_removeFromQuadTree(e.getFigure());
-		_addToQuadTree(e.getFigure());
+		Figure figure = e.getFigure();
+		if (isUpdating()) {
+			// the bounds have to contain the figure during the batch already
+			_growFiguresBounds(figure);
+			if (_theChangedFigures == null) {
+				_theChangedFigures = Collections.newSetFromMap(new IdentityHashMap<Figure, Boolean>());
+			}
+			_theChangedFigures.add(figure);
+		}
+		else {
+			_updateSpatialIndex(figure);
+		}
+	}
+
+	private void _updateSpatialIndex(Figure figure) {
+		Rectangle2D oldBounds = _removeFromSpatialIndex(figure);
+		Rectangle2D newBounds = _addToSpatialIndex(figure);
+		_shrinkFiguresBounds(oldBounds, newBounds);
+		_growFiguresBounds(figure);
 	}
 
 	public void figureRemoved(FigureChangeEvent e) {
@@ -662,7 +934,16 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	public void read(StorableInput dr) throws IOException {
 		super.read(dr);
 		int size = dr.readInt();
-		fFigures = new ArrayList<Figure>(size);
+		fFigures = new OrderedFigureList();
+		_theFiguresBounds = null;
+		readFigures(dr, size);
+	}
+
+	/**
+	 * Reads the given number of figures, adds them and builds
+	 * the spatial index.
+	 */
+	protected void readFigures(StorableInput dr, int size) throws IOException {
 		for (int i=0; i<size; i++) {
 			add((Figure)dr.readStorable());
 		}
@@ -673,6 +954,10 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 		throws ClassNotFoundException, IOException {
 
 		s.defaultReadObject();
+		// drawings serialized by older versions contain an ArrayList
+		if (!(fFigures instanceof OrderedFigureList)) {
+			fFigures = new OrderedFigureList(fFigures);
+		}
 
 		FigureEnumeration fe = figures();
 		while (fe.hasNextFigure()) {
@@ -686,49 +971,72 @@ public abstract class CompositeFigure extends AbstractFigure implements FigureCh
 	/**
 	 * Used to optimize rendering.  Rendering of many objects may
 	 * be slow until this method is called.  The view rectangle
-	 * should at least approximately enclose the CompositeFigure.
-	 * If the view rectangle is too small or too large, performance
-	 * may suffer.
+	 * is a hint about the area covered by the CompositeFigure.
+	 * The default spatial index adapts itself to the contained
+	 * figures, so figures outside of the view rectangle don't
+	 * degrade performance.
 	 *
 	 * Don't forget to call this after loading or creating a
 	 * new CompositeFigure.  If you forget, drawing performance may
 	 * suffer.
 	 */
 	public void init(Rectangle viewRectangle) {
-		_theQuadTree = new QuadTree(new Bounds(viewRectangle).asRectangle2D());
+		_theSpatialIndex = createSpatialIndex(viewRectangle);
 
+		Map<Figure, Rectangle2D> figureBounds = new HashMap<Figure, Rectangle2D>(fFigures.size() * 2);
 		FigureEnumeration fe = figures();
 		while (fe.hasNextFigure()) {
-			_addToQuadTree(fe.nextFigure());
+			Figure f = fe.nextFigure();
+			figureBounds.put(f, _indexBounds(f));
 		}
+		_theSpatialIndex.load(figureBounds);
 	}
 
-	private void _addToQuadTree(Figure f) {
-		if (_theQuadTree != null) {
-			// Bugfix: Make sure the rectangle is not zero width or height.
-			// Otherwise, the quadTree search in this.figures(Rectangle)
-			// will be incorrect. [John Yu, 2002/05/23]
-			Rectangle r = f.displayBox();
-			if (r.height == 0) {
-				r.grow(0, 1);
-			}
-			if (r.width == 0) {
-				r.grow(1, 0);
-			}
+	/**
+	 * Factory method for the spatial index used to look up figures by
+	 * their location. Subclasses may override it to use another index
+	 * structure, e.g. a QuadTree for drawings of a known, fixed size.
+	 *
+	 * @param viewRectangle the area that approximately encloses the figures
+	 * @see SpatialIndex
+	 */
+	protected SpatialIndex createSpatialIndex(Rectangle viewRectangle) {
+		return new RTree();
+	}
 
-			_theQuadTree.add(f, new Bounds(r).asRectangle2D());
+	private Rectangle2D _indexBounds(Figure f) {
+		// Bugfix: Make sure the rectangle is not zero width or height.
+		// Otherwise, the quadTree search in this.figures(Rectangle)
+		// will be incorrect. [John Yu, 2002/05/23]
+		Rectangle r = f.displayBox();
+		if (r.height == 0) {
+			r.grow(0, 1);
 		}
+		if (r.width == 0) {
+			r.grow(1, 0);
+		}
+		return new Bounds(r).asRectangle2D();
 	}
 
-	private void _removeFromQuadTree(Figure f) {
-		if (_theQuadTree != null) {
-			_theQuadTree.remove(f);
+	private Rectangle2D _addToSpatialIndex(Figure f) {
+		if (_theSpatialIndex != null) {
+			Rectangle2D bounds = _indexBounds(f);
+			_theSpatialIndex.add(f, bounds);
+			return bounds;
 		}
+		return null;
+	}
+
+	private Rectangle2D _removeFromSpatialIndex(Figure f) {
+		if (_theSpatialIndex != null) {
+			return (Rectangle2D)_theSpatialIndex.remove(f);
+		}
+		return null;
 	}
 
-	private void _clearQuadTree() {
-		if (_theQuadTree != null) {
-			_theQuadTree.clear();
+	private void _clearSpatialIndex() {
+		if (_theSpatialIndex != null) {
+			_theSpatialIndex.clear();
 		}
 	}
 }
@@ -226,7 +226,7 @@ public  class ConnectionTool extends AbstractTool {
 	 * Finds an existing connection figure.
 	 */
 	protected ConnectionFigure findConnection(int x, int y, Drawing drawing) {
-		FigureEnumeration fe = drawing.figuresReverse();
+		FigureEnumeration fe = drawing.figuresReverse(hitRectangle(x, y));
 		while (fe.hasNextFigure()) {
 			Figure figure = fe.nextFigure();
 			figure = figure.findFigureInside(x, y);
@@ -317,7 +317,7 @@ public  class ConnectionTool extends AbstractTool {
 	 * location.
 	 */
 	protected Figure findConnectableFigure(int x, int y, Drawing drawing) {
-		FigureEnumeration fe = drawing.figuresReverse();
+		FigureEnumeration fe = drawing.figuresReverse(hitRectangle(x, y));
 		while (fe.hasNextFigure()) {
 			Figure figure = fe.nextFigure();
 			if (!figure.includes(getConnection()) && figure.canConnect()
@@ -328,6 +328,16 @@ public  class ConnectionTool extends AbstractTool {
 		return null;
 	}
 
+	/**
+	 * Returns the area around the mouse location in which figures
+	 * are considered as hit candidates.
+	 */
+	protected Rectangle hitRectangle(int x, int y) {
+		Rectangle r = new Rectangle(x, y, 1, 1);
+		r.grow(Handle.HANDLESIZE, Handle.HANDLESIZE);
+		return r;
+	}
+
 	protected void setStartConnector(Connector newStartConnector) {
 		myStartConnector = newStartConnector;
 	}
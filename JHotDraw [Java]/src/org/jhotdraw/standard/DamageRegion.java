@@ -0,0 +1,186 @@
+/*
+ * @(#)DamageRegion.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DamageRegion accumulates the invalidated areas of a drawing view
+ * as a small set of disjoint rectangles. Unlike a single union rectangle
+ * it keeps changes in distant parts of a view apart, so only the damaged
+ * parts have to be repaired.
+ * <p>
+ * Overlapping rectangles are always merged. Other rectangles are merged
+ * when their union doesn't cover much more area than the rectangles
+ * themselves. If more than the maximum number of rectangles remain,
+ * the pair whose union wastes the least area is merged.
+ *
+ * @see StandardDrawingView#repairDamage
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class DamageRegion {
+
+	/**
+	 * The default maximum number of rectangles.
+	 */
+	public static final int DEFAULT_MAX_RECTANGLES = 8;
+
+	/**
+	 * Two rectangles are merged if the area of their union that is
+	 * not covered by them is at most this fraction of the union.
+	 */
+	private static final double MERGE_WASTE_RATIO = 0.25;
+
+	private int fMaxRectangles;
+	private List<Rectangle> fRectangles;
+
+	public DamageRegion() {
+		this(DEFAULT_MAX_RECTANGLES);
+	}
+
+	public DamageRegion(int maxRectangles) {
+		if (maxRectangles < 1) {
+			throw new IllegalArgumentException("maxRectangles must be at least 1: " + maxRectangles);
+		}
+		fMaxRectangles = maxRectangles;
+		fRectangles = new ArrayList<Rectangle>(maxRectangles + 1);
+	}
+
+	/**
+	 * Adds a damaged rectangle to the region. The rectangle is copied.
+	 * Adding a rectangle that is already covered by the region doesn't
+	 * allocate anything.
+	 */
+	public void add(Rectangle r) {
+		if ((r == null) || r.isEmpty()) {
+			return;
+		}
+		for (int i = 0; i < fRectangles.size(); i++) {
+			if (fRectangles.get(i).contains(r)) {
+				return;
+			}
+		}
+		Rectangle damage = new Rectangle(r);
+		// merging may create a rectangle that overlaps others
+		boolean merged = true;
+		while (merged) {
+			merged = false;
+			for (int i = fRectangles.size() - 1; i >= 0; i--) {
+				Rectangle other = fRectangles.get(i);
+				if (damage.intersects(other) || (waste(damage, other) <= MERGE_WASTE_RATIO * unionArea(damage, other))) {
+					damage.add(other);
+					fRectangles.remove(i);
+					merged = true;
+				}
+			}
+		}
+		fRectangles.add(damage);
+
+		while (fRectangles.size() > fMaxRectangles) {
+			mergeCheapestPair();
+		}
+	}
+
+	/**
+	 * Returns the disjoint rectangles of the region.
+	 * The rectangles are copies.
+	 */
+	public List<Rectangle> getRectangles() {
+		List<Rectangle> rectangles = new ArrayList<Rectangle>(fRectangles.size());
+		for (int i = 0; i < fRectangles.size(); i++) {
+			rectangles.add(new Rectangle(fRectangles.get(i)));
+		}
+		return rectangles;
+	}
+
+	/**
+	 * Returns the bounding box of the whole region or null if the
+	 * region is empty.
+	 */
+	public Rectangle getBounds() {
+		if (isEmpty()) {
+			return null;
+		}
+		Rectangle bounds = new Rectangle(fRectangles.get(0));
+		for (int i = 1; i < fRectangles.size(); i++) {
+			bounds.add(fRectangles.get(i));
+		}
+		return bounds;
+	}
+
+	public boolean isEmpty() {
+		return fRectangles.isEmpty();
+	}
+
+	public void clear() {
+		fRectangles.clear();
+	}
+
+	public int getMaxRectangles() {
+		return fMaxRectangles;
+	}
+
+	private void mergeCheapestPair() {
+		int first = 0;
+		int second = 1;
+		long minWaste = Long.MAX_VALUE;
+		for (int i = 0; i < fRectangles.size(); i++) {
+			for (int j = i + 1; j < fRectangles.size(); j++) {
+				long waste = waste(fRectangles.get(i), fRectangles.get(j));
+				if (waste < minWaste) {
+					minWaste = waste;
+					first = i;
+					second = j;
+				}
+			}
+		}
+		Rectangle r = fRectangles.remove(second);
+		// the merged rectangle has to be added again to keep the rectangles disjoint
+		add(fRectangles.remove(first).union(r));
+	}
+
+	/**
+	 * Returns the area of the union of two rectangles that is
+	 * not covered by one of them. The rectangles mustn't be empty.
+	 */
+	private static long waste(Rectangle r1, Rectangle r2) {
+		long covered = area(r1) + area(r2) - intersectionArea(r1, r2);
+		return unionArea(r1, r2) - covered;
+	}
+
+	/**
+	 * Returns the area of the bounding box of two rectangles. The
+	 * areas are computed from the coordinates because this is called
+	 * for every rectangle of the region each time damage is added.
+	 */
+	private static long unionArea(Rectangle r1, Rectangle r2) {
+		long width = (long)Math.max(r1.x + r1.width, r2.x + r2.width) - Math.min(r1.x, r2.x);
+		long height = (long)Math.max(r1.y + r1.height, r2.y + r2.height) - Math.min(r1.y, r2.y);
+		return width * height;
+	}
+
+	private static long intersectionArea(Rectangle r1, Rectangle r2) {
+		long width = (long)Math.min(r1.x + r1.width, r2.x + r2.width) - Math.max(r1.x, r2.x);
+		long height = (long)Math.min(r1.y + r1.height, r2.y + r2.height) - Math.max(r1.y, r2.y);
+		if ((width <= 0) || (height <= 0)) {
+			return 0;
+		}
+		return width * height;
+	}
+
+	private static long area(Rectangle r) {
+		return (long)r.width * r.height;
+	}
+}
@@ -12,6 +12,7 @@
 package org.jhotdraw.standard;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.jhotdraw.framework.DrawingEditor;
@@ -52,14 +53,16 @@ public class DeleteCommand extends FigureTransferCommand {
 		FigureEnumeration dfe;
 		while (fe.hasNextFigure()) {
 			f = fe.nextFigure();
-			affected.add(0, f);
+			affected.add(f);
 			dfe = f.getDependendFigures();
 			if (dfe != null) {
 				while (dfe.hasNextFigure()) {
-					affected.add(0, dfe.nextFigure());
+					affected.add(dfe.nextFigure());
 				}
 			}
 		}
+		// dependent figures are processed before the figures they depend on
+		Collections.reverse(affected);
 		fe = new FigureEnumerator(affected);
 		getUndoActivity().setAffectedFigures(fe);
 		/* ricardo_padilha: end of bugfix */
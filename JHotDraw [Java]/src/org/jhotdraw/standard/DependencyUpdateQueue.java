@@ -0,0 +1,167 @@
+/*
+ * @(#)DependencyUpdateQueue.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jhotdraw.framework.*;
+
+/**
+ * Collects the dependent figures (e.g. connections) that have to be
+ * updated while figures are changed in a batch. Without a batch a
+ * dependent figure is updated each time one of the figures it depends on
+ * changes, so moving a connection together with both of its end figures
+ * updates it several times. During a batch the updates are only recorded
+ * and when the outermost batch of the current thread ends each recorded
+ * figure is updated once, after the figures it depends on.
+ * <p>
+ * Batches are started and ended by CompositeFigure.beginUpdate() and
+ * endUpdate(). The queue is kept per thread.
+ *
+ * @see DependentFigure
+ * @see CompositeFigure#beginUpdate
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public final class DependencyUpdateQueue {
+
+	/**
+	 * The number of times a figure is updated at most while the queue
+	 * is flushed. Figures depending on each other in a cycle would
+	 * otherwise be updated forever.
+	 */
+	private static final int MAX_UPDATES = 4;
+
+	private static final ThreadLocal<DependencyUpdateQueue> fQueues = new ThreadLocal<DependencyUpdateQueue>() {
+		protected DependencyUpdateQueue initialValue() {
+			return new DependencyUpdateQueue();
+		}
+	};
+
+	private int fLevel;
+	private boolean fFlushing;
+	private Set<DependentFigure> fPending = new LinkedHashSet<DependentFigure>();
+	private Set<DependentFigure> fScheduled = Collections.newSetFromMap(new IdentityHashMap<DependentFigure, Boolean>());
+
+	private DependencyUpdateQueue() {
+	}
+
+	/**
+	 * Starts a batch on the current thread. Batches can be nested.
+	 */
+	public static void begin() {
+		fQueues.get().fLevel++;
+	}
+
+	/**
+	 * Ends a batch on the current thread. Ending the outermost batch
+	 * updates the recorded figures. Figures changed by these updates
+	 * are still part of the batch, so this has to be called before the
+	 * batch of the drawing is committed.
+	 */
+	public static void end() {
+		DependencyUpdateQueue queue = fQueues.get();
+		if (queue.fLevel == 0) {
+			throw new IllegalStateException("end() called without begin()");
+		}
+		try {
+			if ((queue.fLevel == 1) && !queue.fFlushing) {
+				queue.flush();
+			}
+		}
+		finally {
+			queue.fLevel--;
+		}
+	}
+
+	/**
+	 * Records a dependent figure to be updated when the batch ends.
+	 *
+	 * @return true if the update was deferred, false if no batch is
+	 *		running on the current thread and the caller has to update
+	 *		the figure immediately
+	 */
+	public static boolean defer(DependentFigure figure) {
+		DependencyUpdateQueue queue = fQueues.get();
+		if (queue.fLevel == 0) {
+			return false;
+		}
+		// a figure which is still to be updated in the current round
+		// will see the change anyway
+		if (!queue.fScheduled.contains(figure)) {
+			queue.fPending.add(figure);
+		}
+		return true;
+	}
+
+	private void flush() {
+		fFlushing = true;
+		try {
+			Map<DependentFigure, Integer> updates = new IdentityHashMap<DependentFigure, Integer>();
+			// updating a figure may record figures depending on it again
+			// which are then updated in the next round
+			while (!fPending.isEmpty()) {
+				List<DependentFigure> order = sort(fPending);
+				fPending.clear();
+				fScheduled.addAll(order);
+				for (int i = 0; i < order.size(); i++) {
+					DependentFigure figure = order.get(i);
+					fScheduled.remove(figure);
+					Integer count = updates.get(figure);
+					int n = (count == null) ? 0 : count.intValue();
+					if (n < MAX_UPDATES) {
+						updates.put(figure, Integer.valueOf(n + 1));
+						figure.updateDependent();
+					}
+				}
+			}
+		}
+		finally {
+			fPending.clear();
+			fScheduled.clear();
+			fFlushing = false;
+		}
+	}
+
+	/**
+	 * Sorts the figures so that each figure comes after the figures it
+	 * (directly or through other dependent figures) depends on.
+	 */
+	private static List<DependentFigure> sort(Set<DependentFigure> figures) {
+		List<DependentFigure> order = new ArrayList<DependentFigure>(figures.size());
+		Set<Figure> visited = Collections.newSetFromMap(new IdentityHashMap<Figure, Boolean>());
+		for (DependentFigure figure : figures) {
+			visit(figure, figures, visited, order);
+		}
+		return order;
+	}
+
+	private static void visit(Figure figure, Set<DependentFigure> figures, Set<Figure> visited, List<DependentFigure> order) {
+		if (!visited.add(figure)) {
+			return;
+		}
+		if (figure instanceof DependentFigure) {
+			List<Figure> dependencies = ((DependentFigure)figure).getDependencies();
+			for (int i = 0; i < dependencies.size(); i++) {
+				visit(dependencies.get(i), figures, visited, order);
+			}
+			if (figures.contains(figure)) {
+				order.add((DependentFigure)figure);
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+/*
+ * @(#)DependentFigure.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.util.List;
+import org.jhotdraw.framework.*;
+
+/**
+ * The interface of a figure whose layout depends on other figures,
+ * e.g. a connection which depends on the figures it connects or a text
+ * which is attached to a figure. While figures are changed in a batch
+ * the updates of dependent figures are deferred and done once in the
+ * order of their dependencies when the batch ends.
+ *
+ * @see DependencyUpdateQueue
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public interface DependentFigure extends Figure {
+
+	/**
+	 * Gets the figures this figure depends on.
+	 */
+	public List<Figure> getDependencies();
+
+	/**
+	 * Updates the figure after a figure it depends on has changed.
+	 */
+	public void updateDependent();
+}
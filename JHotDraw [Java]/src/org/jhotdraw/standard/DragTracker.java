@@ -16,10 +16,25 @@ import org.jhotdraw.util.UndoableAdapter;
 import org.jhotdraw.util.Undoable;
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 
 /**
  * DragTracker implements the dragging of the clicked
  * figure.
+ * <p>
+ * Selections with at least getSpriteThreshold() figures are not moved
+ * while the mouse is dragged. Instead, the selected figures and the
+ * connections between them are drawn into an image (a sprite) when the
+ * mouse is pressed and only the sprite follows the mouse. The figures are
+ * moved once, in a single batch, when the mouse is released. Connections
+ * to figures outside the selection are updated by that move as well.
+ * Smaller selections are moved live. Sprites are only supported for
+ * StandardDrawingViews.
  *
  * @see SelectionTool
  *
@@ -31,6 +46,19 @@ public class DragTracker extends AbstractTool {
 	private int     fLastX, fLastY;      // previous mouse position
 	private boolean fMoved = false;
 
+	/**
+	 * The default number of selected figures from which on a sprite is dragged.
+	 */
+	public static final int DEFAULT_SPRITE_THRESHOLD = 500;
+
+	/**
+	 * The maximum number of pixels of a sprite. Larger selections are moved live.
+	 */
+	private static final int MAX_SPRITE_PIXELS = 4096 * 4096;
+
+	private int     fSpriteThreshold = DEFAULT_SPRITE_THRESHOLD;
+	private Sprite  fSprite;
+
 	public DragTracker(DrawingEditor newDrawingEditor, Figure anchor) {
 		super(newDrawingEditor);
 		setAnchorFigure(anchor);
@@ -52,22 +80,161 @@ public class DragTracker extends AbstractTool {
 		setUndoActivity(createUndoActivity());
 		getUndoActivity().setAffectedFigures(getActiveView().selection());
 //		getUndoActivity().setAffectedFigures(view().selectionElements());
+		if (getActiveView().selectionCount() >= getSpriteThreshold()) {
+			fSprite = createSprite();
+			if (fSprite != null) {
+				((StandardDrawingView)getActiveView()).addForeground(fSprite);
+			}
+		}
 	}
 
 	public void mouseDrag(MouseEvent e, int x, int y) {
 		super.mouseDrag(e, x, y);
 		setHasMoved((Math.abs(x - getAnchorX()) > 4) || (Math.abs(y - getAnchorY()) > 4));
 
-		if (hasMoved()) {
-			FigureEnumeration figures = getUndoActivity().getAffectedFigures();
-			while (figures.hasNextFigure()) {
-				figures.nextFigure().moveBy(x - getLastMouseX(), y - getLastMouseY());
+		if (isDraggingSprite()) {
+			if (hasMoved()) {
+				moveSprite(x - getAnchorX(), y - getAnchorY());
+			}
+			else {
+				moveSprite(0, 0);
 			}
 		}
+		else if (hasMoved()) {
+			moveAffectedFigures(x - getLastMouseX(), y - getLastMouseY());
+		}
 		setLastMouseX(x);
 		setLastMouseY(y);
 	}
 
+	public void mouseUp(MouseEvent e, int x, int y) {
+		if (isDraggingSprite()) {
+			moveSprite(0, 0);
+			((StandardDrawingView)getActiveView()).removeForeground(fSprite);
+			fSprite = null;
+			if (hasMoved()) {
+				moveAffectedFigures(getLastMouseX() - getAnchorX(), getLastMouseY() - getAnchorY());
+			}
+		}
+		super.mouseUp(e, x, y);
+	}
+
+	/**
+	 * Moves the affected figures in a single batch.
+	 */
+	protected void moveAffectedFigures(int dx, int dy) {
+		Drawing drawing = getActiveView().drawing();
+		drawing.beginUpdate();
+		try {
+			FigureEnumeration figures = getUndoActivity().getAffectedFigures();
+			while (figures.hasNextFigure()) {
+				figures.nextFigure().moveBy(dx, dy);
+			}
+		}
+		finally {
+			drawing.endUpdate();
+		}
+	}
+
+	/**
+	 * Sets the number of selected figures from which on a sprite is
+	 * dragged instead of moving the figures live. Integer.MAX_VALUE
+	 * always moves the figures live.
+	 */
+	public void setSpriteThreshold(int newSpriteThreshold) {
+		fSpriteThreshold = newSpriteThreshold;
+	}
+
+	public int getSpriteThreshold() {
+		return fSpriteThreshold;
+	}
+
+	/**
+	 * Checks whether a sprite is dragged instead of the figures.
+	 */
+	public boolean isDraggingSprite() {
+		return fSprite != null;
+	}
+
+	/**
+	 * Draws the affected figures and the connections between them into
+	 * a sprite.
+	 *
+	 * @return the sprite or null if the figures have to be moved live
+	 */
+	protected Sprite createSprite() {
+		if (!(getActiveView() instanceof StandardDrawingView)) {
+			return null;
+		}
+		Drawing drawing = getActiveView().drawing();
+		Set<Figure> figures = Collections.newSetFromMap(new IdentityHashMap<Figure, Boolean>());
+		FigureEnumeration fe = getUndoActivity().getAffectedFigures();
+		while (fe.hasNextFigure()) {
+			figures.add(fe.nextFigure());
+		}
+		// connections to figures outside of the selection would
+		// be stretched, so they are not part of the sprite
+		List<Figure> connections = new ArrayList<Figure>();
+		for (Figure figure : figures) {
+			FigureEnumeration dependents = figure.getDependendFigures();
+			while (dependents.hasNextFigure()) {
+				Figure dependent = dependents.nextFigure();
+				if ((dependent instanceof ConnectionFigure) && !figures.contains(dependent)) {
+					ConnectionFigure connection = (ConnectionFigure)dependent;
+					if (figures.contains(connection.startFigure()) && figures.contains(connection.endFigure())) {
+						connections.add(connection);
+					}
+				}
+			}
+		}
+		figures.addAll(connections);
+
+		// draw the figures in the order of the drawing
+		List<Figure> ordered = new ArrayList<Figure>(figures.size());
+		Rectangle bounds = null;
+		fe = drawing.figures();
+		while (fe.hasNextFigure()) {
+			Figure figure = fe.nextFigure();
+			if (figures.contains(figure)) {
+				ordered.add(figure);
+				if (bounds == null) {
+					bounds = figure.displayBox();
+				}
+				else {
+					bounds.add(figure.displayBox());
+				}
+			}
+		}
+		if (bounds == null) {
+			return null;
+		}
+		// leave room for lines and decorations drawn around the display boxes
+		bounds.grow(Handle.HANDLESIZE, Handle.HANDLESIZE);
+		if ((long)bounds.width * bounds.height > MAX_SPRITE_PIXELS) {
+			return null;
+		}
+		BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB);
+		Graphics g = image.createGraphics();
+		try {
+			g.translate(-bounds.x, -bounds.y);
+			drawing.draw(g, new FigureEnumerator(ordered));
+		}
+		finally {
+			g.dispose();
+		}
+		return new Sprite(image, bounds);
+	}
+
+	/**
+	 * Moves the sprite to the given offset from its original position.
+	 */
+	protected void moveSprite(int dx, int dy) {
+		Rectangle damage = fSprite.getBounds();
+		fSprite.setOffset(dx, dy);
+		damage.add(fSprite.getBounds());
+		getActiveView().drawingInvalidated(new DrawingChangeEvent(getActiveView().drawing(), damage));
+	}
+
 	protected void setAnchorFigure(Figure newAnchorFigure) {
 		fAnchorFigure = newAnchorFigure;
 	}
@@ -112,6 +279,11 @@ public class DragTracker extends AbstractTool {
 	}
 
 	public void deactivate() {
+		if (isDraggingSprite()) {
+			// the mouse was not released
+			((StandardDrawingView)getActiveView()).removeForeground(fSprite);
+			fSprite = null;
+		}
 		if (hasMoved()) {
 			((DragTracker.UndoActivity)getUndoActivity()).setBackupPoint(new Point(getLastMouseX(), getLastMouseY()));
 		}
@@ -127,6 +299,40 @@ public class DragTracker extends AbstractTool {
 		return new DragTracker.UndoActivity(getActiveView(), new Point(getLastMouseX(), getLastMouseY()));
 	}
 
+	/**
+	 * Draws the image of the dragged figures as a foreground of the view.
+	 */
+	protected static class Sprite implements Painter {
+		private static final long serialVersionUID = 4137097251585014393L;
+
+		private transient Image fImage;
+		private Rectangle fBounds;
+		private int fDx, fDy;
+
+		public Sprite(Image image, Rectangle bounds) {
+			fImage = image;
+			fBounds = new Rectangle(bounds);
+		}
+
+		public void setOffset(int dx, int dy) {
+			fDx = dx;
+			fDy = dy;
+		}
+
+		/**
+		 * Gets the area covered by the sprite at its current offset.
+		 */
+		public Rectangle getBounds() {
+			return new Rectangle(fBounds.x + fDx, fBounds.y + fDy, fBounds.width, fBounds.height);
+		}
+
+		public void draw(Graphics g, DrawingView view) {
+			if (fImage != null) {
+				g.drawImage(fImage, fBounds.x + fDx, fBounds.y + fDy, view);
+			}
+		}
+	}
+
 	public static class UndoActivity extends UndoableAdapter {
 		private Point myOriginalPoint;
 		private Point myBackupPoint;
@@ -19,6 +19,10 @@ import java.util.*;
  * Manages a list of FigureChangeListeners to be notified of
  * specific FigureChangeEvents.
  *
+ * @deprecated AbstractFigure keeps its listeners in a
+ *		FigureChangeListenerList which dispatches events without
+ *		walking a chain of multicasters
+ *
  * @version <$CURRENT_VERSION$>
  */
 public class FigureChangeEventMulticaster extends
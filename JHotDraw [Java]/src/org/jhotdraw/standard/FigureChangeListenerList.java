@@ -0,0 +1,166 @@
+/*
+ * @(#)FigureChangeListenerList.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import org.jhotdraw.framework.*;
+
+/**
+ * An immutable list of FigureChangeListeners which forwards
+ * FigureChangeEvents to all of them. Like FigureChangeEventMulticaster
+ * it is used as the single listener of a figure, but the listeners are
+ * kept in a flat array instead of a binary tree of multicasters, so
+ * dispatching an event is a simple loop even for figures with many
+ * listeners (e.g. figures with many connections).
+ * <p>
+ * The static add() and remove() methods return a new listener that
+ * replaces the old one (copy-on-write). A list is never changed once
+ * it is visible to others, so events can be dispatched without locking
+ * while listeners are added or removed. Adding a listener is amortized
+ * O(1) because consecutive lists share a backing array with spare
+ * capacity: a new list only sees one more element of the array.
+ * Calls of add() and remove() for the same listener chain have to be
+ * synchronized by the caller and have to pass the most recent result.
+ *
+ * @see AbstractFigure#addFigureChangeListener
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public final class FigureChangeListenerList implements FigureChangeListener {
+
+	private final FigureChangeListener[] fListeners;
+	private final int fSize;
+
+	private FigureChangeListenerList(FigureChangeListener[] listeners, int size) {
+		fListeners = listeners;
+		fSize = size;
+	}
+
+	/**
+	 * Adds a listener to a listener chain.
+	 *
+	 * @param listener the current listener, a FigureChangeListenerList or null
+	 * @param newListener the listener to be added
+	 * @return the listener replacing the current listener
+	 */
+	public static FigureChangeListener add(FigureChangeListener listener, FigureChangeListener newListener) {
+		if (newListener == null) {
+			return listener;
+		}
+		if (listener == null) {
+			return newListener;
+		}
+		if (listener instanceof FigureChangeListenerList) {
+			return ((FigureChangeListenerList)listener).add(newListener);
+		}
+		FigureChangeListener[] listeners = new FigureChangeListener[4];
+		listeners[0] = listener;
+		listeners[1] = newListener;
+		return new FigureChangeListenerList(listeners, 2);
+	}
+
+	/**
+	 * Removes a listener from a listener chain.
+	 *
+	 * @param listener the current listener, a FigureChangeListenerList or null
+	 * @param oldListener the listener to be removed
+	 * @return the listener replacing the current listener
+	 */
+	public static FigureChangeListener remove(FigureChangeListener listener, FigureChangeListener oldListener) {
+		if (listener == oldListener) {
+			return null;
+		}
+		if (listener instanceof FigureChangeListenerList) {
+			return ((FigureChangeListenerList)listener).remove(oldListener);
+		}
+		return listener;
+	}
+
+	/**
+	 * Gets the number of listeners in this list.
+	 */
+	public int size() {
+		return fSize;
+	}
+
+	/**
+	 * Gets the listener at the given index.
+	 */
+	public FigureChangeListener get(int index) {
+		if ((index < 0) || (index >= fSize)) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + fSize);
+		}
+		return fListeners[index];
+	}
+
+	private FigureChangeListenerList add(FigureChangeListener newListener) {
+		FigureChangeListener[] listeners = fListeners;
+		// slots beyond fSize are invisible to this list and the lists
+		// before it, so they can be used by its successor
+		if ((fSize == listeners.length) || (listeners[fSize] != null)) {
+			FigureChangeListener[] grown = new FigureChangeListener[fSize * 2];
+			System.arraycopy(listeners, 0, grown, 0, fSize);
+			listeners = grown;
+		}
+		listeners[fSize] = newListener;
+		return new FigureChangeListenerList(listeners, fSize + 1);
+	}
+
+	private FigureChangeListener remove(FigureChangeListener oldListener) {
+		int index = -1;
+		for (int i = fSize - 1; i >= 0; i--) {
+			if (fListeners[i] == oldListener) {
+				index = i;
+				break;
+			}
+		}
+		if (index == -1) {
+			return this;
+		}
+		if (fSize == 2) {
+			return fListeners[1 - index];
+		}
+		FigureChangeListener[] listeners = new FigureChangeListener[Math.max(4, fSize)];
+		System.arraycopy(fListeners, 0, listeners, 0, index);
+		System.arraycopy(fListeners, index + 1, listeners, index, fSize - index - 1);
+		return new FigureChangeListenerList(listeners, fSize - 1);
+	}
+
+	public void figureInvalidated(FigureChangeEvent e) {
+		for (int i = 0; i < fSize; i++) {
+			fListeners[i].figureInvalidated(e);
+		}
+	}
+
+	public void figureChanged(FigureChangeEvent e) {
+		for (int i = 0; i < fSize; i++) {
+			fListeners[i].figureChanged(e);
+		}
+	}
+
+	public void figureRemoved(FigureChangeEvent e) {
+		for (int i = 0; i < fSize; i++) {
+			fListeners[i].figureRemoved(e);
+		}
+	}
+
+	public void figureRequestRemove(FigureChangeEvent e) {
+		for (int i = 0; i < fSize; i++) {
+			fListeners[i].figureRequestRemove(e);
+		}
+	}
+
+	public void figureRequestUpdate(FigureChangeEvent e) {
+		for (int i = 0; i < fSize; i++) {
+			fListeners[i].figureRequestUpdate(e);
+		}
+	}
+}
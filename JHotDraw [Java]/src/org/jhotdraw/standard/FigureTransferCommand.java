@@ -36,8 +36,14 @@ public abstract class FigureTransferCommand extends AbstractCommand {
 	*/
 	protected void deleteFigures(FigureEnumeration fe) {
 	   DeleteFromDrawingVisitor deleteVisitor = new DeleteFromDrawingVisitor(view().drawing());
-		while (fe.hasNextFigure()) {
-			fe.nextFigure().visit(deleteVisitor);
+		view().drawing().beginUpdate();
+		try {
+			while (fe.hasNextFigure()) {
+				fe.nextFigure().visit(deleteVisitor);
+			}
+		}
+		finally {
+			view().drawing().endUpdate();
 		}
 
 		view().clearSelection();
@@ -0,0 +1,300 @@
+/*
+ * @(#)HandleIndex.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jhotdraw.framework.*;
+
+/**
+ * Keeps the handles of the selected figures of a drawing view. The
+ * handles of each figure are created once and reused until the figure
+ * changes. They are kept in a grid of square cells so that finding
+ * the handle at a point or the handles within a rectangle only looks
+ * at the handles nearby instead of all handles of the selection.
+ * <p>
+ * The index listens to the changes of the figures it contains. Changed
+ * figures are only marked and updated the next time the index is queried.
+ * Overlapping handles are resolved in the order their figures were added,
+ * like a linear search through all handles would.
+ *
+ * @see StandardDrawingView#selectionHandles
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class HandleIndex implements FigureChangeListener {
+
+	/**
+	 * The default width and height of a grid cell.
+	 */
+	public static final int DEFAULT_CELL_SIZE = 64;
+
+	private int fCellSize;
+	private Map<Figure, Entry> fEntries;
+	private Set<Entry> fChangedEntries;
+	private Map<Long, List<Entry>> fCells;
+	private List<Handle> fHandles;
+	private long fNextOrder;
+
+	public HandleIndex() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	public HandleIndex(int cellSize) {
+		if (cellSize < 1) {
+			throw new IllegalArgumentException("cellSize must be at least 1: " + cellSize);
+		}
+		fCellSize = cellSize;
+		fEntries = new LinkedHashMap<Figure, Entry>();
+		fChangedEntries = Collections.newSetFromMap(new IdentityHashMap<Entry, Boolean>());
+		fCells = new HashMap<Long, List<Entry>>();
+	}
+
+	/**
+	 * Adds the handles of a figure to the index.
+	 */
+	public void add(Figure figure) {
+		if (fEntries.containsKey(figure)) {
+			return;
+		}
+		Entry entry = new Entry(figure, fNextOrder++);
+		fEntries.put(figure, entry);
+		fChangedEntries.add(entry);
+		fHandles = null;
+		figure.addFigureChangeListener(this);
+	}
+
+	/**
+	 * Removes the handles of a figure from the index.
+	 */
+	public void remove(Figure figure) {
+		Entry entry = fEntries.remove(figure);
+		if (entry != null) {
+			figure.removeFigureChangeListener(this);
+			removeFromCells(entry);
+			fChangedEntries.remove(entry);
+			fHandles = null;
+		}
+	}
+
+	/**
+	 * Removes all figures from the index.
+	 */
+	public void clear() {
+		for (Iterator<Figure> iter = fEntries.keySet().iterator(); iter.hasNext(); ) {
+			iter.next().removeFigureChangeListener(this);
+		}
+		fEntries.clear();
+		fChangedEntries.clear();
+		fCells.clear();
+		fHandles = null;
+	}
+
+	/**
+	 * Gets the number of figures in the index.
+	 */
+	public int size() {
+		return fEntries.size();
+	}
+
+	/**
+	 * Gets all handles in the order their figures were added.
+	 * The returned list must not be changed.
+	 */
+	public List<Handle> getHandles() {
+		validate();
+		if (fHandles == null) {
+			List<Handle> handles = new ArrayList<Handle>();
+			for (Iterator<Entry> iter = fEntries.values().iterator(); iter.hasNext(); ) {
+				handles.addAll(iter.next().fHandles);
+			}
+			fHandles = Collections.unmodifiableList(handles);
+		}
+		return fHandles;
+	}
+
+	/**
+	 * Gets the handles whose display box intersects the given rectangle.
+	 */
+	public List<Handle> getHandles(Rectangle r) {
+		validate();
+		List<Handle> handles = new ArrayList<Handle>();
+		long cellCount = (long)(cell(r.x + r.width) - cell(r.x) + 1) * (cell(r.y + r.height) - cell(r.y) + 1);
+		if (cellCount > fCells.size()) {
+			// the rectangle covers more cells than are occupied
+			List<Handle> all = getHandles();
+			for (int i = 0; i < all.size(); i++) {
+				if (r.intersects(all.get(i).displayBox())) {
+					handles.add(all.get(i));
+				}
+			}
+			return handles;
+		}
+		// the handles of a figure can be part of several cells
+		Set<Entry> found = Collections.newSetFromMap(new IdentityHashMap<Entry, Boolean>());
+		for (int row = cell(r.y); row <= cell(r.y + r.height); row++) {
+			for (int column = cell(r.x); column <= cell(r.x + r.width); column++) {
+				List<Entry> cell = fCells.get(key(column, row));
+				if (cell == null) {
+					continue;
+				}
+				for (int i = 0; i < cell.size(); i++) {
+					Entry entry = cell.get(i);
+					if (found.add(entry)) {
+						for (int j = 0; j < entry.fHandles.size(); j++) {
+							Handle handle = entry.fHandles.get(j);
+							if (r.intersects(handle.displayBox())) {
+								handles.add(handle);
+							}
+						}
+					}
+				}
+			}
+		}
+		return handles;
+	}
+
+	/**
+	 * Finds the handle containing the given point. If several handles
+	 * contain the point the first one of {@link #getHandles()} is returned.
+	 *
+	 * @return the handle or null if there is no handle at the point
+	 */
+	public Handle findHandle(int x, int y) {
+		validate();
+		List<Entry> cell = fCells.get(key(cell(x), cell(y)));
+		if (cell != null) {
+			// the entries of a cell are kept in the order they were added
+			for (int i = 0; i < cell.size(); i++) {
+				List<Handle> handles = cell.get(i).fHandles;
+				for (int j = 0; j < handles.size(); j++) {
+					if (handles.get(j).containsPoint(x, y)) {
+						return handles.get(j);
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	public int getCellSize() {
+		return fCellSize;
+	}
+
+	/**
+	 * Recreates the handles of the changed figures and moves
+	 * them to their current cells.
+	 */
+	private void validate() {
+		if (fChangedEntries.isEmpty()) {
+			return;
+		}
+		for (Iterator<Entry> iter = fChangedEntries.iterator(); iter.hasNext(); ) {
+			Entry entry = iter.next();
+			removeFromCells(entry);
+			entry.fHandles = new ArrayList<Handle>();
+			HandleEnumeration he = entry.fFigure.handles();
+			while (he.hasNextHandle()) {
+				Handle handle = he.nextHandle();
+				entry.fHandles.add(handle);
+				Rectangle r = handle.displayBox();
+				for (int row = cell(r.y); row <= cell(r.y + r.height); row++) {
+					for (int column = cell(r.x); column <= cell(r.x + r.width); column++) {
+						Long key = key(column, row);
+						List<Entry> cell = fCells.get(key);
+						if (cell == null) {
+							cell = new ArrayList<Entry>(4);
+							fCells.put(key, cell);
+						}
+						else if (cell.contains(entry)) {
+							continue;
+						}
+						int index = cell.size();
+						while (index > 0 && cell.get(index - 1).fOrder > entry.fOrder) {
+							index--;
+						}
+						cell.add(index, entry);
+						entry.fCells.add(key);
+					}
+				}
+			}
+		}
+		fChangedEntries.clear();
+		fHandles = null;
+	}
+
+	private void removeFromCells(Entry entry) {
+		for (int i = 0; i < entry.fCells.size(); i++) {
+			Long key = entry.fCells.get(i);
+			List<Entry> cell = fCells.get(key);
+			if (cell != null) {
+				cell.remove(entry);
+				if (cell.isEmpty()) {
+					fCells.remove(key);
+				}
+			}
+		}
+		entry.fCells.clear();
+	}
+
+	private int cell(int coordinate) {
+		// round towards negative infinity
+		return (coordinate >= 0) ? coordinate / fCellSize : -((-coordinate - 1) / fCellSize) - 1;
+	}
+
+	private static Long key(int column, int row) {
+		return Long.valueOf(((long)column << 32) | (row & 0xFFFFFFFFL));
+	}
+
+	/**
+	 * Marks the handles of a changed figure to be recreated.
+	 */
+	public void figureChanged(FigureChangeEvent e) {
+		Entry entry = fEntries.get(e.getFigure());
+		if (entry != null) {
+			fChangedEntries.add(entry);
+		}
+	}
+
+	public void figureInvalidated(FigureChangeEvent e) {
+	}
+
+	public void figureRemoved(FigureChangeEvent e) {
+	}
+
+	public void figureRequestRemove(FigureChangeEvent e) {
+	}
+
+	public void figureRequestUpdate(FigureChangeEvent e) {
+	}
+
+	private static final class Entry {
+		final Figure fFigure;
+		final long fOrder;
+		List<Handle> fHandles = Collections.emptyList();
+		final List<Long> fCells = new ArrayList<Long>();
+
+		Entry(Figure figure, long order) {
+			fFigure = figure;
+			fOrder = order;
+		}
+	}
+}
@@ -0,0 +1,453 @@
+/*
+ * @(#)OrderedFigureList.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.jhotdraw.framework.Figure;
+
+/**
+ * A list of figures in drawing (z-) order. The figures are kept in an
+ * order-statistic tree (an AVL tree whose nodes know the size of their
+ * subtree) and an identity map from each figure to its tree node. Besides
+ * positional access this makes contains(), indexOf() and remove(Object)
+ * efficient: contains() runs in constant time, all other operations
+ * including insertion and removal at any position in O(log n).
+ * <p>
+ * A figure can only be contained once and figures are compared by
+ * identity. Adding a figure that is already part of the list throws an
+ * IllegalArgumentException. Iterators are fail-fast.
+ * <p>
+ * snapshot() returns an immutable copy of the list that is shared by all
+ * callers until the list is changed the next time. Readers that only need
+ * a consistent view (e.g. for painting) can iterate over it without copying
+ * the list each time while the list remains free to change meanwhile.
+ *
+ * @see CompositeFigure
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class OrderedFigureList extends AbstractList<Figure> implements Serializable {
+
+	private transient Node fRoot;
+	private transient Map<Figure, Node> fNodes;
+	private transient List<Figure> fSnapshot;
+
+	/*
+	 * Serialization support.
+	 */
+	private static final long serialVersionUID = -4127963374580932651L;
+
+	public OrderedFigureList() {
+		fNodes = new IdentityHashMap<Figure, Node>();
+	}
+
+	public OrderedFigureList(Collection<Figure> figures) {
+		this();
+		addAll(figures);
+	}
+
+	public int size() {
+		return size(fRoot);
+	}
+
+	public Figure get(int index) {
+		return nodeAt(index).fFigure;
+	}
+
+	public Figure set(int index, Figure figure) {
+		Node node = nodeAt(index);
+		Figure oldFigure = node.fFigure;
+		if (figure != oldFigure) {
+			checkNotContained(figure);
+			fNodes.remove(oldFigure);
+			fNodes.put(figure, node);
+			node.fFigure = figure;
+			fSnapshot = null;
+		}
+		return oldFigure;
+	}
+
+	public void add(int index, Figure figure) {
+		if ((index < 0) || (index > size())) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		checkNotContained(figure);
+		Node node = new Node(figure);
+		fNodes.put(figure, node);
+		insert(node, index);
+		modCount++;
+		fSnapshot = null;
+	}
+
+	public Figure remove(int index) {
+		Node node = nodeAt(index);
+		Figure figure = node.fFigure;
+		delete(node);
+		return figure;
+	}
+
+	public boolean remove(Object figure) {
+		Node node = fNodes.get(figure);
+		if (node == null) {
+			return false;
+		}
+		delete(node);
+		return true;
+	}
+
+	public boolean contains(Object figure) {
+		return fNodes.containsKey(figure);
+	}
+
+	public int indexOf(Object figure) {
+		Node node = fNodes.get(figure);
+		if (node == null) {
+			return -1;
+		}
+		return rank(node);
+	}
+
+	public int lastIndexOf(Object figure) {
+		return indexOf(figure);
+	}
+
+	public void clear() {
+		fRoot = null;
+		fNodes.clear();
+		modCount++;
+		fSnapshot = null;
+	}
+
+	/**
+	 * Returns an iterator in drawing order (back to front).
+	 */
+	public Iterator<Figure> iterator() {
+		return new TreeIterator(true);
+	}
+
+	/**
+	 * Returns an iterator in reverse drawing order (front to back).
+	 */
+	public Iterator<Figure> reverseIterator() {
+		return new TreeIterator(false);
+	}
+
+	/**
+	 * Returns an unmodifiable copy of the list in drawing order. The copy is
+	 * created lazily and reused until this list is changed, so repeated calls
+	 * without intermediate changes do not copy the figures again.
+	 */
+	public List<Figure> snapshot() {
+		if (fSnapshot == null) {
+			fSnapshot = Collections.unmodifiableList(Arrays.asList(toArray(new Figure[size()])));
+		}
+		return fSnapshot;
+	}
+
+	private void checkNotContained(Figure figure) {
+		if (fNodes.containsKey(figure)) {
+			throw new IllegalArgumentException("Figure is already contained: " + figure);
+		}
+	}
+
+	private Node nodeAt(int index) {
+		if ((index < 0) || (index >= size())) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		}
+		Node node = fRoot;
+		while (true) {
+			int leftSize = size(node.fLeft);
+			if (index < leftSize) {
+				node = node.fLeft;
+			}
+			else if (index == leftSize) {
+				return node;
+			}
+			else {
+				index -= leftSize + 1;
+				node = node.fRight;
+			}
+		}
+	}
+
+	private int rank(Node node) {
+		int rank = size(node.fLeft);
+		while (node.fParent != null) {
+			if (node == node.fParent.fRight) {
+				rank += size(node.fParent.fLeft) + 1;
+			}
+			node = node.fParent;
+		}
+		return rank;
+	}
+
+	private void insert(Node newNode, int index) {
+		if (fRoot == null) {
+			fRoot = newNode;
+			return;
+		}
+		Node node = fRoot;
+		while (true) {
+			int leftSize = size(node.fLeft);
+			if (index <= leftSize) {
+				if (node.fLeft == null) {
+					node.fLeft = newNode;
+					break;
+				}
+				node = node.fLeft;
+			}
+			else {
+				index -= leftSize + 1;
+				if (node.fRight == null) {
+					node.fRight = newNode;
+					break;
+				}
+				node = node.fRight;
+			}
+		}
+		newNode.fParent = node;
+		rebalance(node);
+	}
+
+	private void delete(Node node) {
+		if ((node.fLeft != null) && (node.fRight != null)) {
+			// move the successor's figure into this node and delete the successor instead
+			Node successor = node.fRight;
+			while (successor.fLeft != null) {
+				successor = successor.fLeft;
+			}
+			Figure figure = node.fFigure;
+			node.fFigure = successor.fFigure;
+			fNodes.put(node.fFigure, node);
+			successor.fFigure = figure;
+			node = successor;
+		}
+		fNodes.remove(node.fFigure);
+
+		Node child = (node.fLeft != null) ? node.fLeft : node.fRight;
+		Node parent = node.fParent;
+		if (child != null) {
+			child.fParent = parent;
+		}
+		replaceChild(parent, node, child);
+		node.fLeft = null;
+		node.fRight = null;
+		node.fParent = null;
+		rebalance(parent);
+		modCount++;
+		fSnapshot = null;
+	}
+
+	private void replaceChild(Node parent, Node oldChild, Node newChild) {
+		if (parent == null) {
+			fRoot = newChild;
+		}
+		else if (parent.fLeft == oldChild) {
+			parent.fLeft = newChild;
+		}
+		else {
+			parent.fRight = newChild;
+		}
+	}
+
+	/**
+	 * Restores the AVL property and the subtree sizes on the path
+	 * from the given node up to the root.
+	 */
+	private void rebalance(Node node) {
+		while (node != null) {
+			node.update();
+			int balance = height(node.fLeft) - height(node.fRight);
+			if (balance > 1) {
+				if (height(node.fLeft.fLeft) < height(node.fLeft.fRight)) {
+					rotateLeft(node.fLeft);
+				}
+				node = rotateRight(node);
+			}
+			else if (balance < -1) {
+				if (height(node.fRight.fRight) < height(node.fRight.fLeft)) {
+					rotateRight(node.fRight);
+				}
+				node = rotateLeft(node);
+			}
+			node = node.fParent;
+		}
+	}
+
+	private Node rotateRight(Node node) {
+		Node pivot = node.fLeft;
+		node.fLeft = pivot.fRight;
+		if (pivot.fRight != null) {
+			pivot.fRight.fParent = node;
+		}
+		pivot.fParent = node.fParent;
+		replaceChild(node.fParent, node, pivot);
+		pivot.fRight = node;
+		node.fParent = pivot;
+		node.update();
+		pivot.update();
+		return pivot;
+	}
+
+	private Node rotateLeft(Node node) {
+		Node pivot = node.fRight;
+		node.fRight = pivot.fLeft;
+		if (pivot.fLeft != null) {
+			pivot.fLeft.fParent = node;
+		}
+		pivot.fParent = node.fParent;
+		replaceChild(node.fParent, node, pivot);
+		pivot.fLeft = node;
+		node.fParent = pivot;
+		node.update();
+		pivot.update();
+		return pivot;
+	}
+
+	private static int size(Node node) {
+		return (node == null) ? 0 : node.fSize;
+	}
+
+	private static int height(Node node) {
+		return (node == null) ? 0 : node.fHeight;
+	}
+
+	private static Node first(Node node) {
+		while ((node != null) && (node.fLeft != null)) {
+			node = node.fLeft;
+		}
+		return node;
+	}
+
+	private static Node last(Node node) {
+		while ((node != null) && (node.fRight != null)) {
+			node = node.fRight;
+		}
+		return node;
+	}
+
+	private static Node successor(Node node) {
+		if (node.fRight != null) {
+			return first(node.fRight);
+		}
+		while ((node.fParent != null) && (node == node.fParent.fRight)) {
+			node = node.fParent;
+		}
+		return node.fParent;
+	}
+
+	private static Node predecessor(Node node) {
+		if (node.fLeft != null) {
+			return last(node.fLeft);
+		}
+		while ((node.fParent != null) && (node == node.fParent.fLeft)) {
+			node = node.fParent;
+		}
+		return node.fParent;
+	}
+
+	private void writeObject(ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeInt(size());
+		for (Iterator<Figure> iter = iterator(); iter.hasNext(); ) {
+			s.writeObject(iter.next());
+		}
+	}
+
+	private void readObject(ObjectInputStream s) throws ClassNotFoundException, IOException {
+		s.defaultReadObject();
+		fNodes = new IdentityHashMap<Figure, Node>();
+		int size = s.readInt();
+		for (int i = 0; i < size; i++) {
+			add((Figure)s.readObject());
+		}
+	}
+
+	private static final class Node {
+		Figure fFigure;
+		Node fLeft;
+		Node fRight;
+		Node fParent;
+		int fSize = 1;
+		int fHeight = 1;
+
+		Node(Figure figure) {
+			fFigure = figure;
+		}
+
+		void update() {
+			fSize = size(fLeft) + size(fRight) + 1;
+			fHeight = Math.max(height(fLeft), height(fRight)) + 1;
+		}
+	}
+
+	private final class TreeIterator implements Iterator<Figure> {
+		private final boolean fForward;
+		private Node fNext;
+		private Node fLastReturned;
+		private int fExpectedModCount = modCount;
+
+		TreeIterator(boolean forward) {
+			fForward = forward;
+			fNext = forward ? first(fRoot) : last(fRoot);
+		}
+
+		public boolean hasNext() {
+			return fNext != null;
+		}
+
+		public Figure next() {
+			checkForComodification();
+			if (fNext == null) {
+				throw new NoSuchElementException();
+			}
+			fLastReturned = fNext;
+			fNext = fForward ? successor(fNext) : predecessor(fNext);
+			return fLastReturned.fFigure;
+		}
+
+		public void remove() {
+			if (fLastReturned == null) {
+				throw new IllegalStateException();
+			}
+			checkForComodification();
+			// deleting a node with two children moves its successor's figure into it
+			// which has to be returned next then
+			if (fForward && (fLastReturned.fLeft != null) && (fLastReturned.fRight != null)) {
+				fNext = fLastReturned;
+			}
+			delete(fLastReturned);
+			fLastReturned = null;
+			fExpectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != fExpectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+}
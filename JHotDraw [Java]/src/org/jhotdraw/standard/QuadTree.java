@@ -13,19 +13,24 @@
 package org.jhotdraw.standard;
 
 import java.awt.geom.Rectangle2D;
-import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import org.jhotdraw.framework.Figure;
 
 /**
+ * A SpatialIndex which divides a fixed area into quadrants down to a
+ * maximum depth. Figures outside of the area are kept in a flat list.
+ *
+ * @see RTree
+ *
  * @author WMG (INIT Copyright (C) 2000 All rights reserved)
  * @version <$CURRENT_VERSION$>
  */
-class QuadTree implements Serializable {
+class QuadTree implements SpatialIndex {
 
 	//_________________________________________________________VARIABLES
 
@@ -114,6 +119,14 @@ class QuadTree implements Serializable {
 		}
 	}
 
+	public void load(Map<Figure, Rectangle2D> figureBounds) {
+		clear();
+		for (Iterator<Map.Entry<Figure, Rectangle2D>> i = figureBounds.entrySet().iterator(); i.hasNext(); ) {
+			Map.Entry<Figure, Rectangle2D> anEntry = i.next();
+			add(anEntry.getKey(), anEntry.getValue());
+		}
+	}
+
 	public Object remove(Object anObject) {
 		Object returnObject = _theHashtable.remove(anObject);
 		if (returnObject != null) {
@@ -0,0 +1,542 @@
+/*
+ * @(#)RTree.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.awt.geom.Rectangle2D;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureEnumeration;
+
+/**
+ * A SpatialIndex based on an R-tree (Guttman, quadratic split). In contrast
+ * to the QuadTree the R-tree is not bound to a fixed area: it grows and
+ * rebalances itself with the figures it contains, so insertion, removal and
+ * area queries stay logarithmic no matter where the figures are placed.
+ * The tree can be bulk loaded by using the Sort-Tile-Recursive (STR)
+ * packing algorithm which results in nearly fully packed nodes.
+ *
+ * @see SpatialIndex
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class RTree implements SpatialIndex {
+
+	/**
+	 * The default maximum number of entries per node.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 16;
+
+	/*
+	 * Serialization support.
+	 */
+	private static final long serialVersionUID = 2514336127483574160L;
+
+	private static final Comparator<Box> X_ORDER = new CenterComparator(true);
+	private static final Comparator<Box> Y_ORDER = new CenterComparator(false);
+
+	private final int fMaxEntries;
+	private final int fMinEntries;
+
+	/**
+	 * The root node of the tree. It is always a leaf for an empty tree.
+	 */
+	private Node fRoot;
+
+	/**
+	 * Maps every figure to its leaf entry so that it can be
+	 * removed without searching the tree.
+	 */
+	private Map<Figure, Entry> fEntries;
+
+	public RTree() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	public RTree(int maxEntries) {
+		if (maxEntries < 4) {
+			throw new IllegalArgumentException("maxEntries must be at least 4: " + maxEntries);
+		}
+		fMaxEntries = maxEntries;
+		fMinEntries = Math.max(2, maxEntries * 2 / 5);
+		fEntries = new HashMap<Figure, Entry>();
+		fRoot = new Node(true, fMaxEntries);
+	}
+
+	/**
+	 * Adds a figure to the tree. If the figure has already been added
+	 * its previous bounding rectangle is replaced.
+	 */
+	public void add(Figure figure, Rectangle2D bounds) {
+		remove(figure);
+		Entry entry = new Entry(figure, bounds);
+		fEntries.put(figure, entry);
+		insert(entry);
+	}
+
+	/**
+	 * Bulk loads the tree with the Sort-Tile-Recursive algorithm. Any
+	 * previous contents of the tree are discarded.
+	 */
+	public void load(Map<Figure, Rectangle2D> figureBounds) {
+		clear();
+		List<Box> level = new ArrayList<Box>(figureBounds.size());
+		for (Iterator<Map.Entry<Figure, Rectangle2D>> iter = figureBounds.entrySet().iterator(); iter.hasNext(); ) {
+			Map.Entry<Figure, Rectangle2D> mapEntry = iter.next();
+			Entry entry = new Entry(mapEntry.getKey(), mapEntry.getValue());
+			fEntries.put(mapEntry.getKey(), entry);
+			level.add(entry);
+		}
+		if (level.isEmpty()) {
+			return;
+		}
+
+		boolean isLeafLevel = true;
+		do {
+			level = pack(level, isLeafLevel);
+			isLeafLevel = false;
+		} while (level.size() > fMaxEntries);
+
+		if (level.size() == 1) {
+			fRoot = (Node)level.get(0);
+		}
+		else {
+			fRoot = new Node(false, fMaxEntries);
+			for (int i = 0; i < level.size(); i++) {
+				fRoot.addChild(level.get(i));
+			}
+		}
+		fRoot.fParent = null;
+	}
+
+	public Object remove(Object figure) {
+		Entry entry = fEntries.remove(figure);
+		if (entry == null) {
+			return null;
+		}
+		Node leaf = entry.fLeaf;
+		leaf.removeChild(entry);
+		entry.fLeaf = null;
+		condenseTree(leaf);
+		return entry.fBounds;
+	}
+
+	public void clear() {
+		fEntries.clear();
+		fRoot = new Node(true, fMaxEntries);
+	}
+
+	public FigureEnumeration getAllWithin(Rectangle2D r) {
+		List<Figure> result = new ArrayList<Figure>();
+		if ((r.getWidth() > 0) && (r.getHeight() > 0) && (fRoot.fCount > 0)) {
+			search(fRoot, r.getX(), r.getY(), r.getX() + r.getWidth(), r.getY() + r.getHeight(), result);
+		}
+		return new FigureEnumerator(result);
+	}
+
+	/**
+	 * Gets the number of figures in the tree.
+	 */
+	public int size() {
+		return fEntries.size();
+	}
+
+	/**
+	 * Gets the height of the tree. An empty tree or a tree with
+	 * a single leaf has a height of 1.
+	 */
+	public int getHeight() {
+		int height = 1;
+		Node node = fRoot;
+		while (!node.fIsLeaf) {
+			node = (Node)node.fChildren[0];
+			height++;
+		}
+		return height;
+	}
+
+	private void search(Node node, double minX, double minY, double maxX, double maxY, List<Figure> result) {
+		for (int i = 0; i < node.fCount; i++) {
+			Box child = node.fChildren[i];
+			if (child.intersects(minX, minY, maxX, maxY)) {
+				if (node.fIsLeaf) {
+					result.add(((Entry)child).fFigure);
+				}
+				else {
+					search((Node)child, minX, minY, maxX, maxY, result);
+				}
+			}
+		}
+	}
+
+	private void insert(Entry entry) {
+		Node node = fRoot;
+		while (!node.fIsLeaf) {
+			node = chooseSubtree(node, entry);
+		}
+		node.addChild(entry);
+		adjustTree(node);
+	}
+
+	/**
+	 * Picks the child which needs the least enlargement to include
+	 * the given box. Ties are resolved by choosing the smaller child.
+	 */
+	private Node chooseSubtree(Node node, Box box) {
+		Node best = null;
+		double bestEnlargement = Double.POSITIVE_INFINITY;
+		double bestArea = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < node.fCount; i++) {
+			Node child = (Node)node.fChildren[i];
+			double area = child.area();
+			double enlargement = child.unionArea(box) - area;
+			if ((enlargement < bestEnlargement)
+					|| ((enlargement == bestEnlargement) && (area < bestArea))) {
+				best = child;
+				bestEnlargement = enlargement;
+				bestArea = area;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Walks up from the given node, splitting overflowing nodes
+	 * and updating the bounding boxes on the way to the root.
+	 */
+	private void adjustTree(Node node) {
+		while (node != null) {
+			if (node.fCount > fMaxEntries) {
+				Node sibling = split(node);
+				Node parent = node.fParent;
+				if (parent == null) {
+					parent = new Node(false, fMaxEntries);
+					parent.addChild(node);
+					fRoot = parent;
+				}
+				parent.addChild(sibling);
+			}
+			node.recalculateBounds();
+			node = node.fParent;
+		}
+	}
+
+	/**
+	 * Quadratic split: distributes the children of an overflowing node
+	 * between the node itself and a new sibling which is returned.
+	 */
+	private Node split(Node node) {
+		int count = node.fCount;
+		Box[] children = new Box[count];
+		System.arraycopy(node.fChildren, 0, children, 0, count);
+		node.removeAllChildren();
+		Node sibling = new Node(node.fIsLeaf, fMaxEntries);
+
+		int seed1 = 0;
+		int seed2 = 1;
+		double worstWaste = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < count - 1; i++) {
+			for (int j = i + 1; j < count; j++) {
+				double waste = children[i].unionArea(children[j]) - children[i].area() - children[j].area();
+				if (waste > worstWaste) {
+					worstWaste = waste;
+					seed1 = i;
+					seed2 = j;
+				}
+			}
+		}
+
+		boolean[] assigned = new boolean[count];
+		node.addChild(children[seed1]);
+		sibling.addChild(children[seed2]);
+		assigned[seed1] = true;
+		assigned[seed2] = true;
+		int remaining = count - 2;
+
+		while (remaining > 0) {
+			Node target = null;
+			if (node.fCount + remaining <= fMinEntries) {
+				target = node;
+			}
+			else if (sibling.fCount + remaining <= fMinEntries) {
+				target = sibling;
+			}
+			if (target != null) {
+				for (int i = 0; i < count; i++) {
+					if (!assigned[i]) {
+						target.addChild(children[i]);
+					}
+				}
+				break;
+			}
+
+			int next = -1;
+			double maxPreference = -1;
+			double nextGrowth1 = 0;
+			double nextGrowth2 = 0;
+			double area1 = node.area();
+			double area2 = sibling.area();
+			for (int i = 0; i < count; i++) {
+				if (!assigned[i]) {
+					double growth1 = node.unionArea(children[i]) - area1;
+					double growth2 = sibling.unionArea(children[i]) - area2;
+					double preference = Math.abs(growth1 - growth2);
+					if (preference > maxPreference) {
+						maxPreference = preference;
+						next = i;
+						nextGrowth1 = growth1;
+						nextGrowth2 = growth2;
+					}
+				}
+			}
+
+			if (nextGrowth1 < nextGrowth2) {
+				target = node;
+			}
+			else if (nextGrowth2 < nextGrowth1) {
+				target = sibling;
+			}
+			else if (area1 != area2) {
+				target = (area1 < area2) ? node : sibling;
+			}
+			else {
+				target = (node.fCount <= sibling.fCount) ? node : sibling;
+			}
+			target.addChild(children[next]);
+			assigned[next] = true;
+			remaining--;
+		}
+
+		sibling.recalculateBounds();
+		return sibling;
+	}
+
+	/**
+	 * Removes underfull nodes on the path from the given leaf to the root
+	 * and reinserts their entries. Shrinks the bounding boxes on the way.
+	 */
+	private void condenseTree(Node node) {
+		List<Entry> orphans = null;
+		while (node != fRoot) {
+			Node parent = node.fParent;
+			if (node.fCount < fMinEntries) {
+				parent.removeChild(node);
+				if (orphans == null) {
+					orphans = new ArrayList<Entry>();
+				}
+				node.collectEntries(orphans);
+			}
+			else {
+				node.recalculateBounds();
+			}
+			node = parent;
+		}
+		fRoot.recalculateBounds();
+
+		while (!fRoot.fIsLeaf && (fRoot.fCount == 1)) {
+			fRoot = (Node)fRoot.fChildren[0];
+			fRoot.fParent = null;
+		}
+		if (!fRoot.fIsLeaf && (fRoot.fCount == 0)) {
+			fRoot = new Node(true, fMaxEntries);
+		}
+
+		if (orphans != null) {
+			for (int i = 0; i < orphans.size(); i++) {
+				insert(orphans.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Groups the given boxes into nodes of one tree level (STR packing).
+	 */
+	private List<Box> pack(List<Box> boxes, boolean isLeafLevel) {
+		int size = boxes.size();
+		int nodeCount = (size + fMaxEntries - 1) / fMaxEntries;
+		int sliceCount = (int)Math.ceil(Math.sqrt(nodeCount));
+		int sliceSize = sliceCount * fMaxEntries;
+
+		Collections.sort(boxes, X_ORDER);
+		List<Box> nodes = new ArrayList<Box>(nodeCount);
+		for (int i = 0; i < size; i += sliceSize) {
+			List<Box> slice = boxes.subList(i, Math.min(i + sliceSize, size));
+			Collections.sort(slice, Y_ORDER);
+			for (int j = 0; j < slice.size(); j += fMaxEntries) {
+				Node node = new Node(isLeafLevel, fMaxEntries);
+				int end = Math.min(j + fMaxEntries, slice.size());
+				for (int k = j; k < end; k++) {
+					node.addChild(slice.get(k));
+				}
+				nodes.add(node);
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * An axis-parallel bounding box. An empty box has inverted bounds.
+	 */
+	private static class Box implements Serializable {
+		private static final long serialVersionUID = -6133812564720718571L;
+
+		double fMinX = Double.POSITIVE_INFINITY;
+		double fMinY = Double.POSITIVE_INFINITY;
+		double fMaxX = Double.NEGATIVE_INFINITY;
+		double fMaxY = Double.NEGATIVE_INFINITY;
+
+		void include(Box b) {
+			fMinX = Math.min(fMinX, b.fMinX);
+			fMinY = Math.min(fMinY, b.fMinY);
+			fMaxX = Math.max(fMaxX, b.fMaxX);
+			fMaxY = Math.max(fMaxY, b.fMaxY);
+		}
+
+		double area() {
+			if ((fMaxX < fMinX) || (fMaxY < fMinY)) {
+				return 0;
+			}
+			return (fMaxX - fMinX) * (fMaxY - fMinY);
+		}
+
+		double unionArea(Box b) {
+			double width = Math.max(fMaxX, b.fMaxX) - Math.min(fMinX, b.fMinX);
+			double height = Math.max(fMaxY, b.fMaxY) - Math.min(fMinY, b.fMinY);
+			return width * height;
+		}
+
+		/**
+		 * Same semantics as Rectangle2D.intersects(): touching edges
+		 * do not count as intersection.
+		 */
+		boolean intersects(double minX, double minY, double maxX, double maxY) {
+			return (fMinX < maxX) && (fMaxX > minX) && (fMinY < maxY) && (fMaxY > minY);
+		}
+
+		double centerX() {
+			return (fMinX + fMaxX) / 2;
+		}
+
+		double centerY() {
+			return (fMinY + fMaxY) / 2;
+		}
+	}
+
+	/**
+	 * A leaf entry holding a figure and its bounding rectangle.
+	 */
+	private static final class Entry extends Box {
+		private static final long serialVersionUID = 4711208399130548322L;
+
+		final Figure fFigure;
+		final Rectangle2D fBounds;
+		Node fLeaf;
+
+		Entry(Figure figure, Rectangle2D bounds) {
+			fFigure = figure;
+			fBounds = bounds;
+			fMinX = bounds.getX();
+			fMinY = bounds.getY();
+			fMaxX = bounds.getX() + bounds.getWidth();
+			fMaxY = bounds.getY() + bounds.getHeight();
+		}
+	}
+
+	private static final class Node extends Box {
+		private static final long serialVersionUID = -1536217709871235042L;
+
+		final boolean fIsLeaf;
+		Node fParent;
+		final Box[] fChildren;
+		int fCount;
+
+		Node(boolean isLeaf, int maxEntries) {
+			fIsLeaf = isLeaf;
+			// one additional slot for the overflow before a split
+			fChildren = new Box[maxEntries + 1];
+		}
+
+		void addChild(Box child) {
+			fChildren[fCount++] = child;
+			if (fIsLeaf) {
+				((Entry)child).fLeaf = this;
+			}
+			else {
+				((Node)child).fParent = this;
+			}
+			include(child);
+		}
+
+		void removeChild(Box child) {
+			for (int i = 0; i < fCount; i++) {
+				if (fChildren[i] == child) {
+					fChildren[i] = fChildren[--fCount];
+					fChildren[fCount] = null;
+					return;
+				}
+			}
+		}
+
+		void removeAllChildren() {
+			for (int i = 0; i < fCount; i++) {
+				fChildren[i] = null;
+			}
+			fCount = 0;
+			recalculateBounds();
+		}
+
+		void recalculateBounds() {
+			fMinX = Double.POSITIVE_INFINITY;
+			fMinY = Double.POSITIVE_INFINITY;
+			fMaxX = Double.NEGATIVE_INFINITY;
+			fMaxY = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < fCount; i++) {
+				include(fChildren[i]);
+			}
+		}
+
+		void collectEntries(List<Entry> entries) {
+			for (int i = 0; i < fCount; i++) {
+				if (fIsLeaf) {
+					entries.add((Entry)fChildren[i]);
+				}
+				else {
+					((Node)fChildren[i]).collectEntries(entries);
+				}
+			}
+		}
+	}
+
+	private static final class CenterComparator implements Comparator<Box>, Serializable {
+		private static final long serialVersionUID = 8209615398720152913L;
+
+		private final boolean fCompareX;
+
+		CenterComparator(boolean compareX) {
+			fCompareX = compareX;
+		}
+
+		public int compare(Box b1, Box b2) {
+			if (fCompareX) {
+				return Double.compare(b1.centerX(), b2.centerX());
+			}
+			return Double.compare(b1.centerY(), b2.centerY());
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * @(#)RepaintScheduler.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.Timer;
+
+import org.jhotdraw.framework.DrawingView;
+
+/**
+ * Collects the views whose damage has to be repaired and repairs them
+ * at most once per frame. Input devices can deliver far more events per
+ * second than a display shows frames, so repairing the damage after
+ * each event paints many frames nobody sees. Instead, each request to
+ * repair the damage only schedules the views and the damage of all
+ * scheduled views is repaired together when the next frame is due.
+ * Requests arriving while a frame is pending are coalesced into it.
+ * <p>
+ * The frames are paced by a Swing timer, so the damage is repaired on
+ * the event dispatch thread. A frame rate of 0 repairs the damage
+ * immediately on each request.
+ *
+ * @see StandardDrawingView#checkDamage
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class RepaintScheduler implements ActionListener {
+
+	/**
+	 * The default number of frames per second.
+	 */
+	public static final int DEFAULT_FRAME_RATE = 60;
+
+	static RepaintScheduler fgRepaintScheduler = new RepaintScheduler();
+
+	/**
+	 * Gets the scheduler shared by all views.
+	 */
+	static public RepaintScheduler getRepaintScheduler() {
+		return fgRepaintScheduler;
+	}
+
+	private int fFrameRate;
+	private Timer fTimer;
+	private Set<DrawingView> fViews = new LinkedHashSet<DrawingView>();
+	private long fLastFrame;
+
+	private long fEventsReceived;
+	private long fEventsCoalesced;
+	private long fFramesPainted;
+
+	public RepaintScheduler() {
+		this(DEFAULT_FRAME_RATE);
+	}
+
+	public RepaintScheduler(int frameRate) {
+		setFrameRate(frameRate);
+		fTimer = new Timer(0, this);
+		fTimer.setRepeats(false);
+	}
+
+	/**
+	 * Sets the maximum number of frames per second.
+	 * 0 repairs the damage on each request.
+	 */
+	public synchronized void setFrameRate(int frameRate) {
+		if (frameRate < 0) {
+			throw new IllegalArgumentException("frameRate must not be negative: " + frameRate);
+		}
+		fFrameRate = frameRate;
+	}
+
+	public synchronized int getFrameRate() {
+		return fFrameRate;
+	}
+
+	/**
+	 * Schedules the damage of a view to be repaired with the next frame.
+	 */
+	public void schedule(DrawingView view) {
+		schedule(Collections.singletonList(view));
+	}
+
+	/**
+	 * Schedules the damage of several views to be repaired with the
+	 * next frame. This counts as a single request.
+	 */
+	public void schedule(Collection<? extends DrawingView> views) {
+		synchronized (this) {
+			fEventsReceived++;
+			if (fFrameRate > 0) {
+				if (isFramePending()) {
+					fEventsCoalesced++;
+				}
+				else {
+					long delay = fLastFrame + 1000 / fFrameRate - System.currentTimeMillis();
+					fTimer.setInitialDelay((int)Math.max(0, delay));
+					fTimer.start();
+				}
+				fViews.addAll(views);
+				return;
+			}
+			fViews.addAll(views);
+		}
+		paintFrame();
+	}
+
+	/**
+	 * Checks whether a frame is scheduled but not yet painted.
+	 */
+	public synchronized boolean isFramePending() {
+		return !fViews.isEmpty() || fTimer.isRunning();
+	}
+
+	/**
+	 * Repairs the damage of all scheduled views now.
+	 */
+	public void paintFrame() {
+		List<DrawingView> views;
+		synchronized (this) {
+			fTimer.stop();
+			if (fViews.isEmpty()) {
+				return;
+			}
+			// views scheduled while repairing go into the next frame
+			views = new ArrayList<DrawingView>(fViews);
+			fViews.clear();
+			fLastFrame = System.currentTimeMillis();
+			fFramesPainted++;
+		}
+		for (int i = 0; i < views.size(); i++) {
+			views.get(i).repairDamage();
+		}
+	}
+
+	/**
+	 * Called by the timer when the next frame is due.
+	 */
+	public void actionPerformed(ActionEvent e) {
+		paintFrame();
+	}
+
+	/**
+	 * Gets the number of requests to repair damage.
+	 */
+	public synchronized long getEventsReceived() {
+		return fEventsReceived;
+	}
+
+	/**
+	 * Gets the number of requests which were coalesced into
+	 * a frame that was already scheduled.
+	 */
+	public synchronized long getEventsCoalesced() {
+		return fEventsCoalesced;
+	}
+
+	/**
+	 * Gets the number of frames in which damage was repaired.
+	 */
+	public synchronized long getFramesPainted() {
+		return fFramesPainted;
+	}
+
+	public synchronized void resetCounters() {
+		fEventsReceived = 0;
+		fEventsCoalesced = 0;
+		fFramesPainted = 0;
+	}
+}
@@ -86,7 +86,7 @@ public class SelectAreaTracker extends AbstractTool {
 	}
 
 	private void selectGroup(boolean toggle) {
-		FigureEnumeration fe = drawing().figuresReverse();
+		FigureEnumeration fe = drawing().figuresReverse(fSelectGroup);
 		while (fe.hasNextFigure()) {
 			Figure figure = fe.nextFigure();
 			Rectangle r2 = figure.displayBox();
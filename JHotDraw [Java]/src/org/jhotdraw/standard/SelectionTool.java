@@ -37,6 +37,7 @@ import java.awt.event.MouseEvent;
 public class SelectionTool extends AbstractTool {
 
 	private Tool myDelegationTool = null;
+	private int myDragSpriteThreshold = DragTracker.DEFAULT_SPRITE_THRESHOLD;
 
 	public SelectionTool(DrawingEditor newDrawingEditor) {
 		super(newDrawingEditor);
@@ -123,7 +124,22 @@ public class SelectionTool extends AbstractTool {
 	 * Factory method to create a Drag tracker. It is used to drag a figure.
 	 */
 	protected Tool createDragTracker(Figure f) {
-		return new UndoableTool(new DragTracker(editor(), f));
+		DragTracker tracker = new DragTracker(editor(), f);
+		tracker.setSpriteThreshold(getDragSpriteThreshold());
+		return new UndoableTool(tracker);
+	}
+
+	/**
+	 * Sets the number of selected figures from which on a sprite of the
+	 * figures is dragged instead of moving them live.
+	 * @see DragTracker#setSpriteThreshold
+	 */
+	public void setDragSpriteThreshold(int newDragSpriteThreshold) {
+		myDragSpriteThreshold = newDragSpriteThreshold;
+	}
+
+	public int getDragSpriteThreshold() {
+		return myDragSpriteThreshold;
 	}
 
 	/**
@@ -0,0 +1,72 @@
+/*
+ * @(#)SpatialIndex.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.awt.geom.Rectangle2D;
+import java.io.Serializable;
+import java.util.Map;
+
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureEnumeration;
+
+/**
+ * A SpatialIndex keeps track of the bounding rectangles of figures
+ * and answers which figures lie within a given area. CompositeFigure
+ * uses it to avoid scanning all of its children when only a part
+ * of the drawing is of interest (e.g. for rendering or hit detection).
+ * <hr>
+ * <b>Design Patterns</b><P>
+ * <img src="images/red-ball-small.gif" width=6 height=6 alt=" o ">
+ * <b><a href=../pattlets/sld034.htm>Strategy</a></b><br>
+ * The index structure can be exchanged by overriding
+ * CompositeFigure.createSpatialIndex().
+ * <hr>
+ *
+ * @see CompositeFigure#createSpatialIndex
+ * @see RTree
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public interface SpatialIndex extends Serializable {
+
+	/**
+	 * Adds a figure with the given bounding rectangle. The rectangle
+	 * is owned by the index afterwards and must not be changed by the caller.
+	 */
+	public void add(Figure figure, Rectangle2D bounds);
+
+	/**
+	 * Replaces the contents of the index with the given figures and
+	 * their bounding rectangles. Implementations may build a better
+	 * balanced structure than by adding the figures one by one.
+	 */
+	public void load(Map<Figure, Rectangle2D> figureBounds);
+
+	/**
+	 * Removes a figure from the index.
+	 *
+	 * @return the bounding rectangle the figure was registered with or
+	 *			null if the figure was not part of the index
+	 */
+	public Object remove(Object figure);
+
+	/**
+	 * Removes all figures from the index.
+	 */
+	public void clear();
+
+	/**
+	 * Returns all figures whose bounding rectangle intersects the given
+	 * rectangle. The figures are returned in no particular order.
+	 */
+	public FigureEnumeration getAllWithin(Rectangle2D r);
+}
@@ -25,9 +25,10 @@ import org.jhotdraw.framework.DrawingChangeListener;
 import org.jhotdraw.framework.Figure;
 import org.jhotdraw.framework.FigureChangeEvent;
 import org.jhotdraw.framework.FigureChangeListener;
-import org.jhotdraw.framework.FigureEnumeration;
 import org.jhotdraw.framework.Handle;
 import org.jhotdraw.framework.HandleEnumeration;
+import org.jhotdraw.util.DrawingRestore;
+import org.jhotdraw.util.StorableInput;
 
 /**
  * The standard implementation of the Drawing interface.
@@ -54,6 +55,13 @@ public class StandardDrawing extends CompositeFigure implements Drawing {
 	private transient Thread    fDrawingLockHolder = null;
 	private String				myTitle;
 
+	/**
+	 * The areas invalidated and whether an update was requested
+	 * during a batch of changes.
+	 */
+	private transient DamageRegion fBatchDamage;
+	private transient boolean fBatchUpdateRequested;
+
 	/*
 	 * Serialization support
 	 */
@@ -125,10 +133,24 @@ public class StandardDrawing extends CompositeFigure implements Drawing {
 	 * @see FigureChangeListener
 	 */
 	public void figureInvalidated(FigureChangeEvent e) {
-		if (fListeners != null) {
+		if (isUpdating()) {
+			if (fBatchDamage == null) {
+				fBatchDamage = new DamageRegion();
+			}
+			fBatchDamage.add(e.getInvalidatedRectangle());
+		}
+		else {
+			fireDrawingInvalidated(e.getInvalidatedRectangle());
+		}
+	}
+
+	private void fireDrawingInvalidated(Rectangle r) {
+		if ((fListeners != null) && !fListeners.isEmpty()) {
+			// all listeners share the event
+			DrawingChangeEvent event = new DrawingChangeEvent(this, r);
 			for (int i = 0; i < fListeners.size(); i++) {
 				DrawingChangeListener l = (DrawingChangeListener)fListeners.get(i);
-				l.drawingInvalidated(new DrawingChangeEvent(this, e.getInvalidatedRectangle()));
+				l.drawingInvalidated(event);
 			}
 		}
 	}
@@ -149,10 +171,20 @@ public class StandardDrawing extends CompositeFigure implements Drawing {
 	 * Forces an update of the drawing change listeners.
 	 */
 	public void figureRequestUpdate(FigureChangeEvent e) {
-		if (fListeners != null) {
+		if (isUpdating()) {
+			fBatchUpdateRequested = true;
+		}
+		else {
+			fireDrawingRequestUpdate();
+		}
+	}
+
+	private void fireDrawingRequestUpdate() {
+		if ((fListeners != null) && !fListeners.isEmpty()) {
+			DrawingChangeEvent event = new DrawingChangeEvent(this, null);
 			for (int i = 0; i < fListeners.size(); i++) {
 				DrawingChangeListener l = (DrawingChangeListener)fListeners.get(i);
-				l.drawingRequestUpdate(new DrawingChangeEvent(this, null));
+				l.drawingRequestUpdate(event);
 			}
 		}
 	}
@@ -175,14 +207,7 @@ public class StandardDrawing extends CompositeFigure implements Drawing {
 	 */
 	public Rectangle displayBox() {
 		if (fFigures.size() > 0) {
-			FigureEnumeration fe = figures();
-
-			Rectangle r = new Rectangle();
-
-			while (fe.hasNextFigure()) {
-				r.add(fe.nextFigure().displayBox());
-			}
-			return r;
+			return figuresDisplayBox();
 		}
 		return new Rectangle(0, 0, 0, 0);
 	}
@@ -190,6 +215,25 @@ public class StandardDrawing extends CompositeFigure implements Drawing {
 	public void basicDisplayBox(Point p1, Point p2) {
 	}
 
+	/**
+	 * Commits a batch of changes. The listeners are notified once for
+	 * each of the few rectangles the invalidated areas were merged into.
+	 */
+	protected void commitUpdate() {
+		super.commitUpdate();
+		if ((fBatchDamage != null) && !fBatchDamage.isEmpty()) {
+			List<Rectangle> damage = fBatchDamage.getRectangles();
+			fBatchDamage.clear();
+			for (int i = 0; i < damage.size(); i++) {
+				fireDrawingInvalidated(damage.get(i));
+			}
+		}
+		if (fBatchUpdateRequested) {
+			fBatchUpdateRequested = false;
+			fireDrawingRequestUpdate();
+		}
+	}
+
 	/**
 	 * Acquires the drawing lock.
 	 */
@@ -218,6 +262,24 @@ public class StandardDrawing extends CompositeFigure implements Drawing {
 		}
 	}
 
+	/**
+	 * Reads the figures. If the drawing is restored in the background
+	 * the figures are handed to the restore, which adds them in chunks.
+	 * Drawings nested in the figures are read as usual.
+	 *
+	 * @see DrawingRestore#readFigures
+	 */
+	protected void readFigures(StorableInput dr, int size) throws IOException {
+		DrawingRestore restore = dr.getRestore();
+		if (restore != null) {
+			dr.setRestore(null);
+			restore.readFigures(this, dr, size);
+		}
+		else {
+			super.readFigures(dr, size);
+		}
+	}
+
 	private void readObject(ObjectInputStream s)
 		throws ClassNotFoundException, IOException {
 
@@ -30,8 +30,11 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
@@ -92,17 +95,31 @@ public class StandardDrawingView
 	/**
 	 * the accumulated damaged area
 	 */
-	private transient Rectangle fDamage;
+	private transient DamageRegion fDamage;
 
 	/**
-	 * The list of currently selected figures.
+	 * The currently selected figures in the order they were selected.
+	 * A hashed set makes testing, adding and removing a figure
+	 * independent of the size of the selection.
 	 */
-	transient private List<Figure> fSelection;
+	transient private Set<Figure> fSelection;
 
 	/**
 	 * The shown selection handles.
 	 */
-	transient private List<Handle> fSelectionHandles;
+	transient private HandleIndex fSelectionHandles;
+
+	/**
+	 * The default number of selected figures up to which
+	 * the handles of the selected figures are shown.
+	 */
+	public static final int DEFAULT_SELECTION_HANDLE_LIMIT = 10000;
+
+	/**
+	 * The number of selected figures up to which handles are shown.
+	 * Larger selections only show the outlines of the selected figures.
+	 */
+	private int fSelectionHandleLimit = DEFAULT_SELECTION_HANDLE_LIMIT;
 
 	/**
 	 * The preferred size of the view
@@ -139,6 +156,18 @@ public class StandardDrawingView
 	 */
 	private PointConstrainer fConstrainer;
 
+	/**
+	 * The scheduler which repairs the damage of the view
+	 * or null if the shared scheduler is used.
+	 */
+	private transient RepaintScheduler fRepaintScheduler;
+
+	/**
+	 * The last mouse drag event which has not been passed to
+	 * the tool yet because a repaint was still pending.
+	 */
+	private transient MouseEvent fPendingDrag;
+
 	/**
 	 * Scrolling increment
 	 */
@@ -198,7 +227,8 @@ public class StandardDrawingView
 		addFigureSelectionListener(editor());
 		setLastClick(new Point(0, 0));
 		fConstrainer = null;
-		fSelection = new ArrayList<Figure>();
+		fSelection = new LinkedHashSet<Figure>();
+		fSelectionHandles = createHandleIndex();
 		// JFC/Swing uses double buffering automatically as default
 		setDisplayUpdate(createDisplayUpdate());
 		// TODO: Test FastBufferedUpdateStrategy with JFC/Swing double buffering
@@ -229,8 +259,7 @@ public class StandardDrawingView
 	 * Factory method which can be overriden by subclasses
 	 */
 	protected Painter createDisplayUpdate() {
-		return new SimpleUpdateStrategy();
-		//return new ClippingUpdateStrategy();
+		return new ClippingUpdateStrategy();
 	}
 
 	/**
@@ -335,44 +364,50 @@ public class StandardDrawingView
 		List<Figure> vCF = new ArrayList<Figure>(10);
 		InsertIntoDrawingVisitor visitor = new InsertIntoDrawingVisitor(drawing());
 
-		while (fe.hasNextFigure()) {
-			Figure figure = fe.nextFigure();
-			if (figure instanceof ConnectionFigure) {
-				vCF.add(figure);
-			}
-			else if (figure != null) {
-				figure.moveBy(dx, dy);
-				figure.visit(visitor);
+		drawing().beginUpdate();
+		try {
+			while (fe.hasNextFigure()) {
+				Figure figure = fe.nextFigure();
+				if (figure instanceof ConnectionFigure) {
+					vCF.add(figure);
+				}
+				else if (figure != null) {
+					figure.moveBy(dx, dy);
+					figure.visit(visitor);
+				}
 			}
-		}
 
-		FigureEnumeration ecf = new FigureEnumerator(vCF);
+			FigureEnumeration ecf = new FigureEnumerator(vCF);
 
-		while (ecf.hasNextFigure()) {
-			ConnectionFigure cf = (ConnectionFigure) ecf.nextFigure();
-			Figure sf = cf.startFigure();
-			Figure ef = cf.endFigure();
+			while (ecf.hasNextFigure()) {
+				ConnectionFigure cf = (ConnectionFigure) ecf.nextFigure();
+				Figure sf = cf.startFigure();
+				Figure ef = cf.endFigure();
 
-			if (figureExists(sf, drawing().figures())
-				&& figureExists(ef, drawing().figures())
-				&& (!bCheck || cf.canConnect(sf, ef))) {
+				if (figureExists(sf, drawing().figures())
+					&& figureExists(ef, drawing().figures())
+					&& (!bCheck || cf.canConnect(sf, ef))) {
 
-				if (bCheck) {
-					Point sp = sf.center();
-					Point ep = ef.center();
-					Connector fStartConnector = cf.startFigure().connectorAt(ep.x, ep.y);
-					Connector fEndConnector = cf.endFigure().connectorAt(sp.x, sp.y);
+					if (bCheck) {
+						Point sp = sf.center();
+						Point ep = ef.center();
+						Connector fStartConnector = cf.startFigure().connectorAt(ep.x, ep.y);
+						Connector fEndConnector = cf.endFigure().connectorAt(sp.x, sp.y);
 
-					if (fEndConnector != null && fStartConnector != null) {
-						cf.connectStart(fStartConnector);
-						cf.connectEnd(fEndConnector);
-						cf.updateConnection();
+						if (fEndConnector != null && fStartConnector != null) {
+							cf.connectStart(fStartConnector);
+							cf.connectEnd(fEndConnector);
+							cf.updateConnection();
+						}
 					}
-				}
 
-				cf.visit(visitor);
+					cf.visit(visitor);
+				}
 			}
 		}
+		finally {
+			drawing().endUpdate();
+		}
 
 		addToSelectionAll(visitor.getInsertedFigures());
 		return visitor.getInsertedFigures();
@@ -380,6 +415,10 @@ public class StandardDrawingView
 
 	/**
 	 * Returns a FigureEnumeration of connectionfigures attached to this figure
+	 * or to one of its nested figures. The connections are looked up in the
+	 * dependent figures which a ConnectionFigure registers with the figures
+	 * it connects, so the effort depends on the number of connections of the
+	 * figure and not on the size of the drawing.
 	 */
 	public FigureEnumeration getConnectionFigures(Figure inFigure) {
 		// If no figure or figure is non connectable, just return null
@@ -390,24 +429,26 @@ public class StandardDrawingView
 		// if (inFigure instanceof ConnectionFigure)
 		//  return null;
 
-		List<Figure> result = new ArrayList<Figure>(5);
-		FigureEnumeration figures = drawing().figures();
-
-		// Find all connection figures
-		while (figures.hasNextFigure()) {
-			Figure f= figures.nextFigure();
-
-			if ((f instanceof ConnectionFigure) && !(isFigureSelected(f))) {
-				ConnectionFigure cf = (ConnectionFigure) f;
+		// a connection may connect two figures nested in inFigure
+		Set<Figure> result = new LinkedHashSet<Figure>(5);
+		addConnectionFigures(inFigure, result);
+		return new FigureEnumerator(result);
+	}
 
-				if (cf.startFigure().includes(inFigure) || cf.endFigure().includes(inFigure)) {
-					result.add(f);
-				}
+	private void addConnectionFigures(Figure figure, Set<Figure> result) {
+		FigureEnumeration dependents = figure.getDependendFigures();
+		while (dependents.hasNextFigure()) {
+			Figure f = dependents.nextFigure();
+			if ((f instanceof ConnectionFigure) && !isFigureSelected(f) && drawing().containsFigure(f)) {
+				result.add(f);
 			}
 		}
 
-		return new FigureEnumerator(result);
-   }
+		FigureEnumeration children = figure.figures();
+		while (children.hasNextFigure()) {
+			addConnectionFigures(children.nextFigure(), result);
+		}
+	}
 
 	/**
 	 * Sets the current display update strategy.
@@ -437,15 +478,26 @@ public class StandardDrawingView
 	}
 
 	/**
-	 * Gets the currently selected figures in Z order.
+	 * Gets the currently selected figures in Z order (back to front) as
+	 * they are ordered in the drawing. Selected figures which are nested
+	 * inside other figures come first.
 	 * @see #selection
 	 * @return a FigureEnumeration with the selected figures. The enumeration
 	 * represents a snapshot of the current selection.
 	 */
 	public FigureEnumeration selectionZOrdered() {
-		List<Figure> result = new ArrayList<Figure>(fSelection);
-		
-		return new ReverseFigureEnumerator(result);
+		List<OrderedFigureElement> ordered = new ArrayList<OrderedFigureElement>(fSelection.size());
+		for (Iterator<Figure> iter = fSelection.iterator(); iter.hasNext(); ) {
+			Figure figure = iter.next();
+			ordered.add(new OrderedFigureElement(figure, drawing().getLayer(figure)));
+		}
+		Collections.sort(ordered);
+
+		List<Figure> result = new ArrayList<Figure>(ordered.size());
+		for (int i = 0; i < ordered.size(); i++) {
+			result.add(ordered.get(i).getFigure());
+		}
+		return new FigureEnumerator(result);
 	}
 
 	/**
@@ -475,7 +527,7 @@ public class StandardDrawingView
 		boolean changed = false;
 		if (!isFigureSelected(figure) && drawing().includes(figure)) {
 			fSelection.add(figure);
-			fSelectionHandles = null;
+			fSelectionHandles.add(figure);
 			figure.invalidate();
 			changed = true;
 		}
@@ -507,7 +559,7 @@ public class StandardDrawingView
 	public void removeFromSelection(Figure figure) {
 		if (isFigureSelected(figure)) {
 			fSelection.remove(figure);
-			fSelectionHandles = null;
+			fSelectionHandles.remove(figure);
 			figure.invalidate();
 			fireSelectionChanged();
 		}
@@ -537,12 +589,15 @@ public class StandardDrawingView
 			return;
 		}
 
-		FigureEnumeration fe = selection();
-		while (fe.hasNextFigure()) {
-			fe.nextFigure().invalidate();
+		// the handles are only shown by this view, the damage region
+		// merges the areas of figures close to each other
+		for (Iterator<Figure> iter = fSelection.iterator(); iter.hasNext(); ) {
+			Rectangle r = iter.next().displayBox();
+			r.grow(Handle.HANDLESIZE, Handle.HANDLESIZE);
+			getDamageRegion().add(r);
 		}
-		fSelection = new ArrayList<Figure>();
-		fSelectionHandles = null;
+		fSelection = new LinkedHashSet<Figure>();
+		fSelectionHandles.clear();
 		fireSelectionChanged();
 	}
 
@@ -550,18 +605,37 @@ public class StandardDrawingView
 	 * Gets an enumeration of the currently active handles.
 	 */
 	protected HandleEnumeration selectionHandles() {
-		if (fSelectionHandles == null) {
-			fSelectionHandles = new ArrayList<Handle>();
-			FigureEnumeration fe = selection();
-			while (fe.hasNextFigure()) {
-				Figure figure = fe.nextFigure();
-				HandleEnumeration kk = figure.handles();
-				while (kk.hasNextHandle()) {
-					fSelectionHandles.add(kk.nextHandle());
-				}
-			}
-		}
-		return new HandleEnumerator(fSelectionHandles);
+		return new HandleEnumerator(fSelectionHandles.getHandles());
+	}
+
+	/**
+	 * Factory method for the index of the selection handles.
+	 */
+	protected HandleIndex createHandleIndex() {
+		return new HandleIndex();
+	}
+
+	/**
+	 * Checks whether the handles of the selected figures are shown.
+	 * @see #setSelectionHandleLimit
+	 */
+	protected boolean isShowingHandles() {
+		return selectionCount() <= getSelectionHandleLimit();
+	}
+
+	/**
+	 * Sets the number of selected figures up to which their handles
+	 * are shown. Larger selections only show the outlines of the
+	 * selected figures and don't offer handles for manipulation,
+	 * which keeps painting them cheap.
+	 */
+	public void setSelectionHandleLimit(int limit) {
+		fSelectionHandleLimit = limit;
+		repaint();
+	}
+
+	public int getSelectionHandleLimit() {
+		return fSelectionHandleLimit;
 	}
 
 	/**
@@ -577,16 +651,10 @@ public class StandardDrawingView
 	 * @return the hit handle, null if no handle is found.
 	 */
 	public Handle findHandle(int x, int y) {
-		Handle handle;
-
-		HandleEnumeration he = selectionHandles();
-		while (he.hasNextHandle()) {
-			handle = he.nextHandle();
-			if (handle.containsPoint(x, y)) {
-				return handle;
-			}
+		if (!isShowingHandles()) {
+			return null;
 		}
-		return null;
+		return fSelectionHandles.findHandle(x, y);
 	}
 
 	/**
@@ -603,14 +671,36 @@ public class StandardDrawingView
 		}
 	}
 
+	/**
+	 * Gets the bounding box of the accumulated damaged area
+	 * or null if nothing is damaged.
+	 */
     protected Rectangle getDamage() {
-        return fDamage; // clone?
+        return getDamageRegion().getBounds();
     }
 
     protected void setDamage(Rectangle r) {
-        fDamage = r;
+        getDamageRegion().clear();
+        getDamageRegion().add(r);
     }
 
+	/**
+	 * Gets the accumulated damaged area as a set of disjoint rectangles.
+	 */
+	protected DamageRegion getDamageRegion() {
+		if (fDamage == null) {
+			fDamage = createDamageRegion();
+		}
+		return fDamage;
+	}
+
+	/**
+	 * Factory method for the region that accumulates the damaged area.
+	 */
+	protected DamageRegion createDamageRegion() {
+		return new DamageRegion();
+	}
+
 	/**
 	 * Gets the position of the last click inside the view.
 	 */
@@ -662,39 +752,96 @@ public class StandardDrawingView
 	}
 
 	/**
-	 * Refreshes the drawing if there is some accumulated damage
+	 * Refreshes the drawing if there is some accumulated damage.
+	 * The views of the drawing are repaired with the next frame
+	 * of the repaint scheduler.
+	 * @see #setRepaintScheduler
 	 */
 	public synchronized void checkDamage() {
+		List<DrawingView> views = new ArrayList<DrawingView>();
 		Iterator<DrawingChangeListener> each = drawing().drawingChangeListeners();
 		while (each.hasNext()) {
 			Object l = each.next();
 			if (l instanceof DrawingView) {
-				((DrawingView)l).repairDamage();
+				views.add((DrawingView)l);
 			}
 		}
+		getRepaintScheduler().schedule(views);
 	}
 
-	public void repairDamage() {
-		if (getDamage() != null) {
-			repaint(getDamage().x, getDamage().y, getDamage().width, getDamage().height);
-			setDamage(null);
+	/**
+	 * Sets the scheduler which paces the repairs of the damage.
+	 * By default all views share a single scheduler.
+	 */
+	public void setRepaintScheduler(RepaintScheduler scheduler) {
+		fRepaintScheduler = scheduler;
+	}
+
+	public RepaintScheduler getRepaintScheduler() {
+		if (fRepaintScheduler == null) {
+			return RepaintScheduler.getRepaintScheduler();
 		}
+		return fRepaintScheduler;
 	}
 
-	public void drawingInvalidated(DrawingChangeEvent e) {
-		Rectangle r = e.getInvalidatedRectangle();
-		if (getDamage() == null) {
-			setDamage(r);
+	/**
+	 * Passes a mouse drag event to the tool unless a repaint is still
+	 * pending. In that case the event is kept until the repaint happens
+	 * or the next event arrives, so a fast mouse doesn't move figures
+	 * more often than they are painted.
+	 */
+	protected void handleMouseDrag(MouseEvent e) {
+		if (getRepaintScheduler().isFramePending()) {
+			fPendingDrag = e;
+			getRepaintScheduler().schedule(this);
+			return;
 		}
-		else {
-			// don't manipulate rectangle returned by getDamage() directly
-			// because it could be a cloned rectangle.
-			Rectangle damagedR = getDamage();
-			damagedR.add(r);
-			setDamage(damagedR);
+		fPendingDrag = null;
+		Point p = constrainPoint(new Point(e.getX(), e.getY()));
+		tool().mouseDrag(e, p.x, p.y);
+		checkDamage();
+	}
+
+	/**
+	 * Passes a mouse drag event which was held back by
+	 * handleMouseDrag() to the tool.
+	 */
+	protected void flushPendingDrag() {
+		MouseEvent e = fPendingDrag;
+		if (e != null) {
+			fPendingDrag = null;
+			try {
+				Point p = constrainPoint(new Point(e.getX(), e.getY()));
+				tool().mouseDrag(e, p.x, p.y);
+				checkDamage();
+			}
+			catch (Throwable t) {
+				handleMouseEventException(t);
+			}
 		}
 	}
 
+	/**
+	 * Requests a repaint of each rectangle of the damaged area. The
+	 * RepaintManager coalesces the requests and paints them later
+	 * on the event dispatch thread.
+	 */
+	public void repairDamage() {
+		flushPendingDrag();
+		if (!getDamageRegion().isEmpty()) {
+			List<Rectangle> damage = getDamageRegion().getRectangles();
+			getDamageRegion().clear();
+			for (int i = 0; i < damage.size(); i++) {
+				Rectangle r = damage.get(i);
+				repaint(r.x, r.y, r.width, r.height);
+			}
+		}
+	}
+
+	public void drawingInvalidated(DrawingChangeEvent e) {
+		getDamageRegion().add(e.getInvalidatedRectangle());
+	}
+
 	public void drawingRequestUpdate(DrawingChangeEvent e) {
 		repairDamage();
 	}
@@ -755,12 +902,44 @@ public class StandardDrawingView
 	}
 
 	/**
-	 * Draws the currently active handles.
+	 * Draws the currently active handles. Handles outside
+	 * of the clip area of the Graphics are skipped.
 	 */
 	public void drawHandles(Graphics g) {
-		HandleEnumeration he = selectionHandles();
-		while (he.hasNextHandle()) {
-			(he.nextHandle()).draw(g);
+		if (!isShowingHandles()) {
+			drawSelectionOutlines(g);
+			return;
+		}
+		Rectangle clip = g.getClipBounds();
+		List<Handle> handles;
+		if (clip == null) {
+			handles = fSelectionHandles.getHandles();
+		}
+		else {
+			// the outline of a handle is drawn around its display box
+			clip = new Rectangle(clip);
+			clip.grow(1, 1);
+			handles = fSelectionHandles.getHandles(clip);
+		}
+		for (int i = 0; i < handles.size(); i++) {
+			handles.get(i).draw(g);
+		}
+	}
+
+	/**
+	 * Draws the outlines of the selected figures instead of
+	 * their handles when the selection is too large.
+	 * @see #setSelectionHandleLimit
+	 */
+	protected void drawSelectionOutlines(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		g.setColor(Color.black);
+		for (Iterator<Figure> iter = fSelection.iterator(); iter.hasNext(); ) {
+			Rectangle r = iter.next().displayBox();
+			r.grow(1, 1);
+			if ((clip == null) || clip.intersects(r.x, r.y, r.width + 1, r.height + 1)) {
+				g.drawRect(r.x, r.y, r.width, r.height);
+			}
 		}
 	}
 
@@ -858,7 +1037,8 @@ public class StandardDrawingView
 
 		s.defaultReadObject();
 
-		fSelection = new ArrayList<Figure>(); // could use lazy initialization instead
+		fSelection = new LinkedHashSet<Figure>(); // could use lazy initialization instead
+		fSelectionHandles = createHandleIndex();
 		// could use lazy initialization instead
 		if (drawing() != null) {
 			drawing().addDrawingChangeListener(this);
@@ -886,12 +1066,9 @@ public class StandardDrawingView
 		// ricardo_padilha: this test had to be introduced because a drawing view
 		// can be assigned a null drawing (see setDrawing() ).
 		if (drawing() != null) {
-			FigureEnumeration fe = drawing().figures();
-			while (fe.hasNextFigure()) {
-				Rectangle r = fe.nextFigure().displayBox();
-				d.width = Math.max(d.width, r.x+r.width);
-				d.height = Math.max(d.height, r.y+r.height);
-			}
+			Rectangle r = drawing().displayBox();
+			d.width = Math.max(d.width, r.x+r.width);
+			d.height = Math.max(d.height, r.y+r.height);
 		}
         return d;
 	}
@@ -996,6 +1173,7 @@ public class StandardDrawingView
 		 * currently active tool.
 		 */
 		public void mouseReleased(MouseEvent e) {
+			flushPendingDrag();
 			try {
 				Point p = constrainPoint(new Point(e.getX(), e.getY()));
 				tool().mouseUp(e, p.x, p.y);
@@ -1014,9 +1192,7 @@ public class StandardDrawingView
 		 */
 		public void mouseDragged(MouseEvent e) {
 			try {
-				Point p = constrainPoint(new Point(e.getX(), e.getY()));
-				tool().mouseDrag(e, p.x, p.y);
-				checkDamage();
+				handleMouseDrag(e);
 			}
 			catch (Throwable t) {
 				handleMouseEventException(t);
@@ -1195,11 +1371,7 @@ public class StandardDrawingView
 	 * @see java.awt.Component#getMinimumSize()
 	 */
 	public Dimension getMinimumSize() {
-		Rectangle r = new Rectangle();
-		FigureEnumeration k = drawing().figures();
-		while (k.hasNextFigure()) {
-			r.add(k.nextFigure().displayBox());
-		}
+		Rectangle r = drawing().displayBox();
 		return new Dimension(r.width, r.height);
 	}
 
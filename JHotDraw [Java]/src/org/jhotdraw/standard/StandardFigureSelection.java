@@ -16,6 +16,7 @@ import org.jhotdraw.util.*;
 
 import java.util.*;
 import java.io.*;
+import java.nio.ByteBuffer;
 
 /**
  * FigureSelection enables to transfer the selected figures
@@ -69,9 +70,8 @@ public class StandardFigureSelection implements FigureSelection, Serializable {
 	 */
 	public Object getData(String type) {
 		if (type.equals(TYPE)) {
-			InputStream input = new ByteArrayInputStream(fData);
 			List<Figure> result = new ArrayList<Figure>();
-			StorableInput reader = new StorableInput(input);
+			StorableInput reader = new ByteBufferStorableInput(ByteBuffer.wrap(fData));
 			int numRead = 0;
 			try {
 				int count = reader.readInt();
@@ -0,0 +1,400 @@
+/*
+ * @(#)TiledUpdateStrategy.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.standard;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import org.jhotdraw.framework.*;
+
+/**
+ * The TiledUpdateStrategy implements an update strategy that
+ * keeps the figures of a StandardDrawingView rasterized in
+ * fixed-size image tiles. A tile is only rendered again after
+ * the drawing invalidated an area that overlaps it, otherwise
+ * painting the view copies the cached images. The background,
+ * the foregrounds and the handles are drawn as usual, the tiles
+ * are transparent where there are no figures.
+ * <p>
+ * The tiles are kept in least recently used order and the least
+ * recently used tiles are discarded when the tiles exceed the memory
+ * budget. Tiles currently visible are used on every paint, so tiles
+ * that have been scrolled out of view are discarded first.
+ * <p>
+ * The dirty tiles of a paint are rendered one after the other on the
+ * painting thread. If all figures of the drawing can be drawn from
+ * several threads at once, setParallel(true) renders them concurrently
+ * by a shared pool with one thread per processor. Each tile is rendered
+ * with its own Graphics2D into its own image. The figures of every tile
+ * are looked up before the rendering starts and the painting thread
+ * waits until all tiles are rendered, so the figures are not changed
+ * meanwhile by the event dispatch thread. A figure spanning several
+ * tiles is drawn by several threads at the same time though, so figures
+ * caching state in draw() (e.g. TextFigure) require sequential rendering.
+ * <p>
+ * The strategy listens to the view's drawing for invalidated areas.
+ * It discards its tiles once it is no longer the view's update strategy.
+ * Views other than StandardDrawingView are drawn without tiles.
+ *
+ * @see StandardDrawingView
+ * @see ClippingUpdateStrategy
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class TiledUpdateStrategy implements Painter, DrawingChangeListener {
+
+	/**
+	 * The default width and height of a tile in pixels.
+	 */
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	/**
+	 * The default memory budget for all tiles in bytes.
+	 */
+	public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+	private int fTileSize;
+	private long fMemoryBudget;
+	private boolean fParallel;
+
+	/**
+	 * The threads rendering tiles concurrently, shared by all instances.
+	 */
+	private static ExecutorService fgRenderer;
+
+	private transient Map<Long, Tile> fTiles;
+	private transient StandardDrawingView fView;
+	private transient Drawing fDrawing;
+
+	/*
+	 * Serialization support. In JavaDraw only the Drawing is serialized.
+	 * However, for beans support TiledUpdateStrategy supports
+	 * serialization
+	 */
+	private static final long serialVersionUID = -6021873925447281160L;
+
+	public TiledUpdateStrategy() {
+		this(DEFAULT_TILE_SIZE, DEFAULT_MEMORY_BUDGET);
+	}
+
+	/**
+	 * @param tileSize width and height of a tile in pixels
+	 * @param memoryBudget maximum number of bytes used by the tile images
+	 */
+	public TiledUpdateStrategy(int tileSize, long memoryBudget) {
+		if (tileSize < 1) {
+			throw new IllegalArgumentException("tileSize must be positive: " + tileSize);
+		}
+		fTileSize = tileSize;
+		fMemoryBudget = memoryBudget;
+	}
+
+	/**
+	* Draws the view contents. Tiles within the clip area
+	* are rendered if necessary and copied to the view.
+	*/
+	public synchronized void draw(Graphics g, DrawingView view) {
+		if (!(view instanceof StandardDrawingView) || (g instanceof PrintGraphics) || (view.drawing() == null)) {
+			view.drawAll(g);
+			return;
+		}
+		StandardDrawingView sdv = (StandardDrawingView)view;
+		attach(sdv);
+
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(new Point(0, 0), sdv.getSize());
+		}
+
+		view.drawBackground(g);
+		drawPainters(g, sdv, sdv.getBackgrounds());
+
+		int firstColumn = floorDiv(clip.x, fTileSize);
+		int lastColumn = floorDiv(clip.x + clip.width - 1, fTileSize);
+		int firstRow = floorDiv(clip.y, fTileSize);
+		int lastRow = floorDiv(clip.y + clip.height - 1, fTileSize);
+		List<Tile> visibleTiles = new ArrayList<Tile>();
+		List<Tile> dirtyTiles = new ArrayList<Tile>();
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				Tile tile = getTile(column, row);
+				visibleTiles.add(tile);
+				if (tile.fDirty) {
+					dirtyTiles.add(tile);
+				}
+			}
+		}
+		renderTiles(dirtyTiles);
+		for (int i = 0; i < visibleTiles.size(); i++) {
+			Tile tile = visibleTiles.get(i);
+			g.drawImage(tile.fImage, tile.fBounds.x, tile.fBounds.y, null);
+		}
+
+		drawPainters(g, sdv, sdv.getForegrounds());
+		view.drawHandles(g);
+	}
+
+	/**
+	 * Marks the tiles overlapping the invalidated area as dirty.
+	 */
+	public synchronized void drawingInvalidated(DrawingChangeEvent e) {
+		if (fTiles == null) {
+			return;
+		}
+		if ((fView.getDisplayUpdate() != this) || (fView.drawing() != fDrawing)) {
+			// the listener isn't removed here because the drawing is just
+			// notifying its listeners, it is removed when drawing again
+			fTiles = null;
+			fView = null;
+			return;
+		}
+		Rectangle r = e.getInvalidatedRectangle();
+		if ((r == null) || r.isEmpty()) {
+			return;
+		}
+		int lastColumn = floorDiv(r.x + r.width - 1, fTileSize);
+		int lastRow = floorDiv(r.y + r.height - 1, fTileSize);
+		for (int row = floorDiv(r.y, fTileSize); row <= lastRow; row++) {
+			for (int column = floorDiv(r.x, fTileSize); column <= lastColumn; column++) {
+				Tile tile = fTiles.get(key(column, row));
+				if (tile != null) {
+					tile.fDirty = true;
+				}
+			}
+		}
+	}
+
+	public void drawingTitleChanged(DrawingChangeEvent e) {
+	}
+
+	public void drawingRequestUpdate(DrawingChangeEvent e) {
+	}
+
+	/**
+	 * Discards all tiles. Use this method if the appearance of
+	 * the figures changed without invalidating the drawing.
+	 */
+	public synchronized void flush() {
+		if (fTiles != null) {
+			fTiles.clear();
+		}
+	}
+
+	/**
+	 * Gets the number of tiles currently kept in memory.
+	 */
+	public synchronized int getTileCount() {
+		return (fTiles == null) ? 0 : fTiles.size();
+	}
+
+	/**
+	 * Sets whether several dirty tiles are rendered concurrently.
+	 * Only enable it if the draw() methods of all figures of the
+	 * drawing are safe to be called from several threads at once.
+	 * The default is sequential rendering.
+	 */
+	public void setParallel(boolean parallel) {
+		fParallel = parallel;
+	}
+
+	public boolean isParallel() {
+		return fParallel;
+	}
+
+	public int getTileSize() {
+		return fTileSize;
+	}
+
+	public long getMemoryBudget() {
+		return fMemoryBudget;
+	}
+
+	private void attach(StandardDrawingView view) {
+		Drawing drawing = view.drawing();
+		if (drawing != fDrawing) {
+			if (fDrawing != null) {
+				fDrawing.removeDrawingChangeListener(this);
+			}
+			drawing.addDrawingChangeListener(this);
+			fDrawing = drawing;
+			fTiles = null;
+		}
+		if (view != fView) {
+			fView = view;
+			fTiles = null;
+		}
+		if (fTiles == null) {
+			fTiles = createTileMap();
+		}
+	}
+
+	private Map<Long, Tile> createTileMap() {
+		final long tileBytes = 4L * fTileSize * fTileSize;
+		return new LinkedHashMap<Long, Tile>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+				return (size() > 1) && (size() * tileBytes > fMemoryBudget);
+			}
+		};
+	}
+
+	private Tile getTile(int column, int row) {
+		Long key = key(column, row);
+		Tile tile = fTiles.get(key);
+		if (tile == null) {
+			tile = new Tile(new BufferedImage(fTileSize, fTileSize, BufferedImage.TYPE_INT_ARGB_PRE),
+				new Rectangle(column * fTileSize, row * fTileSize, fTileSize, fTileSize));
+			fTiles.put(key, tile);
+		}
+		return tile;
+	}
+
+	private void renderTiles(List<Tile> tiles) {
+		List<TileRenderer> renderers = new ArrayList<TileRenderer>(tiles.size());
+		for (int i = 0; i < tiles.size(); i++) {
+			Tile tile = tiles.get(i);
+			// figures are invalidated with their display box grown by the
+			// handle size so include figures that may paint into the tile
+			Rectangle r = new Rectangle(tile.fBounds);
+			r.grow(Handle.HANDLESIZE, Handle.HANDLESIZE);
+			renderers.add(new TileRenderer(fDrawing, tile, fDrawing.figures(r)));
+		}
+
+		if (!fParallel || (renderers.size() < 2) || (Runtime.getRuntime().availableProcessors() < 2)) {
+			for (int i = 0; i < renderers.size(); i++) {
+				renderers.get(i).run();
+			}
+			return;
+		}
+
+		List<Future<?>> results = new ArrayList<Future<?>>(renderers.size());
+		for (int i = 0; i < renderers.size(); i++) {
+			results.add(getRenderer().submit(renderers.get(i)));
+		}
+		boolean interrupted = false;
+		try {
+			for (int i = 0; i < results.size(); i++) {
+				// the tiles have to be complete before they are used
+				while (true) {
+					try {
+						results.get(i).get();
+						break;
+					}
+					catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			}
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException)cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error)cause;
+			}
+			throw new RuntimeException(cause);
+		}
+		finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static synchronized ExecutorService getRenderer() {
+		if (fgRenderer == null) {
+			fgRenderer = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+				new ThreadFactory() {
+					private int fCount;
+
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "TiledUpdateStrategy-" + (++fCount));
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		}
+		return fgRenderer;
+	}
+
+	private void drawPainters(Graphics g, StandardDrawingView view, List<Painter> painters) {
+		if (painters != null) {
+			view.drawPainters(g, painters);
+		}
+	}
+
+	private static int floorDiv(int x, int y) {
+		int q = x / y;
+		if (((x % y) != 0) && ((x < 0) != (y < 0))) {
+			q--;
+		}
+		return q;
+	}
+
+	private static Long key(int column, int row) {
+		return Long.valueOf(((long)column << 32) | (row & 0xffffffffL));
+	}
+
+	private static final class Tile {
+		final BufferedImage fImage;
+		final Rectangle fBounds;
+		boolean fDirty = true;
+
+		Tile(BufferedImage image, Rectangle bounds) {
+			fImage = image;
+			fBounds = bounds;
+		}
+	}
+
+	/**
+	 * Renders the given figures into a tile.
+	 */
+	private static final class TileRenderer implements Runnable {
+		private final Drawing fDrawing;
+		private final Tile fTile;
+		private final FigureEnumeration fFigures;
+
+		TileRenderer(Drawing drawing, Tile tile, FigureEnumeration figures) {
+			fDrawing = drawing;
+			fTile = tile;
+			fFigures = figures;
+		}
+
+		public void run() {
+			Graphics2D g = fTile.fImage.createGraphics();
+			try {
+				g.setComposite(AlphaComposite.Clear);
+				g.fillRect(0, 0, fTile.fBounds.width, fTile.fBounds.height);
+				g.setComposite(AlphaComposite.SrcOver);
+
+				g.translate(-fTile.fBounds.x, -fTile.fBounds.y);
+				g.setClip(fTile.fBounds);
+				fDrawing.draw(g, fFigures);
+			}
+			finally {
+				g.dispose();
+			}
+			fTile.fDirty = false;
+		}
+	}
+}
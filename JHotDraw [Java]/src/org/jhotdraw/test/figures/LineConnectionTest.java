@@ -13,6 +13,13 @@ package org.jhotdraw.test.figures;
 import org.jhotdraw.figures.LineConnection;
 import junit.framework.TestCase;
 // JUnitDoclet begin import
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.figures.TextFigure;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.standard.StandardDrawing;
 // JUnitDoclet end import
 
 /*
@@ -290,6 +297,52 @@ extends TestCase
 	// JUnitDoclet end javadoc_method figureChanged()
 	public void testFigureChanged() throws Exception {
 		// JUnitDoclet begin method figureChanged
+		final List<Figure> updates = new ArrayList<Figure>();
+		lineconnection = new LineConnection() {
+			public void updateConnection() {
+				updates.add(this);
+				super.updateConnection();
+			}
+		};
+		TextFigure label = new TextFigure() {
+			public void updateDependent() {
+				updates.add(this);
+				super.updateDependent();
+			}
+		};
+		StandardDrawing drawing = new StandardDrawing();
+		Figure start = drawing.add(new RectangleFigure(new Point(0, 0), new Point(10, 10)));
+		Figure end = drawing.add(new RectangleFigure(new Point(100, 0), new Point(110, 10)));
+		lineconnection.startPoint(5, 5);
+		lineconnection.endPoint(105, 5);
+		lineconnection.connectStart(start.connectorAt(5, 5));
+		lineconnection.connectEnd(end.connectorAt(105, 5));
+		drawing.add(lineconnection);
+		label.setText("label");
+		label.connect(lineconnection);
+		drawing.add(label);
+		updates.clear();
+
+		// without a batch each change updates the connection
+		start.moveBy(0, 10);
+		end.moveBy(0, 10);
+		assertEquals(15, lineconnection.startPoint().y);
+		assertEquals(15, lineconnection.endPoint().y);
+		assertTrue(updates.size() > 2);
+
+		// in a batch the connection is updated once, before the attached label
+		updates.clear();
+		drawing.beginUpdate();
+		start.moveBy(0, 40);
+		lineconnection.moveBy(0, 40);
+		end.moveBy(0, 40);
+		assertEquals(15, lineconnection.startPoint().y);
+		drawing.endUpdate();
+		assertEquals(2, updates.size());
+		assertSame(lineconnection, updates.get(0));
+		assertSame(label, updates.get(1));
+		assertEquals(55, lineconnection.startPoint().y);
+		assertEquals(55, lineconnection.endPoint().y);
 		// JUnitDoclet end method figureChanged
 	}
 
@@ -30,15 +30,26 @@ public class AllTests {
 		suite.addTest(new TestSuite(ChangeConnectionEndHandleTest.class));
 		suite.addTest(new TestSuite(ChangeConnectionStartHandleTest.class));
 		suite.addTest(new TestSuite(ChopBoxConnectorTest.class));
+		suite.addTest(new TestSuite(ChunkedDrawingTest.class));
+		suite.addTest(new TestSuite(ClippingUpdateStrategyTest.class));
+		suite.addTest(new TestSuite(DamageRegionTest.class));
+		suite.addTest(new TestSuite(DragTrackerTest.class));
+		suite.addTest(new TestSuite(FigureChangeListenerListTest.class));
 		suite.addTest(new TestSuite(FigureEnumeratorTest.class));
+		suite.addTest(new TestSuite(HandleIndexTest.class));
 		suite.addTest(new TestSuite(NullHandleTest.class));
 		suite.addTest(new TestSuite(OffsetLocatorTest.class));
+		suite.addTest(new TestSuite(OrderedFigureListTest.class));
+		suite.addTest(new TestSuite(RTreeTest.class));
 		suite.addTest(new TestSuite(RelativeLocatorTest.class));
+		suite.addTest(new TestSuite(RepaintSchedulerTest.class));
 		suite.addTest(new TestSuite(ReverseFigureEnumeratorTest.class));
 		suite.addTest(new TestSuite(SimpleUpdateStrategyTest.class));
 		suite.addTest(new TestSuite(SingleFigureEnumeratorTest.class));
 		suite.addTest(new TestSuite(StandardDrawingTest.class));
+		suite.addTest(new TestSuite(StandardDrawingViewTest.class));
 		suite.addTest(new TestSuite(StandardFigureSelectionTest.class));
+		suite.addTest(new TestSuite(TiledUpdateStrategyTest.class));
 		//$JUnit-END$
 		return suite;
 	}
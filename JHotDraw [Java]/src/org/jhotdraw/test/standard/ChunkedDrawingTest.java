@@ -0,0 +1,323 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.ChunkedDrawing;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import org.jhotdraw.figures.LineConnection;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureEnumeration;
+import org.jhotdraw.standard.HandleIndex;
+import org.jhotdraw.standard.StandardDrawing;
+import org.jhotdraw.standard.StandardDrawingView;
+import org.jhotdraw.util.ChunkedStorageFormat;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase ChunkedDrawingTest is generated by
+ * JUnitDoclet to hold the tests for ChunkedDrawing.
+ * @see org.jhotdraw.standard.ChunkedDrawing
+ */
+// JUnitDoclet end javadoc_class
+public class ChunkedDrawingTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private ChunkedDrawing chunkeddrawing;
+	private ChunkedStorageFormat format;
+	private File file;
+
+	/**
+	 * Creates a grid of 40 x 40 rectangles in cells of 100 x 100 with
+	 * a connection between each pair of neighbours in a row.
+	 */
+	private static Drawing createDrawing() {
+		Drawing drawing = new StandardDrawing();
+		for (int y = 0; y < 1000; y += 25) {
+			Figure previous = null;
+			for (int x = 0; x < 1000; x += 25) {
+				Figure figure = new RectangleFigure(new Point(x, y), new Point(x + 10, y + 10));
+				drawing.add(figure);
+				if (previous != null) {
+					LineConnection connection = new LineConnection();
+					connection.startPoint(x - 15, y + 5);
+					connection.endPoint(x + 5, y + 5);
+					connection.connectStart(previous.connectorAt(x - 15, y + 5));
+					connection.connectEnd(figure.connectorAt(x + 5, y + 5));
+					connection.updateConnection();
+					drawing.add(connection);
+				}
+				previous = figure;
+			}
+		}
+		return drawing;
+	}
+
+	private static int count(FigureEnumeration fe) {
+		int count = 0;
+		while (fe.hasNextFigure()) {
+			fe.nextFigure();
+			count++;
+		}
+		return count;
+	}
+
+	private void draw(Rectangle clip) {
+		Graphics g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).getGraphics();
+		g.setClip(clip.x, clip.y, clip.width, clip.height);
+		chunkeddrawing.draw(g);
+		g.dispose();
+	}
+
+	private static class TestDrawingView extends StandardDrawingView {
+		private static final long serialVersionUID = -3518297340658614392L;
+
+		TestDrawingView() {
+			super(null, 50, 50);
+			// there is no editor to be notified of selection changes
+			removeFigureSelectionListener(null);
+			setSize(50, 50);
+		}
+
+		// the key listener needs an editor
+		protected KeyListener createKeyListener() {
+			return null;
+		}
+
+		void paint() {
+			Graphics g = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).getGraphics();
+			g.setClip(0, 0, getWidth(), getHeight());
+			paintComponent(g);
+			g.dispose();
+		}
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor ChunkedDrawingTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public ChunkedDrawingTest(String name) {
+		// JUnitDoclet begin method ChunkedDrawingTest
+		super(name);
+		// JUnitDoclet end method ChunkedDrawingTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public ChunkedDrawing createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		format = new ChunkedStorageFormat(100);
+		file = File.createTempFile("ChunkedDrawingTest", "");
+		file.delete();
+		file = new File(format.store(file.getPath(), createDrawing()));
+		return (ChunkedDrawing)format.restore(file.getPath());
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		chunkeddrawing = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		chunkeddrawing.release();
+		chunkeddrawing = null;
+		file.delete();
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method draw()
+	/**
+	 * Method testDraw is testing draw
+	 * @see org.jhotdraw.standard.ChunkedDrawing#draw(java.awt.Graphics)
+	 */
+	// JUnitDoclet end javadoc_method draw()
+	public void testDraw() throws Exception {
+		// JUnitDoclet begin method draw
+		assertEquals(100, chunkeddrawing.getChunkCount());
+		draw(new Rectangle(0, 0, 50, 50));
+		int loaded = chunkeddrawing.getLoadedChunkCount();
+		assertTrue(loaded > 0);
+		assertTrue(loaded < 100);
+
+		// unused chunks are removed when too many figures are loaded
+		chunkeddrawing.loadAll();
+		Rectangle area = new Rectangle(500, 500, 35, 35);
+		int inClip = count(chunkeddrawing.figures(new Rectangle(0, 0, 35, 35)));
+		int inArea = count(chunkeddrawing.figures(area));
+		Figure observed = chunkeddrawing.figures(new Rectangle(900, 900, 10, 10)).nextFigure();
+		HandleIndex selection = new HandleIndex();
+		selection.add(observed);
+		// the connections join the chunks of a row to a group
+		chunkeddrawing.setMaxLoadedFigures(700);
+		draw(new Rectangle(0, 0, 50, 50));
+		assertTrue(chunkeddrawing.figureCount() <= 700);
+		// the figures in the clip and observed figures are kept
+		assertEquals(inClip, count(chunkeddrawing.figures(new Rectangle(0, 0, 35, 35))));
+		assertTrue(chunkeddrawing.containsFigure(observed));
+		selection.clear();
+
+		// removed chunks are read again when they are needed
+		chunkeddrawing.setMaxLoadedFigures(ChunkedDrawing.DEFAULT_MAX_LOADED_FIGURES);
+		int before = chunkeddrawing.figureCount();
+		assertEquals(inArea, count(chunkeddrawing.figures(area)));
+		assertTrue(chunkeddrawing.figureCount() > before);
+		chunkeddrawing.loadAll();
+		assertEquals(40 * 40 + 40 * 39, chunkeddrawing.figureCount());
+		// JUnitDoclet end method draw
+	}
+
+	// JUnitDoclet begin javadoc_method figures()
+	/**
+	 * Method testFigures is testing figures
+	 * @see org.jhotdraw.standard.ChunkedDrawing#figures(java.awt.Rectangle)
+	 */
+	// JUnitDoclet end javadoc_method figures()
+	public void testFigures() throws Exception {
+		// JUnitDoclet begin method figures
+		// a view draws through figures(Rectangle) with its default update strategy
+		TestDrawingView view = new TestDrawingView();
+		chunkeddrawing.setPrefetchMargin(0);
+		view.setDrawing(chunkeddrawing);
+		view.paint();
+		// the connections join the chunks of a row to a group
+		assertEquals(10, chunkeddrawing.getLoadedChunkCount());
+
+		// the chunks around the view are read in advance
+		chunkeddrawing.setPrefetchMargin(100);
+		view.paint();
+		assertEquals(20, chunkeddrawing.getLoadedChunkCount());
+
+		// unused chunks are removed when the view is painted
+		chunkeddrawing.loadAll();
+		chunkeddrawing.setPrefetchMargin(0);
+		int inView = count(chunkeddrawing.figures(new Rectangle(0, 0, 50, 50)));
+		chunkeddrawing.setMaxLoadedFigures(700);
+		view.paint();
+		assertTrue(chunkeddrawing.figureCount() <= 700);
+		assertTrue(chunkeddrawing.getLoadedChunkCount() < 100);
+		assertEquals(inView, count(chunkeddrawing.figures(new Rectangle(0, 0, 50, 50))));
+		view.setDrawing(new StandardDrawing());
+		// JUnitDoclet end method figures
+	}
+
+	// JUnitDoclet begin javadoc_method add()
+	/**
+	 * Method testAdd is testing add
+	 * @see org.jhotdraw.standard.ChunkedDrawing#add(org.jhotdraw.framework.Figure)
+	 */
+	// JUnitDoclet end javadoc_method add()
+	public void testAdd() throws Exception {
+		// JUnitDoclet begin method add
+		// the figure is added to the chunk of its cell, which is read first
+		Figure figure = new RectangleFigure(new Point(510, 510), new Point(520, 520));
+		chunkeddrawing.add(figure);
+		assertEquals(10, chunkeddrawing.getLoadedChunkCount());
+		assertEquals(2, count(chunkeddrawing.figures(new Rectangle(505, 505, 10, 2))));
+		// the figure is in front of the stored figures
+		assertTrue(figure.getZValue() > chunkeddrawing.figures(new Rectangle(500, 500, 5, 5)).nextFigure().getZValue());
+
+		// figures outside of the stored cells get a new chunk
+		chunkeddrawing.add(new RectangleFigure(new Point(-500, -500), new Point(-490, -490)));
+		assertEquals(101, chunkeddrawing.getChunkCount());
+
+		format.store(file.getPath(), chunkeddrawing);
+		ChunkedDrawing restored = (ChunkedDrawing)format.restore(file.getPath());
+		try {
+			restored.loadAll();
+			assertEquals(40 * 40 + 40 * 39 + 2, restored.figureCount());
+			assertEquals(new Rectangle(-500, -500, 1485, 1485), restored.displayBox());
+		}
+		finally {
+			restored.release();
+		}
+		// JUnitDoclet end method add
+	}
+
+	// JUnitDoclet begin javadoc_method removeAll()
+	/**
+	 * Method testRemoveAll is testing removeAll
+	 * @see org.jhotdraw.standard.ChunkedDrawing#removeAll()
+	 */
+	// JUnitDoclet end javadoc_method removeAll()
+	public void testRemoveAll() throws Exception {
+		// JUnitDoclet begin method removeAll
+		chunkeddrawing.figures(new Rectangle(0, 0, 50, 50));
+		chunkeddrawing.removeAll();
+		assertEquals(0, chunkeddrawing.figureCount());
+		// the chunks which haven't been read are removed as well
+		chunkeddrawing.loadAll();
+		assertEquals(0, chunkeddrawing.figureCount());
+
+		format.store(file.getPath(), chunkeddrawing);
+		ChunkedDrawing restored = (ChunkedDrawing)format.restore(file.getPath());
+		try {
+			restored.loadAll();
+			assertEquals(0, restored.figureCount());
+		}
+		finally {
+			restored.release();
+		}
+		// JUnitDoclet end method removeAll
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
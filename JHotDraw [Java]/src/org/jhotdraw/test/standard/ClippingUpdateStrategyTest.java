@@ -0,0 +1,165 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.ClippingUpdateStrategy;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferedImage;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.standard.StandardDrawing;
+import org.jhotdraw.standard.StandardDrawingView;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase ClippingUpdateStrategyTest is generated by
+ * JUnitDoclet to hold the tests for ClippingUpdateStrategy.
+ * @see org.jhotdraw.standard.ClippingUpdateStrategy
+ */
+// JUnitDoclet end javadoc_class
+public class ClippingUpdateStrategyTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private ClippingUpdateStrategy clippingupdatestrategy;
+
+	private static class CountingFigure extends RectangleFigure {
+		private static final long serialVersionUID = -4090076415174613395L;
+
+		int drawCount;
+
+		CountingFigure(int x, int y) {
+			super(new Point(x, y), new Point(x + 10, y + 10));
+		}
+
+		public void draw(Graphics g) {
+			drawCount++;
+			super.draw(g);
+		}
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor ClippingUpdateStrategyTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public ClippingUpdateStrategyTest(String name) {
+		// JUnitDoclet begin method ClippingUpdateStrategyTest
+		super(name);
+		// JUnitDoclet end method ClippingUpdateStrategyTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public ClippingUpdateStrategy createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new ClippingUpdateStrategy();
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		clippingupdatestrategy = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		clippingupdatestrategy = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method draw()
+	/**
+	 * Method testDraw is testing draw
+	 * @see org.jhotdraw.standard.ClippingUpdateStrategy#draw(java.awt.Graphics, org.jhotdraw.framework.DrawingView)
+	 */
+	// JUnitDoclet end javadoc_method draw()
+	public void testDraw() throws Exception {
+		// JUnitDoclet begin method draw
+		Drawing drawing = new StandardDrawing();
+		CountingFigure inside = new CountingFigure(10, 10);
+		CountingFigure close = new CountingFigure(52, 10);
+		CountingFigure outside = new CountingFigure(200, 200);
+		drawing.add(inside);
+		drawing.add(close);
+		drawing.add(outside);
+
+		// a view without editor, so no key commands can be created
+		StandardDrawingView view = new StandardDrawingView(null, 300, 300) {
+			protected KeyListener createKeyListener() {
+				return null;
+			}
+		};
+		view.setDrawing(drawing);
+		view.setDisplayUpdate(clippingupdatestrategy);
+
+		BufferedImage image = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+		Graphics g = image.getGraphics();
+		g.setClip(0, 0, 50, 50);
+		clippingupdatestrategy.draw(g, view);
+		assertEquals(1, inside.drawCount);
+		assertEquals(1, close.drawCount);
+		assertEquals(0, outside.drawCount);
+
+		// without a clip area everything is drawn
+		g.setClip(null);
+		clippingupdatestrategy.draw(g, view);
+		assertEquals(2, inside.drawCount);
+		assertEquals(1, outside.drawCount);
+		g.dispose();
+		// JUnitDoclet end method draw
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
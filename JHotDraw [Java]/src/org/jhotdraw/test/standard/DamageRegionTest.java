@@ -0,0 +1,181 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.DamageRegion;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import java.awt.Rectangle;
+import java.util.List;
+import java.util.Random;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase DamageRegionTest is generated by
+ * JUnitDoclet to hold the tests for DamageRegion.
+ * @see org.jhotdraw.standard.DamageRegion
+ */
+// JUnitDoclet end javadoc_class
+public class DamageRegionTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private DamageRegion damageregion;
+
+	private void assertDisjoint(List<Rectangle> rectangles) {
+		for (int i = 0; i < rectangles.size(); i++) {
+			for (int j = i + 1; j < rectangles.size(); j++) {
+				assertFalse(rectangles.get(i).intersects(rectangles.get(j)));
+			}
+		}
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor DamageRegionTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public DamageRegionTest(String name) {
+		// JUnitDoclet begin method DamageRegionTest
+		super(name);
+		// JUnitDoclet end method DamageRegionTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public DamageRegion createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new DamageRegion(4);
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		damageregion = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		damageregion = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method add()
+	/**
+	 * Method testAdd is testing add
+	 * @see org.jhotdraw.standard.DamageRegion#add(java.awt.Rectangle)
+	 */
+	// JUnitDoclet end javadoc_method add()
+	public void testAdd() throws Exception {
+		// JUnitDoclet begin method add
+		assertTrue(damageregion.isEmpty());
+		assertNull(damageregion.getBounds());
+		damageregion.add(null);
+		damageregion.add(new Rectangle(5, 5, 0, 0));
+		assertTrue(damageregion.isEmpty());
+
+		// distant rectangles are kept apart
+		damageregion.add(new Rectangle(0, 0, 10, 10));
+		damageregion.add(new Rectangle(1000, 1000, 10, 10));
+		assertEquals(2, damageregion.getRectangles().size());
+		assertEquals(new Rectangle(0, 0, 1010, 1010), damageregion.getBounds());
+
+		// overlapping rectangles are merged
+		damageregion.add(new Rectangle(5, 5, 10, 10));
+		List<Rectangle> rectangles = damageregion.getRectangles();
+		assertEquals(2, rectangles.size());
+		assertTrue(rectangles.contains(new Rectangle(0, 0, 15, 15)));
+
+		// covered rectangles don't change the region
+		damageregion.add(new Rectangle(2, 2, 5, 5));
+		assertEquals(rectangles, damageregion.getRectangles());
+
+		// adjacent rectangles are merged as their union doesn't waste any area
+		damageregion.add(new Rectangle(1010, 1000, 10, 10));
+		assertTrue(damageregion.getRectangles().contains(new Rectangle(1000, 1000, 20, 10)));
+		assertEquals(2, damageregion.getRectangles().size());
+
+		damageregion.clear();
+		assertTrue(damageregion.isEmpty());
+		// JUnitDoclet end method add
+	}
+
+	// JUnitDoclet begin javadoc_method getRectangles()
+	/**
+	 * Method testGetRectangles is testing getRectangles
+	 * @see org.jhotdraw.standard.DamageRegion#getRectangles()
+	 */
+	// JUnitDoclet end javadoc_method getRectangles()
+	public void testGetRectangles() throws Exception {
+		// JUnitDoclet begin method getRectangles
+		Random random = new Random(4711);
+		Rectangle bounds = null;
+		for (int i = 0; i < 200; i++) {
+			Rectangle r = new Rectangle(random.nextInt(2000), random.nextInt(2000),
+				1 + random.nextInt(50), 1 + random.nextInt(50));
+			damageregion.add(r);
+			bounds = (bounds == null) ? new Rectangle(r) : bounds.union(r);
+
+			List<Rectangle> rectangles = damageregion.getRectangles();
+			assertTrue(rectangles.size() <= damageregion.getMaxRectangles());
+			assertDisjoint(rectangles);
+			// all damage is still covered
+			boolean covered = false;
+			for (int j = 0; j < rectangles.size(); j++) {
+				covered |= rectangles.get(j).contains(r);
+			}
+			assertTrue(covered);
+		}
+		assertEquals(bounds, damageregion.getBounds());
+		// JUnitDoclet end method getRectangles
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
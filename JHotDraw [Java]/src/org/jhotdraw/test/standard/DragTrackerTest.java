@@ -0,0 +1,302 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.DragTracker;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.DrawingEditor;
+import org.jhotdraw.framework.DrawingView;
+import org.jhotdraw.framework.Painter;
+import org.jhotdraw.framework.Tool;
+import org.jhotdraw.framework.ViewChangeListener;
+import org.jhotdraw.standard.StandardDrawing;
+import org.jhotdraw.standard.StandardDrawingView;
+import org.jhotdraw.util.UndoManager;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase DragTrackerTest is generated by
+ * JUnitDoclet to hold the tests for DragTracker.
+ * @see org.jhotdraw.standard.DragTracker
+ */
+// JUnitDoclet end javadoc_class
+public class DragTrackerTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private DragTracker dragtracker;
+	private TestDrawingView view;
+	private List<CountingFigure> figures;
+
+	/**
+	 * Counts how often it is moved.
+	 */
+	private static class CountingFigure extends RectangleFigure {
+		private static final long serialVersionUID = -2199725618408776855L;
+
+		int moveCount;
+
+		CountingFigure(int x, int y) {
+			super(new Point(x, y), new Point(x + 10, y + 10));
+		}
+
+		protected void basicMoveBy(int x, int y) {
+			moveCount++;
+			super.basicMoveBy(x, y);
+		}
+	}
+
+	private static class TestDrawingView extends StandardDrawingView {
+		private static final long serialVersionUID = -5925051293726615717L;
+
+		TestDrawingView(DrawingEditor editor) {
+			super(editor, 400, 400);
+		}
+
+		public List<Painter> getForegrounds() {
+			return super.getForegrounds();
+		}
+	}
+
+	/**
+	 * An editor with a single view and no user interface.
+	 */
+	private static class TestEditor implements DrawingEditor {
+		DrawingView fView;
+		UndoManager fUndoManager = new UndoManager();
+
+		public DrawingView view() {
+			return fView;
+		}
+
+		public DrawingView[] views() {
+			return new DrawingView[] { fView };
+		}
+
+		public Tool tool() {
+			return null;
+		}
+
+		public void toolDone() {
+		}
+
+		public void figureSelectionChanged(DrawingView view) {
+		}
+
+		public void addViewChangeListener(ViewChangeListener vsl) {
+		}
+
+		public void removeViewChangeListener(ViewChangeListener vsl) {
+		}
+
+		public void showStatus(String string) {
+		}
+
+		public UndoManager getUndoManager() {
+			return fUndoManager;
+		}
+	}
+
+	private MouseEvent event(int id, int x, int y) {
+		return new MouseEvent(view, id, 0, 0, x, y, 1, false);
+	}
+
+	/**
+	 * Drags the selection from (5, 5) over (25, 15) to (45, 25).
+	 */
+	private void drag() {
+		dragtracker.mouseDown(event(MouseEvent.MOUSE_PRESSED, 5, 5), 5, 5);
+		dragtracker.mouseDrag(event(MouseEvent.MOUSE_DRAGGED, 25, 15), 25, 15);
+		dragtracker.mouseDrag(event(MouseEvent.MOUSE_DRAGGED, 45, 25), 45, 25);
+	}
+
+	private boolean hasSprite() {
+		return (view.getForegrounds() != null) && !view.getForegrounds().isEmpty();
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor DragTrackerTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public DragTrackerTest(String name) {
+		// JUnitDoclet begin method DragTrackerTest
+		super(name);
+		// JUnitDoclet end method DragTrackerTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public DragTracker createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		TestEditor editor = new TestEditor();
+		view = new TestDrawingView(editor);
+		editor.fView = view;
+		StandardDrawing drawing = new StandardDrawing();
+		figures = new ArrayList<CountingFigure>();
+		for (int i = 0; i < 5; i++) {
+			figures.add((CountingFigure)drawing.add(new CountingFigure(i * 20, 0)));
+		}
+		view.setDrawing(drawing);
+		for (int i = 0; i < figures.size(); i++) {
+			view.addToSelection(figures.get(i));
+		}
+		return new DragTracker(editor, figures.get(0));
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		dragtracker = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		dragtracker = null;
+		view = null;
+		figures = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method setSpriteThreshold()
+	/**
+	 * Method testSetSpriteThreshold is testing setSpriteThreshold
+	 * @see org.jhotdraw.standard.DragTracker#setSpriteThreshold(int)
+	 */
+	// JUnitDoclet end javadoc_method setSpriteThreshold()
+	public void testSetSpriteThreshold() throws Exception {
+		// JUnitDoclet begin method setSpriteThreshold
+		assertEquals(DragTracker.DEFAULT_SPRITE_THRESHOLD, dragtracker.getSpriteThreshold());
+
+		// smaller selections are moved live with every drag
+		drag();
+		assertFalse(dragtracker.isDraggingSprite());
+		assertFalse(hasSprite());
+		assertEquals(2, figures.get(0).moveCount);
+		assertEquals(new Point(40, 20), figures.get(0).displayBox().getLocation());
+		dragtracker.mouseUp(event(MouseEvent.MOUSE_RELEASED, 45, 25), 45, 25);
+		assertEquals(2, figures.get(0).moveCount);
+
+		// selections too large for a sprite are moved live as well
+		dragtracker = createInstance();
+		dragtracker.setSpriteThreshold(5);
+		CountingFigure large = (CountingFigure)view.drawing().add(new CountingFigure(0, 0));
+		large.displayBox(new Point(0, 0), new Point(5000, 5000));
+		view.addToSelection(large);
+		drag();
+		assertFalse(dragtracker.isDraggingSprite());
+		assertEquals(2, figures.get(0).moveCount);
+		dragtracker.mouseUp(event(MouseEvent.MOUSE_RELEASED, 45, 25), 45, 25);
+		// JUnitDoclet end method setSpriteThreshold
+	}
+
+	// JUnitDoclet begin javadoc_method mouseUp()
+	/**
+	 * Method testMouseUp is testing mouseUp
+	 * @see org.jhotdraw.standard.DragTracker#mouseUp(java.awt.event.MouseEvent, int, int)
+	 */
+	// JUnitDoclet end javadoc_method mouseUp()
+	public void testMouseUp() throws Exception {
+		// JUnitDoclet begin method mouseUp
+		dragtracker.setSpriteThreshold(5);
+		drag();
+		// only the sprite follows the mouse
+		assertTrue(dragtracker.isDraggingSprite());
+		assertTrue(hasSprite());
+		assertEquals(0, figures.get(0).moveCount);
+		assertEquals(new Point(0, 0), figures.get(0).displayBox().getLocation());
+
+		// the figures are moved once when the mouse is released
+		dragtracker.mouseUp(event(MouseEvent.MOUSE_RELEASED, 45, 25), 45, 25);
+		assertFalse(dragtracker.isDraggingSprite());
+		assertFalse(hasSprite());
+		for (int i = 0; i < figures.size(); i++) {
+			assertEquals(1, figures.get(i).moveCount);
+			assertEquals(new Rectangle(i * 20 + 40, 20, 10, 10), figures.get(i).displayBox());
+		}
+
+		// undo moves the figures back by the whole offset
+		dragtracker.deactivate();
+		assertTrue(dragtracker.getUndoActivity().undo());
+		for (int i = 0; i < figures.size(); i++) {
+			assertEquals(new Rectangle(i * 20, 0, 10, 10), figures.get(i).displayBox());
+		}
+		// JUnitDoclet end method mouseUp
+	}
+
+	// JUnitDoclet begin javadoc_method deactivate()
+	/**
+	 * Method testDeactivate is testing deactivate
+	 * @see org.jhotdraw.standard.DragTracker#deactivate()
+	 */
+	// JUnitDoclet end javadoc_method deactivate()
+	public void testDeactivate() throws Exception {
+		// JUnitDoclet begin method deactivate
+		dragtracker.setSpriteThreshold(5);
+		drag();
+		assertTrue(hasSprite());
+
+		// the sprite is removed even if the mouse is not released
+		dragtracker.deactivate();
+		assertFalse(dragtracker.isDraggingSprite());
+		assertFalse(hasSprite());
+		assertEquals(0, figures.get(0).moveCount);
+		// JUnitDoclet end method deactivate
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
@@ -0,0 +1,245 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.FigureChangeListenerList;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.FigureChangeEvent;
+import org.jhotdraw.framework.FigureChangeListener;
+import org.jhotdraw.standard.AbstractFigure;
+import java.awt.Point;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase FigureChangeListenerListTest is generated by
+ * JUnitDoclet to hold the tests for FigureChangeListenerList.
+ * @see org.jhotdraw.standard.FigureChangeListenerList
+ */
+// JUnitDoclet end javadoc_class
+public class FigureChangeListenerListTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private FigureChangeListener figurechangelistener;
+
+	/**
+	 * Counts the events it receives and optionally removes itself
+	 * from the figure when it is notified.
+	 */
+	private static class CountingListener implements FigureChangeListener {
+		int fChanged;
+		boolean fRemoveSelf;
+
+		public void figureInvalidated(FigureChangeEvent e) {
+		}
+
+		public void figureChanged(FigureChangeEvent e) {
+			fChanged++;
+			if (fRemoveSelf) {
+				e.getFigure().removeFigureChangeListener(this);
+			}
+		}
+
+		public void figureRemoved(FigureChangeEvent e) {
+		}
+
+		public void figureRequestRemove(FigureChangeEvent e) {
+		}
+
+		public void figureRequestUpdate(FigureChangeEvent e) {
+		}
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor FigureChangeListenerListTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public FigureChangeListenerListTest(String name) {
+		// JUnitDoclet begin method FigureChangeListenerListTest
+		super(name);
+		// JUnitDoclet end method FigureChangeListenerListTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public FigureChangeListener createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return null;
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		figurechangelistener = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		figurechangelistener = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method add()
+	/**
+	 * Method testAdd is testing add
+	 * @see org.jhotdraw.standard.FigureChangeListenerList#add(org.jhotdraw.framework.FigureChangeListener, org.jhotdraw.framework.FigureChangeListener)
+	 */
+	// JUnitDoclet end javadoc_method add()
+	public void testAdd() throws Exception {
+		// JUnitDoclet begin method add
+		CountingListener[] listeners = new CountingListener[10];
+		for (int i = 0; i < listeners.length; i++) {
+			listeners[i] = new CountingListener();
+		}
+		// a single listener is not wrapped
+		figurechangelistener = FigureChangeListenerList.add(figurechangelistener, null);
+		assertNull(figurechangelistener);
+		figurechangelistener = FigureChangeListenerList.add(figurechangelistener, listeners[0]);
+		assertSame(listeners[0], figurechangelistener);
+
+		FigureChangeListener previous = figurechangelistener;
+		for (int i = 1; i < listeners.length; i++) {
+			figurechangelistener = FigureChangeListenerList.add(figurechangelistener, listeners[i]);
+			FigureChangeListenerList list = (FigureChangeListenerList)figurechangelistener;
+			assertEquals(i + 1, list.size());
+			assertSame(listeners[i], list.get(i));
+			// earlier lists don't see the added listener
+			if (previous instanceof FigureChangeListenerList) {
+				assertEquals(i, ((FigureChangeListenerList)previous).size());
+			}
+			previous = figurechangelistener;
+		}
+
+		figurechangelistener.figureChanged(new FigureChangeEvent(new RectangleFigure()));
+		for (int i = 0; i < listeners.length; i++) {
+			assertEquals(1, listeners[i].fChanged);
+		}
+		// JUnitDoclet end method add
+	}
+
+	// JUnitDoclet begin javadoc_method remove()
+	/**
+	 * Method testRemove is testing remove
+	 * @see org.jhotdraw.standard.FigureChangeListenerList#remove(org.jhotdraw.framework.FigureChangeListener, org.jhotdraw.framework.FigureChangeListener)
+	 */
+	// JUnitDoclet end javadoc_method remove()
+	public void testRemove() throws Exception {
+		// JUnitDoclet begin method remove
+		CountingListener a = new CountingListener();
+		CountingListener b = new CountingListener();
+		CountingListener c = new CountingListener();
+		figurechangelistener = FigureChangeListenerList.add(figurechangelistener, a);
+		figurechangelistener = FigureChangeListenerList.add(figurechangelistener, b);
+		figurechangelistener = FigureChangeListenerList.add(figurechangelistener, c);
+		FigureChangeListener all = figurechangelistener;
+
+		// removing an unknown listener doesn't change anything
+		assertSame(all, FigureChangeListenerList.remove(all, new CountingListener()));
+
+		figurechangelistener = FigureChangeListenerList.remove(figurechangelistener, b);
+		FigureChangeListenerList list = (FigureChangeListenerList)figurechangelistener;
+		assertEquals(2, list.size());
+		assertSame(a, list.get(0));
+		assertSame(c, list.get(1));
+		// the list the listener was removed from is unchanged
+		assertEquals(3, ((FigureChangeListenerList)all).size());
+
+		// adding to a list with a removed successor doesn't affect the successor
+		FigureChangeListener other = FigureChangeListenerList.add(all, new CountingListener());
+		assertEquals(4, ((FigureChangeListenerList)other).size());
+		assertEquals(3, ((FigureChangeListenerList)all).size());
+
+		figurechangelistener = FigureChangeListenerList.remove(figurechangelistener, a);
+		assertSame(c, figurechangelistener);
+		figurechangelistener = FigureChangeListenerList.remove(figurechangelistener, c);
+		assertNull(figurechangelistener);
+		// JUnitDoclet end method remove
+	}
+
+	// JUnitDoclet begin javadoc_method figureChanged()
+	/**
+	 * Method testFigureChanged is testing figureChanged
+	 * @see org.jhotdraw.standard.FigureChangeListenerList#figureChanged(org.jhotdraw.framework.FigureChangeEvent)
+	 */
+	// JUnitDoclet end javadoc_method figureChanged()
+	public void testFigureChanged() throws Exception {
+		// JUnitDoclet begin method figureChanged
+		AbstractFigure figure = new RectangleFigure(new Point(0, 0), new Point(10, 10));
+		CountingListener a = new CountingListener();
+		CountingListener b = new CountingListener();
+		CountingListener c = new CountingListener();
+		figure.addFigureChangeListener(a);
+		figure.addFigureChangeListener(b);
+		figure.addFigureChangeListener(c);
+
+		// a listener removing itself during dispatch doesn't affect the others
+		b.fRemoveSelf = true;
+		figure.changed();
+		assertEquals(1, a.fChanged);
+		assertEquals(1, b.fChanged);
+		assertEquals(1, c.fChanged);
+
+		figure.changed();
+		assertEquals(2, a.fChanged);
+		assertEquals(1, b.fChanged);
+		assertEquals(2, c.fChanged);
+
+		figure.removeFigureChangeListener(a);
+		assertSame(c, figure.listener());
+		figure.removeFigureChangeListener(c);
+		assertNull(figure.listener());
+		// JUnitDoclet end method figureChanged
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
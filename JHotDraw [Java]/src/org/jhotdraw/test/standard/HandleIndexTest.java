@@ -0,0 +1,181 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.HandleIndex;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.List;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.Handle;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase HandleIndexTest is generated by
+ * JUnitDoclet to hold the tests for HandleIndex.
+ * @see org.jhotdraw.standard.HandleIndex
+ */
+// JUnitDoclet end javadoc_class
+public class HandleIndexTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private HandleIndex handleindex;
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor HandleIndexTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public HandleIndexTest(String name) {
+		// JUnitDoclet begin method HandleIndexTest
+		super(name);
+		// JUnitDoclet end method HandleIndexTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public HandleIndex createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new HandleIndex(32);
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		handleindex = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		handleindex = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method findHandle()
+	/**
+	 * Method testFindHandle is testing findHandle
+	 * @see org.jhotdraw.standard.HandleIndex#findHandle(int, int)
+	 */
+	// JUnitDoclet end javadoc_method findHandle()
+	public void testFindHandle() throws Exception {
+		// JUnitDoclet begin method findHandle
+		Figure figure = new RectangleFigure(new Point(-50, -50), new Point(50, 50));
+		handleindex.add(figure);
+		Handle handle = handleindex.findHandle(-50, -50);
+		assertNotNull(handle);
+		assertSame(figure, handle.owner());
+		assertTrue(handle.containsPoint(-50, -50));
+		assertNull(handleindex.findHandle(0, 0));
+
+		// handles are reused until the figure changes
+		assertSame(handle, handleindex.findHandle(-50, -50));
+		figure.moveBy(200, 0);
+		assertNull(handleindex.findHandle(-50, -50));
+		assertTrue(handleindex.findHandle(150, -50).containsPoint(150, -50));
+
+		handleindex.remove(figure);
+		assertNull(handleindex.findHandle(150, -50));
+		assertEquals(0, handleindex.size());
+		// the index doesn't listen to removed figures anymore
+		assertNull(figure.listener());
+
+		// overlapping handles are found in the order the figures were added
+		// even if the first figure changed after the second one
+		Figure first = new RectangleFigure(new Point(0, 0), new Point(20, 20));
+		Figure second = new RectangleFigure(new Point(1, 1), new Point(21, 21));
+		handleindex.add(first);
+		handleindex.add(second);
+		assertSame(first, handleindex.findHandle(0, 0).owner());
+		first.moveBy(1, 1);
+		assertSame(first, handleindex.findHandle(1, 1).owner());
+		handleindex.remove(first);
+		assertSame(second, handleindex.findHandle(1, 1).owner());
+		handleindex.add(first);
+		assertSame(second, handleindex.findHandle(1, 1).owner());
+		// JUnitDoclet end method findHandle
+	}
+
+	// JUnitDoclet begin javadoc_method getHandles()
+	/**
+	 * Method testGetHandles is testing getHandles
+	 * @see org.jhotdraw.standard.HandleIndex#getHandles(java.awt.Rectangle)
+	 */
+	// JUnitDoclet end javadoc_method getHandles()
+	public void testGetHandles() throws Exception {
+		// JUnitDoclet begin method getHandles
+		for (int i = 0; i < 10; i++) {
+			handleindex.add(new RectangleFigure(new Point(i * 100, 0), new Point(i * 100 + 20, 20)));
+		}
+		assertEquals(10, handleindex.size());
+		List<Handle> all = handleindex.getHandles();
+		assertEquals(80, all.size());
+
+		Rectangle r = new Rectangle(95, -5, 30, 30);
+		List<Handle> found = handleindex.getHandles(r);
+		assertEquals(8, found.size());
+		for (int i = 0; i < all.size(); i++) {
+			Handle handle = all.get(i);
+			assertEquals(r.intersects(handle.displayBox()), found.contains(handle));
+		}
+		// a rectangle covering all cells finds all handles
+		assertEquals(80, handleindex.getHandles(new Rectangle(-100, -100, 1200, 200)).size());
+
+		handleindex.clear();
+		assertTrue(handleindex.getHandles().isEmpty());
+		assertTrue(handleindex.getHandles(r).isEmpty());
+		// JUnitDoclet end method getHandles
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
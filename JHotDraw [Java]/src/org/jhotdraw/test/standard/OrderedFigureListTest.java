@@ -0,0 +1,265 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.OrderedFigureList;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.Figure;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase OrderedFigureListTest is generated by
+ * JUnitDoclet to hold the tests for OrderedFigureList.
+ * @see org.jhotdraw.standard.OrderedFigureList
+ */
+// JUnitDoclet end javadoc_class
+public class OrderedFigureListTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private OrderedFigureList orderedfigurelist;
+	private List<Figure> expected;
+	private Random random;
+
+	private void assertSameOrder() {
+		assertEquals(expected.size(), orderedfigurelist.size());
+		Iterator<Figure> iter = orderedfigurelist.iterator();
+		for (int i = 0; i < expected.size(); i++) {
+			assertSame(expected.get(i), iter.next());
+			assertSame(expected.get(i), orderedfigurelist.get(i));
+			assertEquals(i, orderedfigurelist.indexOf(expected.get(i)));
+		}
+		assertFalse(iter.hasNext());
+		Iterator<Figure> reverse = orderedfigurelist.reverseIterator();
+		for (int i = expected.size() - 1; i >= 0; i--) {
+			assertSame(expected.get(i), reverse.next());
+		}
+		assertFalse(reverse.hasNext());
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor OrderedFigureListTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public OrderedFigureListTest(String name) {
+		// JUnitDoclet begin method OrderedFigureListTest
+		super(name);
+		// JUnitDoclet end method OrderedFigureListTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public OrderedFigureList createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new OrderedFigureList();
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		orderedfigurelist = createInstance();
+		expected = new ArrayList<Figure>();
+		random = new Random(4711);
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		orderedfigurelist = null;
+		expected = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method add()
+	/**
+	 * Method testAdd is testing add
+	 * @see org.jhotdraw.standard.OrderedFigureList#add(int, org.jhotdraw.framework.Figure)
+	 */
+	// JUnitDoclet end javadoc_method add()
+	public void testAdd() throws Exception {
+		// JUnitDoclet begin method add
+		for (int i = 0; i < 500; i++) {
+			Figure figure = new RectangleFigure();
+			int index = random.nextInt(expected.size() + 1);
+			expected.add(index, figure);
+			orderedfigurelist.add(index, figure);
+			assertTrue(orderedfigurelist.contains(figure));
+		}
+		assertSameOrder();
+
+		try {
+			orderedfigurelist.add(expected.get(0));
+			fail("figures must not be added twice");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+		// JUnitDoclet end method add
+	}
+
+	// JUnitDoclet begin javadoc_method remove()
+	/**
+	 * Method testRemove is testing remove
+	 * @see org.jhotdraw.standard.OrderedFigureList#remove(java.lang.Object)
+	 */
+	// JUnitDoclet end javadoc_method remove()
+	public void testRemove() throws Exception {
+		// JUnitDoclet begin method remove
+		for (int i = 0; i < 500; i++) {
+			Figure figure = new RectangleFigure();
+			expected.add(figure);
+			orderedfigurelist.add(figure);
+		}
+		for (int i = 0; i < 200; i++) {
+			Figure figure = expected.remove(random.nextInt(expected.size()));
+			assertTrue(orderedfigurelist.remove(figure));
+			assertFalse(orderedfigurelist.contains(figure));
+			assertEquals(-1, orderedfigurelist.indexOf(figure));
+		}
+		for (int i = 0; i < 100; i++) {
+			int index = random.nextInt(expected.size());
+			assertSame(expected.remove(index), orderedfigurelist.remove(index));
+		}
+		assertSameOrder();
+
+		// move figures to the back and to the front like bringToFront/sendToBack
+		for (int i = 0; i < 100; i++) {
+			Figure figure = expected.remove(random.nextInt(expected.size()));
+			orderedfigurelist.remove(figure);
+			if (random.nextBoolean()) {
+				expected.add(0, figure);
+				orderedfigurelist.add(0, figure);
+			}
+			else {
+				expected.add(figure);
+				orderedfigurelist.add(figure);
+			}
+		}
+		assertSameOrder();
+
+		Iterator<Figure> iter = orderedfigurelist.iterator();
+		Iterator<Figure> expectedIter = expected.iterator();
+		while (iter.hasNext()) {
+			assertSame(expectedIter.next(), iter.next());
+			if (random.nextBoolean()) {
+				iter.remove();
+				expectedIter.remove();
+			}
+		}
+		assertSameOrder();
+		// JUnitDoclet end method remove
+	}
+
+	// JUnitDoclet begin javadoc_method set()
+	/**
+	 * Method testSet is testing set
+	 * @see org.jhotdraw.standard.OrderedFigureList#set(int, org.jhotdraw.framework.Figure)
+	 */
+	// JUnitDoclet end javadoc_method set()
+	public void testSet() throws Exception {
+		// JUnitDoclet begin method set
+		for (int i = 0; i < 10; i++) {
+			Figure figure = new RectangleFigure();
+			expected.add(figure);
+			orderedfigurelist.add(figure);
+		}
+		Figure replacement = new RectangleFigure();
+		Figure replaced = orderedfigurelist.set(5, replacement);
+		assertSame(expected.set(5, replacement), replaced);
+		assertFalse(orderedfigurelist.contains(replaced));
+		assertSameOrder();
+		// JUnitDoclet end method set
+	}
+
+	// JUnitDoclet begin javadoc_method snapshot()
+	/**
+	 * Method testSnapshot is testing snapshot
+	 * @see org.jhotdraw.standard.OrderedFigureList#snapshot()
+	 */
+	// JUnitDoclet end javadoc_method snapshot()
+	public void testSnapshot() throws Exception {
+		// JUnitDoclet begin method snapshot
+		for (int i = 0; i < 10; i++) {
+			Figure figure = new RectangleFigure();
+			expected.add(figure);
+			orderedfigurelist.add(figure);
+		}
+		List<Figure> snapshot = orderedfigurelist.snapshot();
+		assertEquals(expected, snapshot);
+		assertSame(snapshot, orderedfigurelist.snapshot());
+
+		// changes do not affect a snapshot taken before
+		Iterator<Figure> iter = snapshot.iterator();
+		orderedfigurelist.remove(0);
+		orderedfigurelist.set(0, new RectangleFigure());
+		for (int i = 0; i < expected.size(); i++) {
+			assertSame(expected.get(i), iter.next());
+		}
+		assertNotSame(snapshot, orderedfigurelist.snapshot());
+		assertEquals(orderedfigurelist, orderedfigurelist.snapshot());
+
+		try {
+			snapshot.set(0, new RectangleFigure());
+			fail("snapshots must not be modifiable");
+		}
+		catch (UnsupportedOperationException e) {
+			// expected
+		}
+		// JUnitDoclet end method snapshot
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
@@ -0,0 +1,245 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.RTree;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import java.awt.Point;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureEnumeration;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase RTreeTest is generated by
+ * JUnitDoclet to hold the tests for RTree.
+ * @see org.jhotdraw.standard.RTree
+ */
+// JUnitDoclet end javadoc_class
+public class RTreeTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private RTree rtree;
+	private Random random;
+	private Map<Figure, Rectangle2D> bounds;
+
+	private Figure createFigure(int x, int y, int width, int height) {
+		Figure figure = new RectangleFigure(new Point(x, y), new Point(x + width, y + height));
+		bounds.put(figure, new Rectangle2D.Double(x, y, width, height));
+		return figure;
+	}
+
+	private Figure createRandomFigure(int range) {
+		return createFigure(random.nextInt(range) - range / 2, random.nextInt(range) - range / 2,
+			1 + random.nextInt(100), 1 + random.nextInt(100));
+	}
+
+	private Set<Figure> toSet(FigureEnumeration fe) {
+		Set<Figure> result = new HashSet<Figure>();
+		while (fe.hasNextFigure()) {
+			assertTrue("duplicate figure in result", result.add(fe.nextFigure()));
+		}
+		return result;
+	}
+
+	private Set<Figure> bruteForce(Rectangle2D r) {
+		Set<Figure> result = new HashSet<Figure>();
+		for (Map.Entry<Figure, Rectangle2D> entry : bounds.entrySet()) {
+			if (entry.getValue().intersects(r)) {
+				result.add(entry.getKey());
+			}
+		}
+		return result;
+	}
+
+	private void assertQueries(int range) {
+		for (int i = 0; i < 50; i++) {
+			Rectangle2D r = new Rectangle2D.Double(random.nextInt(range) - range / 2,
+				random.nextInt(range) - range / 2, 1 + random.nextInt(range / 4), 1 + random.nextInt(range / 4));
+			assertEquals(bruteForce(r), toSet(rtree.getAllWithin(r)));
+		}
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor RTreeTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public RTreeTest(String name) {
+		// JUnitDoclet begin method RTreeTest
+		super(name);
+		// JUnitDoclet end method RTreeTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public RTree createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new RTree(4);
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		rtree = createInstance();
+		random = new Random(4711);
+		bounds = new HashMap<Figure, Rectangle2D>();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		rtree = null;
+		bounds = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method add()
+	/**
+	 * Method testAdd is testing add
+	 * @see org.jhotdraw.standard.RTree#add(org.jhotdraw.framework.Figure, java.awt.geom.Rectangle2D)
+	 */
+	// JUnitDoclet end javadoc_method add()
+	public void testAdd() throws Exception {
+		// JUnitDoclet begin method add
+		for (int i = 0; i < 1000; i++) {
+			Figure figure = createRandomFigure(100000);
+			rtree.add(figure, bounds.get(figure));
+		}
+		assertEquals(1000, rtree.size());
+		assertTrue(rtree.getHeight() > 1);
+		assertQueries(100000);
+
+		// re-adding a figure replaces its bounds
+		Figure figure = bounds.keySet().iterator().next();
+		Rectangle2D newBounds = new Rectangle2D.Double(10000000, 10000000, 10, 10);
+		bounds.put(figure, newBounds);
+		rtree.add(figure, newBounds);
+		assertEquals(1000, rtree.size());
+		assertQueries(100000);
+		assertTrue(toSet(rtree.getAllWithin(new Rectangle2D.Double(10000005, 10000005, 1, 1))).contains(figure));
+		// JUnitDoclet end method add
+	}
+
+	// JUnitDoclet begin javadoc_method load()
+	/**
+	 * Method testLoad is testing load
+	 * @see org.jhotdraw.standard.RTree#load(java.util.Map)
+	 */
+	// JUnitDoclet end javadoc_method load()
+	public void testLoad() throws Exception {
+		// JUnitDoclet begin method load
+		for (int i = 0; i < 1000; i++) {
+			createRandomFigure(10000);
+		}
+		rtree.load(bounds);
+		assertEquals(1000, rtree.size());
+		assertQueries(10000);
+
+		Figure figure = createRandomFigure(10000);
+		rtree.add(figure, bounds.get(figure));
+		assertQueries(10000);
+		// JUnitDoclet end method load
+	}
+
+	// JUnitDoclet begin javadoc_method remove()
+	/**
+	 * Method testRemove is testing remove
+	 * @see org.jhotdraw.standard.RTree#remove(java.lang.Object)
+	 */
+	// JUnitDoclet end javadoc_method remove()
+	public void testRemove() throws Exception {
+		// JUnitDoclet begin method remove
+		List<Figure> figures = new ArrayList<Figure>();
+		for (int i = 0; i < 1000; i++) {
+			Figure figure = createRandomFigure(10000);
+			rtree.add(figure, bounds.get(figure));
+			figures.add(figure);
+		}
+		for (int i = 0; i < 900; i++) {
+			Figure figure = figures.remove(random.nextInt(figures.size()));
+			assertSame(bounds.remove(figure), rtree.remove(figure));
+			assertNull(rtree.remove(figure));
+		}
+		assertEquals(100, rtree.size());
+		assertQueries(10000);
+		// JUnitDoclet end method remove
+	}
+
+	// JUnitDoclet begin javadoc_method clear()
+	/**
+	 * Method testClear is testing clear
+	 * @see org.jhotdraw.standard.RTree#clear()
+	 */
+	// JUnitDoclet end javadoc_method clear()
+	public void testClear() throws Exception {
+		// JUnitDoclet begin method clear
+		for (int i = 0; i < 100; i++) {
+			Figure figure = createRandomFigure(1000);
+			rtree.add(figure, bounds.get(figure));
+		}
+		rtree.clear();
+		assertEquals(0, rtree.size());
+		assertEquals(1, rtree.getHeight());
+		assertFalse(rtree.getAllWithin(new Rectangle2D.Double(-1000, -1000, 2000, 2000)).hasNextFigure());
+		// JUnitDoclet end method clear
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.RepaintScheduler;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import org.jhotdraw.standard.NullDrawingView;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase RepaintSchedulerTest is generated by
+ * JUnitDoclet to hold the tests for RepaintScheduler.
+ * @see org.jhotdraw.standard.RepaintScheduler
+ */
+// JUnitDoclet end javadoc_class
+public class RepaintSchedulerTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private RepaintScheduler repaintscheduler;
+
+	/**
+	 * Counts how often its damage is repaired.
+	 */
+	private static class CountingDrawingView extends NullDrawingView {
+		private static final long serialVersionUID = 5577815188417611847L;
+
+		int repairs;
+
+		CountingDrawingView() {
+			super(null);
+		}
+
+		public void repairDamage() {
+			repairs++;
+		}
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor RepaintSchedulerTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public RepaintSchedulerTest(String name) {
+		// JUnitDoclet begin method RepaintSchedulerTest
+		super(name);
+		// JUnitDoclet end method RepaintSchedulerTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public RepaintScheduler createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new RepaintScheduler(1);
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		repaintscheduler = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		repaintscheduler.paintFrame();
+		repaintscheduler = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method schedule()
+	/**
+	 * Method testSchedule is testing schedule
+	 * @see org.jhotdraw.standard.RepaintScheduler#schedule(org.jhotdraw.framework.DrawingView)
+	 */
+	// JUnitDoclet end javadoc_method schedule()
+	public void testSchedule() throws Exception {
+		// JUnitDoclet begin method schedule
+		CountingDrawingView view1 = new CountingDrawingView();
+		CountingDrawingView view2 = new CountingDrawingView();
+		// start a frame so that the next one is a second away
+		repaintscheduler.schedule(view1);
+		repaintscheduler.paintFrame();
+		assertEquals(1, view1.repairs);
+		assertFalse(repaintscheduler.isFramePending());
+
+		repaintscheduler.resetCounters();
+		repaintscheduler.schedule(view1);
+		repaintscheduler.schedule(view2);
+		repaintscheduler.schedule(view1);
+		assertTrue(repaintscheduler.isFramePending());
+		assertEquals(1, view1.repairs);
+		assertEquals(0, view2.repairs);
+
+		repaintscheduler.paintFrame();
+		assertFalse(repaintscheduler.isFramePending());
+		assertEquals(2, view1.repairs);
+		assertEquals(1, view2.repairs);
+		assertEquals(3, repaintscheduler.getEventsReceived());
+		assertEquals(2, repaintscheduler.getEventsCoalesced());
+		assertEquals(1, repaintscheduler.getFramesPainted());
+		// JUnitDoclet end method schedule
+	}
+
+	// JUnitDoclet begin javadoc_method setFrameRate()
+	/**
+	 * Method testSetGetFrameRate is testing setFrameRate
+	 * and getFrameRate together by setting some value
+	 * and verifying it by reading.
+	 * @see org.jhotdraw.standard.RepaintScheduler#setFrameRate(int)
+	 * @see org.jhotdraw.standard.RepaintScheduler#getFrameRate()
+	 */
+	// JUnitDoclet end javadoc_method setFrameRate()
+	public void testSetGetFrameRate() throws Exception {
+		// JUnitDoclet begin method setFrameRate getFrameRate
+		repaintscheduler.setFrameRate(30);
+		assertEquals(30, repaintscheduler.getFrameRate());
+
+		// without pacing each request is repaired immediately
+		repaintscheduler.setFrameRate(0);
+		CountingDrawingView view = new CountingDrawingView();
+		repaintscheduler.schedule(view);
+		repaintscheduler.schedule(view);
+		assertEquals(2, view.repairs);
+		assertFalse(repaintscheduler.isFramePending());
+		assertEquals(0, repaintscheduler.getEventsCoalesced());
+		assertEquals(2, repaintscheduler.getFramesPainted());
+
+		try {
+			repaintscheduler.setFrameRate(-1);
+			fail("IllegalArgumentException expected");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+		// JUnitDoclet end method setFrameRate getFrameRate
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
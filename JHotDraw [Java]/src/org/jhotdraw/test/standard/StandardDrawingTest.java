@@ -13,6 +13,20 @@ package org.jhotdraw.test.standard;
 import org.jhotdraw.standard.StandardDrawing;
 import junit.framework.TestCase;
 // JUnitDoclet begin import
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.jhotdraw.figures.LineFigure;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.DrawingChangeEvent;
+import org.jhotdraw.framework.DrawingChangeListener;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.standard.FigureEnumerator;
 // JUnitDoclet end import
 
 /*
@@ -147,6 +161,35 @@ extends TestCase
 	// JUnitDoclet end javadoc_method figureInvalidated()
 	public void testFigureInvalidated() throws Exception {
 		// JUnitDoclet begin method figureInvalidated
+		final List<Rectangle> invalidated = new ArrayList<Rectangle>();
+		final List<DrawingChangeEvent> events = new ArrayList<DrawingChangeEvent>();
+		for (int i = 0; i < 2; i++) {
+			standarddrawing.addDrawingChangeListener(new DrawingChangeListener() {
+				public void drawingInvalidated(DrawingChangeEvent e) {
+					// the rectangle may be reused by the figure
+					invalidated.add(new Rectangle(e.getInvalidatedRectangle()));
+					events.add(e);
+				}
+				public void drawingTitleChanged(DrawingChangeEvent e) {
+				}
+				public void drawingRequestUpdate(DrawingChangeEvent e) {
+				}
+			});
+		}
+		Figure figure = standarddrawing.add(new RectangleFigure(new Point(0, 0), new Point(10, 10)));
+		invalidated.clear();
+		events.clear();
+
+		figure.moveBy(100, 0);
+		assertEquals(4, invalidated.size());
+		// all listeners get the same event
+		assertSame(events.get(0), events.get(1));
+		assertSame(events.get(2), events.get(3));
+		// the old and the new area are invalidated including the handles
+		assertEquals(new Rectangle(-8, -8, 26, 26), invalidated.get(0));
+		assertEquals(new Rectangle(-8, -8, 26, 26), invalidated.get(1));
+		assertEquals(new Rectangle(92, -8, 26, 26), invalidated.get(2));
+		assertEquals(new Rectangle(92, -8, 26, 26), invalidated.get(3));
 		// JUnitDoclet end method figureInvalidated
 	}
 
@@ -191,6 +234,31 @@ extends TestCase
 	// JUnitDoclet end javadoc_method displayBox()
 	public void testDisplayBox() throws Exception {
 		// JUnitDoclet begin method displayBox
+		assertEquals(new Rectangle(0, 0, 0, 0), standarddrawing.displayBox());
+
+		Figure left = standarddrawing.add(new RectangleFigure(new Point(-100, 10), new Point(-50, 60)));
+		Figure right = standarddrawing.add(new RectangleFigure(new Point(200, 20), new Point(300, 80)));
+		Figure inner = standarddrawing.add(new RectangleFigure(new Point(10, 10), new Point(20, 20)));
+		assertEquals(new Rectangle(-100, 0, 400, 80), standarddrawing.displayBox());
+
+		// growing and moving figures inside the bounds
+		right.moveBy(100, 100);
+		assertEquals(new Rectangle(-100, 0, 500, 180), standarddrawing.displayBox());
+		inner.moveBy(5, 5);
+		assertEquals(new Rectangle(-100, 0, 500, 180), standarddrawing.displayBox());
+
+		// shrinking the figure that defines the border
+		right.displayBox(new Point(300, 120), new Point(310, 130));
+		assertEquals(new Rectangle(-100, 0, 410, 130), standarddrawing.displayBox());
+
+		// removing the figure that defines the border
+		standarddrawing.orphan(left);
+		assertEquals(new Rectangle(0, 0, 310, 130), standarddrawing.displayBox());
+		standarddrawing.remove(right);
+		assertEquals(new Rectangle(0, 0, 25, 25), standarddrawing.displayBox());
+
+		standarddrawing.removeAll();
+		assertEquals(new Rectangle(0, 0, 0, 0), standarddrawing.displayBox());
 		// JUnitDoclet end method displayBox
 	}
 
@@ -247,6 +315,119 @@ extends TestCase
 		// JUnitDoclet end method setTitle getTitle
 	}
 
+	// JUnitDoclet begin javadoc_method findFigure()
+	/**
+	 * Method testFindFigure is testing findFigure
+	 * @see org.jhotdraw.standard.StandardDrawing#findFigure(int, int)
+	 */
+	// JUnitDoclet end javadoc_method findFigure()
+	public void testFindFigure() throws Exception {
+		// JUnitDoclet begin method findFigure
+		Figure back = standarddrawing.add(new RectangleFigure(new Point(0, 0), new Point(100, 100)));
+		Figure front = standarddrawing.add(new RectangleFigure(new Point(50, 50), new Point(150, 150)));
+		Figure far = standarddrawing.add(new RectangleFigure(new Point(100000, 100000), new Point(100010, 100010)));
+		LineFigure line = new LineFigure();
+		line.startPoint(200, 200);
+		line.endPoint(300, 200);
+		standarddrawing.add(line);
+
+		assertSame(back, standarddrawing.findFigure(10, 10));
+		assertSame(front, standarddrawing.findFigure(75, 75));
+		assertSame(far, standarddrawing.findFigure(100005, 100005));
+		assertSame(line, standarddrawing.findFigure(250, 201));
+		assertNull(standarddrawing.findFigure(500, 500));
+
+		standarddrawing.bringToFront(back);
+		assertSame(back, standarddrawing.findFigure(75, 75));
+		assertSame(front, standarddrawing.findFigureWithout(75, 75, back));
+		assertSame(back, standarddrawing.findFigureInside(75, 75));
+		assertSame(back, standarddrawing.findFigure(new Rectangle(60, 60, 10, 10)));
+		assertSame(front, standarddrawing.findFigure(new Rectangle(60, 60, 10, 10), back));
+
+		far.moveBy(-99900, -99900);
+		assertSame(far, standarddrawing.findFigure(105, 105));
+		assertNull(standarddrawing.findFigure(100005, 100005));
+
+		standarddrawing.orphan(back);
+		assertSame(front, standarddrawing.findFigure(75, 75));
+		assertNull(standarddrawing.findFigure(10, 10));
+		// JUnitDoclet end method findFigure
+	}
+
+	// JUnitDoclet begin javadoc_method beginUpdate()
+	/**
+	 * Method testBeginUpdate is testing beginUpdate
+	 * @see org.jhotdraw.standard.StandardDrawing#beginUpdate()
+	 */
+	// JUnitDoclet end javadoc_method beginUpdate()
+	public void testBeginUpdate() throws Exception {
+		// JUnitDoclet begin method beginUpdate
+		final List<Rectangle> invalidated = new ArrayList<Rectangle>();
+		final int[] updates = new int[1];
+		standarddrawing.addDrawingChangeListener(new DrawingChangeListener() {
+			public void drawingInvalidated(DrawingChangeEvent e) {
+				invalidated.add(e.getInvalidatedRectangle());
+			}
+			public void drawingTitleChanged(DrawingChangeEvent e) {
+			}
+			public void drawingRequestUpdate(DrawingChangeEvent e) {
+				updates[0]++;
+			}
+		});
+
+		List<Figure> figures = new ArrayList<Figure>();
+		standarddrawing.beginUpdate();
+		for (int i = 0; i < 10; i++) {
+			figures.add(standarddrawing.add(new RectangleFigure(new Point(i * 20, 0), new Point(i * 20 + 10, 10))));
+		}
+		standarddrawing.endUpdate();
+		assertEquals(1, updates[0]);
+		assertEquals(1, invalidated.size());
+
+		invalidated.clear();
+		standarddrawing.beginUpdate();
+		standarddrawing.beginUpdate();
+		for (int i = 0; i < figures.size(); i++) {
+			figures.get(i).moveBy(1000, 1000);
+		}
+		standarddrawing.endUpdate();
+		assertTrue(invalidated.isEmpty());
+		// the spatial index is updated when the batch ends
+		assertNull(standarddrawing.findFigure(1005, 1005));
+		standarddrawing.endUpdate();
+		assertSame(figures.get(0), standarddrawing.findFigure(1005, 1005));
+		assertNull(standarddrawing.findFigure(5, 5));
+		// old and new locations are far apart
+		assertEquals(2, invalidated.size());
+		assertEquals(new Rectangle(0, 0, 1190, 1010), standarddrawing.displayBox());
+
+		try {
+			standarddrawing.endUpdate();
+			fail("endUpdate() without beginUpdate() must fail");
+		}
+		catch (IllegalStateException e) {
+			// expected
+		}
+		// JUnitDoclet end method beginUpdate
+	}
+
+	// JUnitDoclet begin javadoc_method draw()
+	/**
+	 * Method testDraw is testing draw
+	 * @see org.jhotdraw.standard.CompositeFigure#draw(java.awt.Graphics, org.jhotdraw.framework.FigureEnumeration)
+	 */
+	// JUnitDoclet end javadoc_method draw()
+	public void testDraw() throws Exception {
+		// JUnitDoclet begin method draw
+		Figure figure = standarddrawing.add(new RectangleFigure(new Point(0, 0), new Point(10, 10)));
+		// the update strategies only draw the figures in the clip
+		Graphics2D g = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB).createGraphics();
+		standarddrawing.draw(g, new FigureEnumerator(Collections.singletonList(figure)));
+		assertEquals(RenderingHints.VALUE_ANTIALIAS_ON, g.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
+		g.dispose();
+		// JUnitDoclet end method draw
+	}
+
 	// JUnitDoclet begin javadoc_method testVault
 	/**
 	 * JUnitDoclet moves marker to this method, if there is not match
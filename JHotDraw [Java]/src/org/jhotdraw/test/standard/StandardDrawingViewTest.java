@@ -0,0 +1,304 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.StandardDrawingView;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.DrawingView;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureEnumeration;
+import org.jhotdraw.framework.Painter;
+import org.jhotdraw.standard.DamageRegion;
+import org.jhotdraw.standard.StandardDrawing;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase StandardDrawingViewTest is generated by
+ * JUnitDoclet to hold the tests for StandardDrawingView.
+ * @see org.jhotdraw.standard.StandardDrawingView
+ */
+// JUnitDoclet end javadoc_class
+public class StandardDrawingViewTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private StandardDrawingView standarddrawingview;
+	private List<Figure> figures;
+
+	private static class TestDrawingView extends StandardDrawingView {
+		private static final long serialVersionUID = 8494629299069725062L;
+
+		TestDrawingView() {
+			super(null, 400, 400);
+			// there is no editor to be notified of selection changes
+			removeFigureSelectionListener(null);
+		}
+
+		// the key listener needs an editor
+		protected KeyListener createKeyListener() {
+			return null;
+		}
+
+		public DamageRegion getDamageRegion() {
+			return super.getDamageRegion();
+		}
+
+		public void paintComponent(Graphics g) {
+			super.paintComponent(g);
+		}
+	}
+
+	/**
+	 * Records the clip of each paint instead of painting.
+	 */
+	private static class ClipRecorder implements Painter {
+		private static final long serialVersionUID = 4715932508130447462L;
+
+		final List<Rectangle> fClips = new ArrayList<Rectangle>();
+
+		public void draw(Graphics g, DrawingView view) {
+			fClips.add(g.getClipBounds());
+		}
+	}
+
+	private List<Figure> toList(FigureEnumeration fe) {
+		List<Figure> list = new ArrayList<Figure>();
+		while (fe.hasNextFigure()) {
+			list.add(fe.nextFigure());
+		}
+		return list;
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor StandardDrawingViewTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public StandardDrawingViewTest(String name) {
+		// JUnitDoclet begin method StandardDrawingViewTest
+		super(name);
+		// JUnitDoclet end method StandardDrawingViewTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public StandardDrawingView createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new TestDrawingView();
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		standarddrawingview = createInstance();
+		StandardDrawing drawing = new StandardDrawing();
+		figures = new ArrayList<Figure>();
+		for (int i = 0; i < 5; i++) {
+			figures.add(drawing.add(new RectangleFigure(new Point(i * 20, 0), new Point(i * 20 + 10, 10))));
+		}
+		standarddrawingview.setDrawing(drawing);
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		standarddrawingview = null;
+		figures = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method selectionZOrdered()
+	/**
+	 * Method testSelectionZOrdered is testing selectionZOrdered
+	 * @see org.jhotdraw.standard.StandardDrawingView#selectionZOrdered()
+	 */
+	// JUnitDoclet end javadoc_method selectionZOrdered()
+	public void testSelectionZOrdered() throws Exception {
+		// JUnitDoclet begin method selectionZOrdered
+		standarddrawingview.addToSelection(figures.get(3));
+		standarddrawingview.addToSelection(figures.get(0));
+		standarddrawingview.addToSelection(figures.get(2));
+
+		List<Figure> expected = new ArrayList<Figure>();
+		expected.add(figures.get(0));
+		expected.add(figures.get(2));
+		expected.add(figures.get(3));
+		assertEquals(expected, toList(standarddrawingview.selectionZOrdered()));
+
+		standarddrawingview.drawing().bringToFront(figures.get(0));
+		expected.remove(0);
+		expected.add(figures.get(0));
+		assertEquals(expected, toList(standarddrawingview.selectionZOrdered()));
+		// JUnitDoclet end method selectionZOrdered
+	}
+
+	// JUnitDoclet begin javadoc_method addToSelection()
+	/**
+	 * Method testAddToSelection is testing addToSelection
+	 * @see org.jhotdraw.standard.StandardDrawingView#addToSelection(org.jhotdraw.framework.Figure)
+	 */
+	// JUnitDoclet end javadoc_method addToSelection()
+	public void testAddToSelection() throws Exception {
+		// JUnitDoclet begin method addToSelection
+		standarddrawingview.addToSelectionAll(figures);
+		standarddrawingview.addToSelection(figures.get(1));
+		assertEquals(5, standarddrawingview.selectionCount());
+		// figures which are not part of the drawing can't be selected
+		standarddrawingview.addToSelection(new RectangleFigure());
+		assertEquals(5, standarddrawingview.selectionCount());
+
+		standarddrawingview.removeFromSelection(figures.get(1));
+		assertEquals(4, standarddrawingview.selectionCount());
+		assertFalse(standarddrawingview.isFigureSelected(figures.get(1)));
+		assertTrue(standarddrawingview.isFigureSelected(figures.get(2)));
+
+		standarddrawingview.toggleSelection(figures.get(1));
+		assertTrue(standarddrawingview.isFigureSelected(figures.get(1)));
+		standarddrawingview.toggleSelection(figures.get(1));
+		assertFalse(standarddrawingview.isFigureSelected(figures.get(1)));
+		// JUnitDoclet end method addToSelection
+	}
+
+	// JUnitDoclet begin javadoc_method clearSelection()
+	/**
+	 * Method testClearSelection is testing clearSelection
+	 * @see org.jhotdraw.standard.StandardDrawingView#clearSelection()
+	 */
+	// JUnitDoclet end javadoc_method clearSelection()
+	public void testClearSelection() throws Exception {
+		// JUnitDoclet begin method clearSelection
+		standarddrawingview.addToSelection(figures.get(0));
+		standarddrawingview.addToSelection(figures.get(4));
+		DamageRegion damage = ((TestDrawingView)standarddrawingview).getDamageRegion();
+		damage.clear();
+
+		standarddrawingview.clearSelection();
+		assertEquals(0, standarddrawingview.selectionCount());
+		// the figures including their handles are damaged, but not
+		// the area between the distant figures
+		assertEquals(2, damage.getRectangles().size());
+		assertTrue(damage.getBounds().contains(new Rectangle(-4, -4, 98, 18)));
+		assertFalse(damage.getRectangles().get(0).contains(45, 5));
+		assertFalse(damage.getRectangles().get(1).contains(45, 5));
+
+		// the areas of neighbouring figures are merged
+		standarddrawingview.addToSelection(figures.get(0));
+		standarddrawingview.addToSelection(figures.get(1));
+		damage.clear();
+		standarddrawingview.clearSelection();
+		assertEquals(1, damage.getRectangles().size());
+		assertFalse(standarddrawingview.selectionZOrdered().hasNextFigure());
+		// JUnitDoclet end method clearSelection
+	}
+
+	// JUnitDoclet begin javadoc_method findHandle()
+	/**
+	 * Method testFindHandle is testing findHandle
+	 * @see org.jhotdraw.standard.StandardDrawingView#findHandle(int, int)
+	 */
+	// JUnitDoclet end javadoc_method findHandle()
+	public void testFindHandle() throws Exception {
+		// JUnitDoclet begin method findHandle
+		assertNull(standarddrawingview.findHandle(0, 0));
+		standarddrawingview.addToSelection(figures.get(0));
+		standarddrawingview.addToSelection(figures.get(1));
+		assertSame(figures.get(1), standarddrawingview.findHandle(20, 10).owner());
+
+		// large selections don't show handles
+		standarddrawingview.setSelectionHandleLimit(1);
+		assertNull(standarddrawingview.findHandle(20, 10));
+		standarddrawingview.setSelectionHandleLimit(2);
+		assertNotNull(standarddrawingview.findHandle(20, 10));
+
+		standarddrawingview.removeFromSelection(figures.get(1));
+		assertNull(standarddrawingview.findHandle(20, 10));
+		// JUnitDoclet end method findHandle
+	}
+
+	// JUnitDoclet begin javadoc_method repairDamage()
+	/**
+	 * Method testRepairDamage is testing repairDamage
+	 * @see org.jhotdraw.standard.StandardDrawingView#repairDamage()
+	 */
+	// JUnitDoclet end javadoc_method repairDamage()
+	public void testRepairDamage() throws Exception {
+		// JUnitDoclet begin method repairDamage
+		ClipRecorder recorder = new ClipRecorder();
+		standarddrawingview.setDisplayUpdate(recorder);
+		DamageRegion damage = ((TestDrawingView)standarddrawingview).getDamageRegion();
+		damage.clear();
+		damage.add(new Rectangle(0, 0, 10, 10));
+		damage.add(new Rectangle(300, 300, 10, 10));
+
+		// the repair is only requested, not painted
+		standarddrawingview.repairDamage();
+		assertTrue(damage.isEmpty());
+		assertTrue(recorder.fClips.isEmpty());
+
+		// the view paints the clip the RepaintManager hands over
+		Graphics g = new BufferedImage(400, 400, BufferedImage.TYPE_INT_RGB).getGraphics();
+		g.setClip(0, 0, 310, 310);
+		((TestDrawingView)standarddrawingview).paintComponent(g);
+		assertEquals(1, recorder.fClips.size());
+		assertEquals(new Rectangle(0, 0, 310, 310), recorder.fClips.get(0));
+		g.dispose();
+		// JUnitDoclet end method repairDamage
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
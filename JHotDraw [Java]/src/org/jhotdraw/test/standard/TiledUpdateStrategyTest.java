@@ -0,0 +1,226 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.standard;
+
+import org.jhotdraw.standard.TiledUpdateStrategy;
+import junit.framework.TestCase;
+// JUnitDoclet begin import
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.framework.FigureAttributeConstant;
+import org.jhotdraw.standard.StandardDrawing;
+import org.jhotdraw.standard.StandardDrawingView;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase TiledUpdateStrategyTest is generated by
+ * JUnitDoclet to hold the tests for TiledUpdateStrategy.
+ * @see org.jhotdraw.standard.TiledUpdateStrategy
+ */
+// JUnitDoclet end javadoc_class
+public class TiledUpdateStrategyTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private TiledUpdateStrategy tiledupdatestrategy;
+
+	private StandardDrawingView createView(Drawing drawing) {
+		// a view without editor, so no key commands can be created
+		StandardDrawingView view = new StandardDrawingView(null, 300, 300) {
+			protected KeyListener createKeyListener() {
+				return null;
+			}
+		};
+		view.setDrawing(drawing);
+		return view;
+	}
+
+	private BufferedImage render(Drawing drawing, TiledUpdateStrategy strategy) {
+		StandardDrawingView view = createView(drawing);
+		view.setDisplayUpdate(strategy);
+		BufferedImage image = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+		Graphics g = image.getGraphics();
+		g.setClip(0, 0, 300, 300);
+		strategy.draw(g, view);
+		g.dispose();
+		return image;
+	}
+
+	private static class CountingFigure extends RectangleFigure {
+		private static final long serialVersionUID = -8726476176834374975L;
+
+		int drawCount;
+
+		CountingFigure(int x, int y) {
+			super(new Point(x, y), new Point(x + 10, y + 10));
+			setAttribute(FigureAttributeConstant.FILL_COLOR, Color.white);
+		}
+
+		public void draw(Graphics g) {
+			drawCount++;
+			super.draw(g);
+		}
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor TiledUpdateStrategyTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public TiledUpdateStrategyTest(String name) {
+		// JUnitDoclet begin method TiledUpdateStrategyTest
+		super(name);
+		// JUnitDoclet end method TiledUpdateStrategyTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public TiledUpdateStrategy createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new TiledUpdateStrategy(100, 4 * 100 * 100 * 4);
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		tiledupdatestrategy = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		tiledupdatestrategy = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method draw()
+	/**
+	 * Method testDraw is testing draw
+	 * @see org.jhotdraw.standard.TiledUpdateStrategy#draw(java.awt.Graphics, org.jhotdraw.framework.DrawingView)
+	 */
+	// JUnitDoclet end javadoc_method draw()
+	public void testDraw() throws Exception {
+		// JUnitDoclet begin method draw
+		Drawing drawing = new StandardDrawing();
+		CountingFigure first = new CountingFigure(10, 10);
+		CountingFigure second = new CountingFigure(250, 250);
+		drawing.add(first);
+		drawing.add(second);
+
+		StandardDrawingView view = createView(drawing);
+		view.setDisplayUpdate(tiledupdatestrategy);
+
+		BufferedImage image = new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB);
+		Graphics g = image.getGraphics();
+		g.setClip(0, 0, 200, 200);
+		tiledupdatestrategy.draw(g, view);
+		assertEquals(1, first.drawCount);
+		assertEquals(0, second.drawCount);
+		assertEquals(4, tiledupdatestrategy.getTileCount());
+		assertEquals(Color.white.getRGB(), image.getRGB(15, 15));
+
+		// painting again only copies the tiles
+		tiledupdatestrategy.draw(g, view);
+		assertEquals(1, first.drawCount);
+
+		// only the tiles covering the invalidated area are rendered again
+		first.moveBy(1, 1);
+		tiledupdatestrategy.draw(g, view);
+		assertEquals(2, first.drawCount);
+
+		// the memory budget allows for four tiles only
+		g.setClip(200, 200, 100, 100);
+		tiledupdatestrategy.draw(g, view);
+		assertEquals(1, second.drawCount);
+		assertEquals(4, tiledupdatestrategy.getTileCount());
+
+		tiledupdatestrategy.flush();
+		assertEquals(0, tiledupdatestrategy.getTileCount());
+		g.dispose();
+		// JUnitDoclet end method draw
+	}
+
+	// JUnitDoclet begin javadoc_method setParallel()
+	/**
+	 * Method testSetParallel is testing setParallel
+	 * @see org.jhotdraw.standard.TiledUpdateStrategy#setParallel(boolean)
+	 */
+	// JUnitDoclet end javadoc_method setParallel()
+	public void testSetParallel() throws Exception {
+		// JUnitDoclet begin method setParallel
+		// figures are only drawn concurrently on request
+		assertFalse(tiledupdatestrategy.isParallel());
+
+		Drawing drawing = new StandardDrawing();
+		Random random = new Random(4711);
+		for (int i = 0; i < 500; i++) {
+			drawing.add(new CountingFigure(random.nextInt(290), random.nextInt(290)));
+		}
+		TiledUpdateStrategy parallel = new TiledUpdateStrategy(50, 1024 * 1024);
+		parallel.setParallel(true);
+		assertTrue(parallel.isParallel());
+		BufferedImage parallelImage = render(drawing, parallel);
+		BufferedImage sequentialImage = render(drawing, new TiledUpdateStrategy(50, 1024 * 1024));
+
+		for (int x = 0; x < 300; x++) {
+			for (int y = 0; y < 300; y++) {
+				assertEquals(sequentialImage.getRGB(x, y), parallelImage.getRGB(x, y));
+			}
+		}
+		// JUnitDoclet end method setParallel
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
@@ -26,16 +26,21 @@ public class AllTests {
 	public static Test suite() {
 		TestSuite suite = new TestSuite("Test for org.jhotdraw.test.util");
 		//$JUnit-BEGIN$
+		suite.addTest(new TestSuite(BinaryStorageFormatTest.class));
 		suite.addTest(new TestSuite(BoundsTest.class));
+		suite.addTest(new TestSuite(ByteBufferStorableInputTest.class));
+		suite.addTest(new TestSuite(ChunkedStorageFormatTest.class));
 		suite.addTest(new TestSuite(ClipboardTest.class));
 		suite.addTest(new TestSuite(ColorMapTest.class));
 		suite.addTest(new TestSuite(CommandMenuTest.class));
+		suite.addTest(new TestSuite(DrawingRestoreTest.class));
 		suite.addTest(new TestSuite(FloatingTextFieldTest.class));
 		suite.addTest(new TestSuite(GeomTest.class));
 		suite.addTest(new TestSuite(SerializationStorageFormatTest.class));
 		suite.addTest(new TestSuite(StandardStorageFormatTest.class));
 		suite.addTest(new TestSuite(StorableInputTest.class));
 		suite.addTest(new TestSuite(StorableOutputTest.class));
+		suite.addTest(new TestSuite(StorableRegistryTest.class));
 		suite.addTest(new TestSuite(StorageFormatManagerTest.class));
 		suite.addTest(new TestSuite(UndoManagerTest.class));
 
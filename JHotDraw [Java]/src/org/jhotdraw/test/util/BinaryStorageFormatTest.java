@@ -0,0 +1,249 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.util;
+
+// JUnitDoclet begin import
+import org.jhotdraw.util.BinaryStorageFormat;
+import junit.framework.TestCase;
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import org.jhotdraw.figures.TextFigure;
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.util.BinaryStorableInput;
+import org.jhotdraw.util.BinaryStorableOutput;
+import org.jhotdraw.util.Storable;
+import org.jhotdraw.util.StorableOutput;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase BinaryStorageFormatTest is generated by
+ * JUnitDoclet to hold the tests for BinaryStorageFormat.
+ * @see org.jhotdraw.util.BinaryStorageFormat
+ */
+// JUnitDoclet end javadoc_class
+public class BinaryStorageFormatTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private BinaryStorageFormat binarystorageformat;
+
+	/**
+	 * Gets the text format of a storable for comparisons.
+	 */
+	private static String toText(Storable storable) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		StorableOutput output = new StorableOutput(bytes);
+		output.writeStorable(storable);
+		output.close();
+		return bytes.toString();
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor BinaryStorageFormatTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public BinaryStorageFormatTest(String name) {
+		// JUnitDoclet begin method BinaryStorageFormatTest
+		super(name);
+		// JUnitDoclet end method BinaryStorageFormatTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public BinaryStorageFormat createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new BinaryStorageFormat();
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		binarystorageformat = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		binarystorageformat = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method restore()
+	/**
+	 * Method testRestore is testing restore
+	 * @see org.jhotdraw.util.BinaryStorageFormat#restore(java.lang.String)
+	 */
+	// JUnitDoclet end javadoc_method restore()
+	public void testRestore() throws Exception {
+		// JUnitDoclet begin method restore
+		Drawing drawing = new StorageFormatBenchmark(binarystorageformat).createDrawing(10);
+		TextFigure text = new TextFigure();
+		text.basicDisplayBox(new Point(5, 5), new Point(5, 5));
+		text.setText("a \"quoted\"\n\ttext \u00e4\\");
+		drawing.add(text);
+
+		File file = File.createTempFile("BinaryStorageFormatTest", "");
+		file.delete();
+		file = new File(binarystorageformat.store(file.getPath(), drawing));
+		try {
+			assertTrue(file.getName().endsWith(".bdraw"));
+			Drawing restored = binarystorageformat.restore(file.getPath());
+			// the restored drawing is stored just like the original
+			assertEquals(toText(drawing), toText(restored));
+		}
+		finally {
+			file.delete();
+		}
+
+		// files of other formats are rejected
+		file = File.createTempFile("BinaryStorageFormatTest", ".bdraw");
+		try {
+			FileOutputStream stream = new FileOutputStream(file);
+			stream.write("org.jhotdraw.standard.StandardDrawing".getBytes());
+			stream.close();
+			binarystorageformat.restore(file.getPath());
+			fail("IOException expected");
+		}
+		catch (IOException e) {
+			// expected
+		}
+		finally {
+			file.delete();
+		}
+		// JUnitDoclet end method restore
+	}
+
+	// JUnitDoclet begin javadoc_method readWrite()
+	/**
+	 * Method testReadWrite is testing the encoding of
+	 * BinaryStorableOutput and BinaryStorableInput
+	 * @see org.jhotdraw.util.BinaryStorableOutput
+	 * @see org.jhotdraw.util.BinaryStorableInput
+	 */
+	// JUnitDoclet end javadoc_method readWrite()
+	public void testReadWrite() throws Exception {
+		// JUnitDoclet begin method readWrite
+		int[] ints = { 0, 1, -1, 63, -64, 64, 300, Integer.MAX_VALUE, Integer.MIN_VALUE };
+		long[] longs = { 0, -1, System.currentTimeMillis(), Long.MAX_VALUE, Long.MIN_VALUE };
+		double[] doubles = { 0.0, -1.5, Math.PI, Double.NaN, Double.NEGATIVE_INFINITY };
+		String[] strings = { "", "FillColor", "FillColor", "\u00e4\u20ac" };
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryStorableOutput output = new BinaryStorableOutput(bytes);
+		for (int i = 0; i < ints.length; i++) {
+			output.writeInt(ints[i]);
+		}
+		for (int i = 0; i < longs.length; i++) {
+			output.writeLong(longs[i]);
+		}
+		for (int i = 0; i < doubles.length; i++) {
+			output.writeDouble(doubles[i]);
+		}
+		for (int i = 0; i < strings.length; i++) {
+			output.writeString(strings[i]);
+		}
+		output.writeBoolean(true);
+		output.writeStorable(null);
+		output.close();
+		assertFalse(output.checkError());
+
+		BinaryStorableInput input = new BinaryStorableInput(new ByteArrayInputStream(bytes.toByteArray()));
+		for (int i = 0; i < ints.length; i++) {
+			assertEquals(ints[i], input.readInt());
+		}
+		for (int i = 0; i < longs.length; i++) {
+			assertEquals(longs[i], input.readLong());
+		}
+		for (int i = 0; i < doubles.length; i++) {
+			assertEquals(Double.doubleToLongBits(doubles[i]), Double.doubleToLongBits(input.readDouble()));
+		}
+		for (int i = 0; i < strings.length; i++) {
+			assertEquals(strings[i], input.readString());
+		}
+		assertTrue(input.readBoolean());
+		assertNull(input.readStorable());
+		// JUnitDoclet end method readWrite
+	}
+
+	// JUnitDoclet begin javadoc_method writeStorable()
+	/**
+	 * Method testWriteStorable is testing writeStorable
+	 * @see org.jhotdraw.util.BinaryStorableOutput#writeStorable(org.jhotdraw.util.Storable)
+	 */
+	// JUnitDoclet end javadoc_method writeStorable()
+	public void testWriteStorable() throws Exception {
+		// JUnitDoclet begin method writeStorable
+		Drawing drawing = new StorageFormatBenchmark(binarystorageformat).createDrawing(20000);
+		final int[] largestWrite = new int[1];
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream() {
+			public synchronized void write(byte[] b, int off, int len) {
+				largestWrite[0] = Math.max(largestWrite[0], len);
+				super.write(b, off, len);
+			}
+		};
+		BinaryStorableOutput output = new BinaryStorableOutput(bytes);
+		output.writeStorable(drawing);
+		output.close();
+		assertFalse(output.checkError());
+
+		// the figures are written while the drawing is written
+		// instead of buffering the whole drawing
+		assertTrue(bytes.size() > 4 * largestWrite[0]);
+		Drawing restored = (Drawing)new BinaryStorableInput(new ByteArrayInputStream(bytes.toByteArray())).readStorable();
+		assertEquals(toText(drawing), toText(restored));
+		// JUnitDoclet end method writeStorable
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
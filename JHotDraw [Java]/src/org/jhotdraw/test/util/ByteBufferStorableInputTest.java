@@ -0,0 +1,211 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.util;
+
+// JUnitDoclet begin import
+import org.jhotdraw.util.ByteBufferStorableInput;
+import junit.framework.TestCase;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.util.Storable;
+import org.jhotdraw.util.StorableInput;
+import org.jhotdraw.util.StorableOutput;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase ByteBufferStorableInputTest is generated by
+ * JUnitDoclet to hold the tests for ByteBufferStorableInput.
+ * @see org.jhotdraw.util.ByteBufferStorableInput
+ */
+// JUnitDoclet end javadoc_class
+public class ByteBufferStorableInputTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private static final int[] INTS = { 0, 7, -5, Integer.MAX_VALUE, Integer.MIN_VALUE };
+	private static final long[] LONGS = { 0, -1, 1234567890123L };
+	private static final double[] DOUBLES = { 0.0, 1.5, -0.25 };
+	private static final String[] STRINGS = { "", "FillColor", "a \"b\" \\c\n\td", "x\ty" };
+
+	private byte[] bytes;
+	private Drawing drawing;
+
+	private static String toText(Storable storable) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		StorableOutput output = new StorableOutput(bytes);
+		output.writeStorable(storable);
+		output.close();
+		return bytes.toString();
+	}
+
+	/**
+	 * Reads the values of setUp() and checks them.
+	 */
+	private void checkInput(StorableInput input) throws IOException {
+		for (int i = 0; i < INTS.length; i++) {
+			assertEquals(INTS[i], input.readInt());
+		}
+		for (int i = 0; i < LONGS.length; i++) {
+			assertEquals(LONGS[i], input.readLong());
+		}
+		for (int i = 0; i < DOUBLES.length; i++) {
+			assertEquals(DOUBLES[i], input.readDouble(), 0.0);
+		}
+		for (int i = 0; i < STRINGS.length; i++) {
+			assertEquals(STRINGS[i], input.readString());
+		}
+		assertTrue(input.readBoolean());
+		assertFalse(input.readBoolean());
+		assertNull(input.readStorable());
+		assertEquals(toText(drawing), toText(input.readStorable()));
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor ByteBufferStorableInputTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public ByteBufferStorableInputTest(String name) {
+		// JUnitDoclet begin method ByteBufferStorableInputTest
+		super(name);
+		// JUnitDoclet end method ByteBufferStorableInputTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public ByteBufferStorableInput createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new ByteBufferStorableInput(ByteBuffer.wrap(bytes));
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		drawing = new StorageFormatBenchmark(null).createDrawing(4);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		StorableOutput output = new StorableOutput(stream);
+		for (int i = 0; i < INTS.length; i++) {
+			output.writeInt(INTS[i]);
+		}
+		for (int i = 0; i < LONGS.length; i++) {
+			output.writeLong(LONGS[i]);
+		}
+		for (int i = 0; i < DOUBLES.length; i++) {
+			output.writeDouble(DOUBLES[i]);
+		}
+		for (int i = 0; i < STRINGS.length; i++) {
+			output.writeString(STRINGS[i]);
+		}
+		output.writeBoolean(true);
+		output.writeBoolean(false);
+		output.writeStorable(null);
+		output.writeStorable(drawing);
+		output.close();
+		bytes = stream.toByteArray();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		bytes = null;
+		drawing = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method readStorable()
+	/**
+	 * Method testReadStorable is testing readStorable
+	 * and the other read methods together with StorableInput.
+	 * @see org.jhotdraw.util.ByteBufferStorableInput#readStorable()
+	 */
+	// JUnitDoclet end javadoc_method readStorable()
+	public void testReadStorable() throws Exception {
+		// JUnitDoclet begin method readStorable
+		// both inputs read the same values
+		checkInput(new StorableInput(new ByteArrayInputStream(bytes)));
+		checkInput(createInstance());
+		checkInput(new ByteBufferStorableInput(new ByteArrayInputStream(bytes)));
+		// a direct buffer
+		ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+		buffer.put(bytes);
+		buffer.flip();
+		checkInput(new ByteBufferStorableInput(buffer));
+		// JUnitDoclet end method readStorable
+	}
+
+	// JUnitDoclet begin javadoc_method readString()
+	/**
+	 * Method testReadString is testing readString
+	 * @see org.jhotdraw.util.ByteBufferStorableInput#readString()
+	 */
+	// JUnitDoclet end javadoc_method readString()
+	public void testReadString() throws Exception {
+		// JUnitDoclet begin method readString
+		bytes = "word \"\\101\\t\\q\\\"\" \"unterminated\n42".getBytes("ISO-8859-1");
+		StorableInput expected = new StorableInput(new ByteArrayInputStream(bytes));
+		StorableInput actual = createInstance();
+		for (int i = 0; i < 3; i++) {
+			assertEquals(expected.readString(), actual.readString());
+		}
+		assertEquals(42, actual.readInt());
+		try {
+			actual.readInt();
+			fail("IOException expected at the end of the input");
+		}
+		catch (IOException e) {
+			// expected
+		}
+		// JUnitDoclet end method readString
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
@@ -0,0 +1,244 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.util;
+
+// JUnitDoclet begin import
+import org.jhotdraw.util.ChunkedStorageFormat;
+import junit.framework.TestCase;
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureEnumeration;
+import org.jhotdraw.standard.ChunkedDrawing;
+import org.jhotdraw.util.ChunkedFile;
+import org.jhotdraw.util.StorableOutput;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase ChunkedStorageFormatTest is generated by
+ * JUnitDoclet to hold the tests for ChunkedStorageFormat.
+ * @see org.jhotdraw.util.ChunkedStorageFormat
+ */
+// JUnitDoclet end javadoc_class
+public class ChunkedStorageFormatTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private ChunkedStorageFormat chunkedstorageformat;
+	private File file;
+
+	/**
+	 * Gets the text format of the figures of a drawing for comparisons.
+	 */
+	private static String toText(Drawing drawing) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		StorableOutput output = new StorableOutput(bytes);
+		FigureEnumeration fe = drawing.figures();
+		while (fe.hasNextFigure()) {
+			output.writeStorable(fe.nextFigure());
+		}
+		output.close();
+		return bytes.toString();
+	}
+
+	private static int count(FigureEnumeration fe) {
+		int count = 0;
+		while (fe.hasNextFigure()) {
+			fe.nextFigure();
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Stores a drawing whose connections cross the borders of the cells.
+	 */
+	private Drawing storeDrawing() throws Exception {
+		Drawing drawing = new StorageFormatBenchmark(chunkedstorageformat).createDrawing(2000);
+		file = File.createTempFile("ChunkedStorageFormatTest", "");
+		file.delete();
+		file = new File(chunkedstorageformat.store(file.getPath(), drawing));
+		return drawing;
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor ChunkedStorageFormatTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public ChunkedStorageFormatTest(String name) {
+		// JUnitDoclet begin method ChunkedStorageFormatTest
+		super(name);
+		// JUnitDoclet end method ChunkedStorageFormatTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public ChunkedStorageFormat createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new ChunkedStorageFormat(100);
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		chunkedstorageformat = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		if (file != null) {
+			file.delete();
+		}
+		chunkedstorageformat = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method restore()
+	/**
+	 * Method testRestore is testing restore
+	 * @see org.jhotdraw.util.ChunkedStorageFormat#restore(java.lang.String)
+	 */
+	// JUnitDoclet end javadoc_method restore()
+	public void testRestore() throws Exception {
+		// JUnitDoclet begin method restore
+		Drawing drawing = storeDrawing();
+		assertTrue(file.getName().endsWith(".cdraw"));
+		ChunkedDrawing restored = (ChunkedDrawing)chunkedstorageformat.restore(file.getPath());
+		try {
+			// only the index has been read
+			assertEquals(0, restored.getLoadedChunkCount());
+			assertEquals(0, restored.figureCount());
+			assertEquals(drawing.displayBox(), restored.displayBox());
+
+			// reading an area only reads the chunks nearby
+			Rectangle area = new Rectangle(0, 0, 100, 20);
+			assertEquals(count(drawing.figures(area)), count(restored.figures(area)));
+			assertTrue(restored.getLoadedChunkCount() < restored.getChunkCount() / 10);
+
+			restored.loadAll();
+			assertEquals(restored.getChunkCount(), restored.getLoadedChunkCount());
+			// the restored drawing is stored just like the original
+			assertEquals(toText(drawing), toText(restored));
+		}
+		finally {
+			restored.release();
+		}
+
+		// files of other formats are rejected
+		File other = File.createTempFile("ChunkedStorageFormatTest", ".cdraw");
+		try {
+			FileOutputStream stream = new FileOutputStream(other);
+			stream.write("org.jhotdraw.standard.StandardDrawing".getBytes());
+			stream.close();
+			chunkedstorageformat.restore(other.getPath());
+			fail("IOException expected");
+		}
+		catch (IOException e) {
+			// expected
+		}
+		finally {
+			other.delete();
+		}
+		// JUnitDoclet end method restore
+	}
+
+	// JUnitDoclet begin javadoc_method store()
+	/**
+	 * Method testStore is testing store
+	 * @see org.jhotdraw.util.ChunkedStorageFormat#store(java.lang.String, org.jhotdraw.framework.Drawing)
+	 */
+	// JUnitDoclet end javadoc_method store()
+	public void testStore() throws Exception {
+		// JUnitDoclet begin method store
+		storeDrawing();
+		ChunkedDrawing restored = (ChunkedDrawing)chunkedstorageformat.restore(file.getPath());
+		try {
+			Figure figure = restored.figures(new Rectangle(0, 0, 10, 10)).nextFigure();
+			figure.moveBy(3, 3);
+
+			// only the changed chunk and the chunks referring to it are written
+			List<ChunkedFile.Layout> layouts = restored.getLayouts();
+			ChunkedFile.write(new ByteArrayOutputStream(), restored.getCellSize(), layouts);
+			int written = 0;
+			for (int i = 0; i < layouts.size(); i++) {
+				if (layouts.get(i).isWritten()) {
+					written++;
+				}
+			}
+			assertTrue(written > 0);
+			assertTrue(written < 4);
+
+			// the drawing reads its figures from the new file
+			chunkedstorageformat.store(file.getPath(), restored);
+			assertEquals(file.getPath(), restored.getChunkedFile().getFileName());
+			ChunkedDrawing again = (ChunkedDrawing)chunkedstorageformat.restore(file.getPath());
+			try {
+				restored.loadAll();
+				again.loadAll();
+				assertEquals(toText(restored), toText(again));
+			}
+			finally {
+				again.release();
+			}
+		}
+		finally {
+			restored.release();
+		}
+		// JUnitDoclet end method store
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
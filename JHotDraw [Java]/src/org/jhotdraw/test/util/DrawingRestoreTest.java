@@ -0,0 +1,264 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.util;
+
+// JUnitDoclet begin import
+import org.jhotdraw.util.DrawingRestore;
+import junit.framework.TestCase;
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.jhotdraw.framework.ConnectionFigure;
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureEnumeration;
+import org.jhotdraw.util.DrawingRestoreListener;
+import org.jhotdraw.util.StandardStorageFormat;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase DrawingRestoreTest is generated by
+ * JUnitDoclet to hold the tests for DrawingRestore.
+ * @see org.jhotdraw.util.DrawingRestore
+ */
+// JUnitDoclet end javadoc_class
+public class DrawingRestoreTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private DrawingRestore drawingrestore;
+	private StandardStorageFormat format;
+	private Drawing drawing;
+	private File file;
+	private RecordingListener listener;
+
+	/**
+	 * Records the notifications of a restore.
+	 */
+	private static class RecordingListener implements DrawingRestoreListener {
+		int created;
+		int chunks;
+		int figuresWhenCreated = -1;
+		boolean cancelWhenCreated;
+		CountDownLatch finished = new CountDownLatch(1);
+
+		public void drawingCreated(DrawingRestore restore) {
+			created++;
+			figuresWhenCreated = count(restore.getDrawing().figures());
+			if (cancelWhenCreated) {
+				restore.cancel();
+			}
+		}
+
+		public void figuresRestored(DrawingRestore restore) {
+			chunks++;
+		}
+
+		public void restoreFinished(DrawingRestore restore) {
+			finished.countDown();
+		}
+
+		void await() throws InterruptedException {
+			assertTrue(finished.await(30, TimeUnit.SECONDS));
+		}
+	}
+
+	private static int count(FigureEnumeration fe) {
+		int count = 0;
+		while (fe.hasNextFigure()) {
+			fe.nextFigure();
+			count++;
+		}
+		return count;
+	}
+
+	private void assertRestored(Drawing restored) {
+		FigureEnumeration expected = drawing.figures();
+		FigureEnumeration actual = restored.figures();
+		Figure previous = null;
+		while (expected.hasNextFigure()) {
+			assertTrue(actual.hasNextFigure());
+			Figure figure = actual.nextFigure();
+			assertEquals(expected.nextFigure().displayBox(), figure.displayBox());
+			if (figure instanceof ConnectionFigure) {
+				assertSame(previous, ((ConnectionFigure)figure).endFigure());
+			}
+			else {
+				previous = figure;
+			}
+		}
+		assertFalse(actual.hasNextFigure());
+		// the spatial index has been built
+		assertEquals(1, count(restored.figures(new Rectangle(0, 0, 5, 5))));
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor DrawingRestoreTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public DrawingRestoreTest(String name) {
+		// JUnitDoclet begin method DrawingRestoreTest
+		super(name);
+		// JUnitDoclet end method DrawingRestoreTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public DrawingRestore createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		return new DrawingRestore(format, file.getPath(), listener);
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		format = new StandardStorageFormat();
+		drawing = new StorageFormatBenchmark(format).createDrawing(2500);
+		file = File.createTempFile("DrawingRestoreTest", "");
+		file.delete();
+		file = new File(format.store(file.getPath(), drawing));
+		listener = new RecordingListener();
+		drawingrestore = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		file.delete();
+		drawingrestore = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method start()
+	/**
+	 * Method testStart is testing start
+	 * @see org.jhotdraw.util.DrawingRestore#start()
+	 */
+	// JUnitDoclet end javadoc_method start()
+	public void testStart() throws Exception {
+		// JUnitDoclet begin method start
+		// the whole drawing is published at once
+		drawingrestore.start();
+		listener.await();
+		assertNull(drawingrestore.getException());
+		assertEquals(1, listener.created);
+		assertEquals(3750, listener.figuresWhenCreated);
+		assertEquals(0, listener.chunks);
+		assertTrue(drawingrestore.isFinished());
+		assertRestored(drawingrestore.getDrawing());
+		// JUnitDoclet end method start
+	}
+
+	// JUnitDoclet begin javadoc_method readFigures()
+	/**
+	 * Method testReadFigures is testing readFigures
+	 * @see org.jhotdraw.util.DrawingRestore#readFigures(org.jhotdraw.framework.Drawing, org.jhotdraw.util.StorableInput, int)
+	 */
+	// JUnitDoclet end javadoc_method readFigures()
+	public void testReadFigures() throws Exception {
+		// JUnitDoclet begin method readFigures
+		DrawingRestore restore = format.restoreInBackground(file.getPath(), listener);
+		listener.await();
+		assertNull(restore.getException());
+		assertEquals(1, listener.created);
+		assertEquals(0, listener.figuresWhenCreated);
+		assertEquals(4, listener.chunks);
+		assertEquals(3750, restore.getFigureCount());
+		assertEquals(3750, restore.getRestoredFigureCount());
+		assertRestored(restore.getDrawing());
+		// JUnitDoclet end method readFigures
+	}
+
+	// JUnitDoclet begin javadoc_method cancel()
+	/**
+	 * Method testCancel is testing cancel
+	 * @see org.jhotdraw.util.DrawingRestore#cancel()
+	 */
+	// JUnitDoclet end javadoc_method cancel()
+	public void testCancel() throws Exception {
+		// JUnitDoclet begin method cancel
+		listener.cancelWhenCreated = true;
+		DrawingRestore restore = format.restoreInBackground(file.getPath(), listener);
+		listener.await();
+		assertTrue(restore.isCancelled());
+		assertTrue(restore.getException() instanceof InterruptedIOException);
+		assertEquals(0, listener.chunks);
+		assertEquals(0, count(restore.getDrawing().figures()));
+		// JUnitDoclet end method cancel
+	}
+
+	// JUnitDoclet begin javadoc_method setChunkSize()
+	/**
+	 * Method testSetGetChunkSize is testing setChunkSize
+	 * and getChunkSize together by setting some value
+	 * and verifying it by reading.
+	 * @see org.jhotdraw.util.DrawingRestore#setChunkSize(int)
+	 * @see org.jhotdraw.util.DrawingRestore#getChunkSize()
+	 */
+	// JUnitDoclet end javadoc_method setChunkSize()
+	public void testSetGetChunkSize() throws Exception {
+		// JUnitDoclet begin method setChunkSize getChunkSize
+		assertEquals(DrawingRestore.DEFAULT_CHUNK_SIZE, drawingrestore.getChunkSize());
+		drawingrestore.setChunkSize(100);
+		assertEquals(100, drawingrestore.getChunkSize());
+		try {
+			drawingrestore.setChunkSize(0);
+			fail("IllegalArgumentException expected");
+		}
+		catch (IllegalArgumentException e) {
+			// expected
+		}
+		// JUnitDoclet end method setChunkSize getChunkSize
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
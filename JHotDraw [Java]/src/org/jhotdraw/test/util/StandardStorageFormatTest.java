@@ -13,6 +13,16 @@ package org.jhotdraw.test.util;
 // JUnitDoclet begin import
 import org.jhotdraw.util.StandardStorageFormat;
 import junit.framework.TestCase;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.jhotdraw.framework.ConnectionFigure;
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureEnumeration;
+import org.jhotdraw.util.ByteBufferStorableInput;
+import org.jhotdraw.util.StorableInput;
 // JUnitDoclet end import
 
 /*
@@ -38,6 +48,19 @@ extends TestCase
 	// JUnitDoclet begin class
 	// instance variables, helper methods, ... put them in this marker
 	private StandardStorageFormat standardstorageformat;
+
+	/**
+	 * Makes the protected methods accessible to the test.
+	 */
+	private static class TestStorageFormat extends StandardStorageFormat {
+		void replace(File source, File target) throws IOException {
+			replaceFile(source, target);
+		}
+
+		StorableInput input(InputStream stream) throws IOException {
+			return createStorableInput(stream);
+		}
+	}
 	// JUnitDoclet end class
 
 	/**
@@ -163,6 +186,43 @@ extends TestCase
 	// JUnitDoclet end javadoc_method store()
 	public void testStore() throws Exception {
 		// JUnitDoclet begin method store
+		File directory = File.createTempFile("StandardStorageFormatTest", "");
+		directory.delete();
+		assertTrue(directory.mkdir());
+		try {
+			String fileName = new File(directory, "test").getPath();
+			String stored = standardstorageformat.store(fileName, new StorageFormatBenchmark(standardstorageformat).createDrawing(10));
+			// storing again replaces the file
+			assertEquals(stored, standardstorageformat.store(fileName, new StorageFormatBenchmark(standardstorageformat).createDrawing(20)));
+			assertEquals(30, countFigures(standardstorageformat.restore(stored)));
+			// no temporary files are left
+			assertEquals(1, directory.listFiles().length);
+
+			// a restored file is closed and can be replaced right away
+			Drawing restored = standardstorageformat.restore(stored);
+			standardstorageformat.store(stored, restored);
+			assertEquals(30, countFigures(standardstorageformat.restore(stored)));
+			assertEquals(1, directory.listFiles().length);
+
+			// the file is kept if it can't be replaced
+			File missing = new File(directory, "missing");
+			try {
+				new TestStorageFormat().replace(missing, new File(stored));
+				fail("IOException expected");
+			}
+			catch (IOException e) {
+				// expected
+			}
+			assertEquals(30, countFigures(standardstorageformat.restore(stored)));
+			assertEquals(1, directory.listFiles().length);
+		}
+		finally {
+			File[] files = directory.listFiles();
+			for (int i = 0; i < files.length; i++) {
+				files[i].delete();
+			}
+			directory.delete();
+		}
 		// JUnitDoclet end method store
 	}
 
@@ -174,6 +234,48 @@ extends TestCase
 	// JUnitDoclet end javadoc_method restore()
 	public void testRestore() throws Exception {
 		// JUnitDoclet begin method restore
+		Drawing drawing = new StorageFormatBenchmark(standardstorageformat).createDrawing(10);
+		File file = File.createTempFile("StandardStorageFormatTest", "");
+		file.delete();
+		file = new File(standardstorageformat.store(file.getPath(), drawing));
+		try {
+			Drawing restored = standardstorageformat.restore(file.getPath());
+			FigureEnumeration expected = drawing.figures();
+			FigureEnumeration actual = restored.figures();
+			Figure previous = null;
+			int connections = 0;
+			while (expected.hasNextFigure()) {
+				assertTrue(actual.hasNextFigure());
+				Figure figure = actual.nextFigure();
+				assertEquals(expected.nextFigure().displayBox(), figure.displayBox());
+				if (figure instanceof ConnectionFigure) {
+					// the connected figures are restored as references
+					ConnectionFigure connection = (ConnectionFigure)figure;
+					assertSame(previous, connection.endFigure());
+					assertTrue(restored.includes(connection.startFigure()));
+					connections++;
+				}
+				else {
+					previous = figure;
+				}
+			}
+			assertFalse(actual.hasNextFigure());
+			assertEquals(5, connections);
+
+			// files too large to be mapped are parsed while they are read
+			InputStream stream = new FileInputStream(file);
+			try {
+				StorableInput input = new TestStorageFormat().input(stream);
+				assertFalse(input instanceof ByteBufferStorableInput);
+				assertEquals(countFigures(drawing), countFigures((Drawing)input.readStorable()));
+			}
+			finally {
+				stream.close();
+			}
+		}
+		finally {
+			file.delete();
+		}
 		// JUnitDoclet end method restore
 	}
 
@@ -188,6 +290,16 @@ extends TestCase
 		// JUnitDoclet end method equals
 	}
 
+	private static int countFigures(Drawing drawing) {
+		int count = 0;
+		FigureEnumeration fe = drawing.figures();
+		while (fe.hasNextFigure()) {
+			fe.nextFigure();
+			count++;
+		}
+		return count;
+	}
+
 	// JUnitDoclet begin javadoc_method testVault
 	/**
 	 * JUnitDoclet moves marker to this method, if there is not match
@@ -0,0 +1,261 @@
+/*
+ * @(#)Test.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	 by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.util;
+
+// JUnitDoclet begin import
+import org.jhotdraw.util.StorableRegistry;
+import junit.framework.TestCase;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.net.URLClassLoader;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.util.Storable;
+import org.jhotdraw.util.StorableInput;
+import org.jhotdraw.util.StorableOutput;
+// JUnitDoclet end import
+
+/*
+ * Generated by JUnitDoclet, a tool provided by
+ * ObjectFab GmbH under LGPL.
+ * Please see www.junitdoclet.org, www.gnu.org
+ * and www.objectfab.de for informations about
+ * the tool, the licence and the authors.
+ */
+
+// JUnitDoclet begin javadoc_class
+/**
+ * TestCase StorableRegistryTest is generated by
+ * JUnitDoclet to hold the tests for StorableRegistry.
+ * @see org.jhotdraw.util.StorableRegistry
+ */
+// JUnitDoclet end javadoc_class
+public class StorableRegistryTest
+// JUnitDoclet begin extends_implements
+extends TestCase
+// JUnitDoclet end extends_implements
+{
+	// JUnitDoclet begin class
+	// instance variables, helper methods, ... put them in this marker
+	private StorableRegistry storableregistry;
+
+	/**
+	 * Counts the rectangles it creates.
+	 */
+	private static class CountingFactory implements StorableRegistry.Factory {
+		int created;
+
+		public Storable create() {
+			created++;
+			return new RectangleFigure();
+		}
+	}
+
+	/**
+	 * Makes the factories of the registry accessible to the test.
+	 */
+	private static class TestRegistry extends StorableRegistry {
+		TestRegistry(ClassLoader loader) {
+			super(loader);
+		}
+
+		StorableRegistry.Factory factory(String className) throws IOException {
+			return createFactory(className);
+		}
+	}
+
+	/**
+	 * Gets the identity of the constructor a factory has cached.
+	 */
+	private static int cachedConstructor(StorableRegistry.Factory factory) throws Exception {
+		Field field = factory.getClass().getDeclaredField("fConstructor");
+		field.setAccessible(true);
+		Object constructor = ((Reference<?>)field.get(factory)).get();
+		assertNotNull(constructor);
+		return System.identityHashCode(constructor);
+	}
+
+	/**
+	 * Defines RectangleFigure itself instead of delegating to its parent.
+	 */
+	private static class FigureClassLoader extends ClassLoader {
+		FigureClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!name.equals(RectangleFigure.class.getName())) {
+				return super.loadClass(name, resolve);
+			}
+			Class<?> cl = findLoadedClass(name);
+			if (cl == null) {
+				try {
+					InputStream stream = getParent().getResourceAsStream(name.replace('.', '/') + ".class");
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					byte[] buffer = new byte[4096];
+					for (int count = stream.read(buffer); count != -1; count = stream.read(buffer)) {
+						bytes.write(buffer, 0, count);
+					}
+					stream.close();
+					cl = defineClass(name, bytes.toByteArray(), 0, bytes.size());
+				}
+				catch (IOException e) {
+					throw new ClassNotFoundException(name, e);
+				}
+			}
+			return cl;
+		}
+	}
+	// JUnitDoclet end class
+
+	/**
+	 * Constructor StorableRegistryTest is
+	 * basically calling the inherited constructor to
+	 * initiate the TestCase for use by the Framework.
+	 */
+	public StorableRegistryTest(String name) {
+		// JUnitDoclet begin method StorableRegistryTest
+		super(name);
+		// JUnitDoclet end method StorableRegistryTest
+	}
+
+	/**
+	 * Factory method for instances of the class to be tested.
+	 */
+	public StorableRegistry createInstance() throws Exception {
+		// JUnitDoclet begin method testcase.createInstance
+		// a registry of its own which doesn't affect other tests
+		ClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+		return StorableRegistry.getRegistry(loader);
+		// JUnitDoclet end method testcase.createInstance
+	}
+
+	/**
+	 * Method setUp is overwriting the framework method to
+	 * prepare an instance of this TestCase for a single test.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void setUp() throws Exception {
+		// JUnitDoclet begin method testcase.setUp
+		super.setUp();
+		storableregistry = createInstance();
+		// JUnitDoclet end method testcase.setUp
+	}
+
+	/**
+	 * Method tearDown is overwriting the framework method to
+	 * clean up after each single test of this TestCase.
+	 * It's called from the JUnit framework only.
+	 */
+	protected void tearDown() throws Exception {
+		// JUnitDoclet begin method testcase.tearDown
+		storableregistry = null;
+		super.tearDown();
+		// JUnitDoclet end method testcase.tearDown
+	}
+
+	// JUnitDoclet begin javadoc_method newInstance()
+	/**
+	 * Method testNewInstance is testing newInstance
+	 * @see org.jhotdraw.util.StorableRegistry#newInstance(java.lang.String)
+	 */
+	// JUnitDoclet end javadoc_method newInstance()
+	public void testNewInstance() throws Exception {
+		// JUnitDoclet begin method newInstance
+		String className = RectangleFigure.class.getName();
+		Storable first = storableregistry.newInstance(className);
+		assertTrue(first instanceof RectangleFigure);
+		assertNotSame(first, storableregistry.newInstance(className));
+
+		String[] invalid = { "org.jhotdraw.NoSuchClass", "java.lang.String", "org.jhotdraw.util.Storable" };
+		for (int i = 0; i < invalid.length; i++) {
+			try {
+				storableregistry.newInstance(invalid[i]);
+				fail("IOException expected for " + invalid[i]);
+			}
+			catch (IOException e) {
+				// expected
+			}
+		}
+
+		// the constructor of a class of another loader is kept
+		// cached by garbage collections
+		ClassLoader loader = new FigureClassLoader(getClass().getClassLoader());
+		StorableRegistry.Factory factory = new TestRegistry(loader).factory(className);
+		int constructor = cachedConstructor(factory);
+		System.gc();
+		assertSame(loader, factory.create().getClass().getClassLoader());
+		assertEquals(constructor, cachedConstructor(factory));
+
+		// a removed registry doesn't keep a class loader from being
+		// collected whose classes it has created
+		Storable figure = StorableRegistry.getRegistry(loader).newInstance(className);
+		assertSame(loader, figure.getClass().getClassLoader());
+		assertNotSame(RectangleFigure.class, figure.getClass());
+		StorableRegistry.removeRegistry(loader);
+		WeakReference<ClassLoader> reference = new WeakReference<ClassLoader>(loader);
+		loader = null;
+		factory = null;
+		figure = null;
+		for (int i = 0; (i < 50) && (reference.get() != null); i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(reference.get());
+		// JUnitDoclet end method newInstance
+	}
+
+	// JUnitDoclet begin javadoc_method register()
+	/**
+	 * Method testRegister is testing register
+	 * @see org.jhotdraw.util.StorableRegistry#register(java.lang.Class, org.jhotdraw.util.StorableRegistry.Factory)
+	 */
+	// JUnitDoclet end javadoc_method register()
+	public void testRegister() throws Exception {
+		// JUnitDoclet begin method register
+		CountingFactory factory = new CountingFactory();
+		storableregistry.register(RectangleFigure.class, factory);
+
+		// the factory is used by the inputs using the registry
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		StorableOutput output = new StorableOutput(bytes);
+		output.writeStorable(new RectangleFigure());
+		output.close();
+		StorableInput input = new StorableInput(new ByteArrayInputStream(bytes.toByteArray()));
+		input.setRegistry(storableregistry);
+		assertTrue(input.readStorable() instanceof RectangleFigure);
+		assertEquals(1, factory.created);
+
+		storableregistry.unregister(RectangleFigure.class.getName());
+		assertTrue(storableregistry.newInstance(RectangleFigure.class.getName()) instanceof RectangleFigure);
+		assertEquals(1, factory.created);
+		// JUnitDoclet end method register
+	}
+
+	// JUnitDoclet begin javadoc_method testVault
+	/**
+	 * JUnitDoclet moves marker to this method, if there is not match
+	 * for them in the regenerated code and if the marker is not empty.
+	 * This way, no test gets lost when regenerating after renaming.
+	 * <b>Method testVault is supposed to be empty.</b>
+	 */
+	// JUnitDoclet end javadoc_method testVault
+	public void testVault() throws Exception {
+		// JUnitDoclet begin method testcase.testVault
+		// JUnitDoclet end method testcase.testVault
+	}
+
+}
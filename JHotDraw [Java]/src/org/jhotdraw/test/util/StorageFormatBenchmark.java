@@ -0,0 +1,138 @@
+/*
+ * @(#)StorageFormatBenchmark.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+package org.jhotdraw.test.util;
+
+import java.awt.Point;
+import java.io.File;
+
+import org.jhotdraw.figures.LineConnection;
+import org.jhotdraw.figures.RectangleFigure;
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureEnumeration;
+import org.jhotdraw.standard.StandardDrawing;
+import org.jhotdraw.util.StandardStorageFormat;
+import org.jhotdraw.util.StorageFormat;
+
+/**
+ * Measures how long a storage format takes to store and restore drawings
+ * of growing size. Each drawing consists of rectangles and connections
+ * between them, so the references between the stored objects are
+ * resolved as well. The time per figure should stay about the same for
+ * all sizes.
+ * <p>
+ * Usage: StorageFormatBenchmark [maximum number of figures [storage format class]]
+ * (default 1000000 figures in the StandardStorageFormat). Instead of the
+ * maximum a comma separated list of sizes can be given, e.g. 40000,400000,4000000
+ * for drawings of about 10 MB, 100 MB and 1 GB in the StandardStorageFormat.
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class StorageFormatBenchmark {
+
+	private StorageFormat fFormat;
+
+	public StorageFormatBenchmark(StorageFormat format) {
+		fFormat = format;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String sizes = (args.length > 0) ? args[0] : "1000000";
+		StorageFormat format = (args.length > 1)
+			? (StorageFormat)Class.forName(args[1]).newInstance()
+			: new StandardStorageFormat();
+		StorageFormatBenchmark benchmark = new StorageFormatBenchmark(format);
+		// warm up
+		benchmark.run(1000, false);
+		if (sizes.indexOf(',') >= 0) {
+			String[] counts = sizes.split(",");
+			for (int i = 0; i < counts.length; i++) {
+				benchmark.run(Integer.parseInt(counts[i].trim()), true);
+			}
+		}
+		else {
+			int max = Integer.parseInt(sizes);
+			for (int n = 1000; n <= max; n *= 10) {
+				benchmark.run(n, true);
+			}
+		}
+	}
+
+	/**
+	 * Stores and restores a drawing with the given number of figures.
+	 */
+	public void run(int figureCount, boolean print) throws Exception {
+		Drawing drawing = createDrawing(figureCount);
+		File file = File.createTempFile("StorageFormatBenchmark", "");
+		file.delete();
+		try {
+			long start = System.nanoTime();
+			// the format may add its file extension
+			file = new File(fFormat.store(file.getPath(), drawing));
+			long stored = System.nanoTime();
+			Drawing restored = fFormat.restore(file.getPath());
+			long restoredTime = System.nanoTime();
+			if (count(restored) != count(drawing)) {
+				throw new IllegalStateException("restored " + count(restored)
+					+ " of " + count(drawing) + " figures");
+			}
+			if (print) {
+				System.out.println(figureCount + " figures, " + (file.length() / 1024) + " KB: "
+					+ "store " + report(stored - start, figureCount, file.length()) + ", "
+					+ "restore " + report(restoredTime - stored, figureCount, file.length()));
+			}
+		}
+		finally {
+			file.delete();
+		}
+	}
+
+	private static int count(Drawing drawing) {
+		int count = 0;
+		FigureEnumeration fe = drawing.figures();
+		while (fe.hasNextFigure()) {
+			fe.nextFigure();
+			count++;
+		}
+		return count;
+	}
+
+	private static String report(long nanos, int figureCount, long bytes) {
+		return (nanos / 1000000) + " ms (" + (nanos / figureCount) + " ns/figure, "
+			+ ((bytes * 1000000000L / Math.max(1, nanos)) / (1024 * 1024)) + " MB/s)";
+	}
+
+	/**
+	 * Creates a drawing of rectangles in which every second rectangle is
+	 * connected to the previous one.
+	 */
+	protected Drawing createDrawing(int figureCount) {
+		Drawing drawing = new StandardDrawing();
+		Figure previous = null;
+		for (int i = 0; i < figureCount; i++) {
+			int x = (i % 1000) * 20;
+			int y = (i / 1000) * 20;
+			Figure figure = new RectangleFigure(new Point(x, y), new Point(x + 10, y + 10));
+			drawing.add(figure);
+			if ((previous != null) && (i % 2 == 1)) {
+				LineConnection connection = new LineConnection();
+				connection.startPoint(x - 15, y + 5);
+				connection.endPoint(x + 5, y + 5);
+				connection.connectStart(previous.connectorAt(x - 15, y + 5));
+				connection.connectEnd(figure.connectorAt(x + 5, y + 5));
+				connection.updateConnection();
+				drawing.add(connection);
+			}
+			previous = figure;
+		}
+		return drawing;
+	}
+}
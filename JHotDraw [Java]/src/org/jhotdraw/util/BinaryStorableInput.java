@@ -0,0 +1,199 @@
+/*
+ * @(#)BinaryStorableInput.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A StorableInput which reads the binary format written by
+ * BinaryStorableOutput.
+ *
+ * @see BinaryStorableOutput
+ * @see BinaryStorageFormat
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class BinaryStorableInput extends StorableInput {
+
+	private InputStream fStream;
+	private long fPosition;
+	private List<String> fClassNames;
+	private List<String> fStrings;
+
+	/**
+	 * Initializes a BinaryStorableInput with the given input stream.
+	 *
+	 * @throws IOException if the stream doesn't start with the
+	 *		header of the binary format
+	 */
+	public BinaryStorableInput(InputStream stream) throws IOException {
+		fStream = new BufferedInputStream(stream, 64 * 1024);
+		fClassNames = new ArrayList<String>();
+		fStrings = new ArrayList<String>();
+		for (int i = 0; i < BinaryStorableOutput.MAGIC.length; i++) {
+			if (readByte() != BinaryStorableOutput.MAGIC[i]) {
+				throw new IOException("Not a binary drawing");
+			}
+		}
+		long version = readVarLong();
+		// version 1 files only differ by a length prefixed outermost record
+		if ((version < 1) || (version > BinaryStorableOutput.VERSION)) {
+			throw new IOException("Unsupported version of the binary format: " + version);
+		}
+	}
+
+	/**
+	 * Reads and resurrects a Storable object from the input stream.
+	 */
+	public Storable readStorable() throws IOException {
+		int tag = readByte();
+		switch (tag) {
+			case BinaryStorableOutput.TAG_NULL:
+				return null;
+			case BinaryStorableOutput.TAG_REF:
+				return retrieve((int)readVarLong());
+			case BinaryStorableOutput.TAG_EXTERNAL:
+				return resolveExternalReference(readVarLong());
+			case BinaryStorableOutput.TAG_OBJECT:
+				String className = readTableEntry(fClassNames);
+				long length = readFixedInt();
+				long end = fPosition + length;
+				Storable storable = (Storable)makeInstance(className);
+				map(storable);
+				storable.read(this);
+				if (fPosition > end) {
+					throw new IOException(className + " read more than it has written at position: " + fPosition);
+				}
+				// skip data which a newer version of the class may have written
+				while (fPosition < end) {
+					readByte();
+				}
+				return storable;
+			case BinaryStorableOutput.TAG_OPEN_OBJECT:
+				className = readTableEntry(fClassNames);
+				storable = (Storable)makeInstance(className);
+				map(storable);
+				storable.read(this);
+				// a record without length can't skip unknown data
+				if (readByte() != BinaryStorableOutput.TAG_END) {
+					throw new IOException(className + " didn't read all of its data at position: " + (fPosition - 1));
+				}
+				return storable;
+			default:
+				throw new IOException("Invalid tag " + tag + " at position: " + (fPosition - 1));
+		}
+	}
+
+	/**
+	 * Resolves the reference of an object which is stored outside of
+	 * this input.
+	 *
+	 * @see BinaryStorableOutput#getExternalReference
+	 */
+	protected Storable resolveExternalReference(long reference) throws IOException {
+		throw new IOException("External reference " + reference + " can't be resolved at position: " + fPosition);
+	}
+
+	/**
+	 * Reads a string from the input stream.
+	 */
+	public String readString() throws IOException {
+		return readTableEntry(fStrings);
+	}
+
+	/**
+	 * Reads an int from the input stream.
+	 */
+	public int readInt() throws IOException {
+		long l = readVarLong();
+		return (int)(l >>> 1) ^ -(int)(l & 1);
+	}
+
+	/**
+	 * Reads a long from the input stream.
+	 */
+	public long readLong() throws IOException {
+		long l = readVarLong();
+		return (l >>> 1) ^ -(l & 1);
+	}
+
+	/**
+	 * Reads a double from the input stream.
+	 */
+	public double readDouble() throws IOException {
+		long bits = 0;
+		for (int i = 0; i < 8; i++) {
+			bits = (bits << 8) | readByte();
+		}
+		return Double.longBitsToDouble(bits);
+	}
+
+	/**
+	 * Reads a boolean from the input stream.
+	 */
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+
+	private String readTableEntry(List<String> table) throws IOException {
+		int index = (int)readVarLong();
+		if (index > 0) {
+			if (index > table.size()) {
+				throw new IOException("Invalid table index " + index + " at position: " + fPosition);
+			}
+			return table.get(index - 1);
+		}
+		int length = (int)readVarLong();
+		byte[] bytes = new byte[length];
+		for (int read = 0; read < length; ) {
+			int count = fStream.read(bytes, read, length - read);
+			if (count < 0) {
+				throw new EOFException();
+			}
+			read += count;
+		}
+		fPosition += length;
+		String s = new String(bytes, "UTF-8");
+		table.add(s);
+		return s;
+	}
+
+	private long readVarLong() throws IOException {
+		long l = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte();
+			l |= (long)(b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return l;
+			}
+		}
+		throw new IOException("Invalid number at position: " + fPosition);
+	}
+
+	private long readFixedInt() throws IOException {
+		return ((long)readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+	}
+
+	private int readByte() throws IOException {
+		int b = fStream.read();
+		if (b < 0) {
+			throw new EOFException();
+		}
+		fPosition++;
+		return b;
+	}
+}
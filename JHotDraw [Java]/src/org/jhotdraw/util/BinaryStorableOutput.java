@@ -0,0 +1,299 @@
+/*
+ * @(#)BinaryStorableOutput.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A StorableOutput which writes a compact binary format instead of text.
+ * <ul>
+ * <li>ints and longs are written as variable length numbers, small
+ *   numbers take a single byte
+ * <li>class names and strings are written once and then referred to
+ *   by their index in a table of the file
+ * <li>each object is written as a record starting with its length, so
+ *   a reader can tell whether an object has read all of its data
+ * <li>the outermost object, usually the drawing, is written as a record
+ *   without length which is terminated by an end tag instead
+ * </ul>
+ * The objects are written to a buffer which is written to the stream
+ * whenever no record waits for its length, e.g. after each figure of
+ * a drawing. So the buffer only has to hold the largest figure instead
+ * of the whole file. Errors of the stream are reported by checkError().
+ *
+ * @see BinaryStorableInput
+ * @see BinaryStorageFormat
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class BinaryStorableOutput extends StorableOutput {
+
+	/**
+	 * The bytes a binary file starts with.
+	 */
+	static final byte[] MAGIC = { 'J', 'H', 'D', 'B' };
+
+	static final int VERSION = 2;
+
+	static final int TAG_NULL = 0;
+	static final int TAG_REF = 1;
+	static final int TAG_OBJECT = 2;
+	static final int TAG_EXTERNAL = 3;
+	static final int TAG_OPEN_OBJECT = 4;
+	static final int TAG_END = 5;
+
+	/**
+	 * The size of the buffered data from which completed records
+	 * are written to the stream.
+	 */
+	private static final int FLUSH_SIZE = 64 * 1024;
+
+	private OutputStream fStream;
+	private byte[] fBuffer;
+	private int fSize;
+	private int fDepth;
+	private int fOpenLengths;
+	private boolean fError;
+	private Map<String, Integer> fClassNames;
+	private Map<String, Integer> fStrings;
+
+	/**
+	 * Initializes the BinaryStorableOutput with the given output stream.
+	 */
+	public BinaryStorableOutput(OutputStream stream) {
+		fStream = stream;
+		fBuffer = new byte[8192];
+		fClassNames = new HashMap<String, Integer>();
+		fStrings = new HashMap<String, Integer>();
+		for (int i = 0; i < MAGIC.length; i++) {
+			writeByte(MAGIC[i]);
+		}
+		writeVarLong(VERSION);
+	}
+
+	/**
+	 * Writes a storable object to the output stream.
+	 */
+	public void writeStorable(Storable storable) {
+		if (storable == null) {
+			writeByte(TAG_NULL);
+			return;
+		}
+
+		long external = getExternalReference(storable);
+		if (external != -1) {
+			writeByte(TAG_EXTERNAL);
+			writeVarLong(external);
+			return;
+		}
+
+		int ref = getReference(storable);
+		if (ref != -1) {
+			writeByte(TAG_REF);
+			writeVarLong(ref);
+			return;
+		}
+
+		map(storable);
+		if (fDepth == 0) {
+			// the records within the outermost record can be
+			// written to the stream as soon as they are complete
+			writeByte(TAG_OPEN_OBJECT);
+			writeTableEntry(fClassNames, storable.getClass().getName());
+			fDepth++;
+			try {
+				storable.write(this);
+			}
+			finally {
+				fDepth--;
+			}
+			writeByte(TAG_END);
+			flushBuffer();
+			return;
+		}
+
+		writeByte(TAG_OBJECT);
+		writeTableEntry(fClassNames, storable.getClass().getName());
+		// the length of the record is filled in when it is complete
+		int start = fSize;
+		ensureCapacity(4);
+		fSize += 4;
+		fDepth++;
+		fOpenLengths++;
+		try {
+			storable.write(this);
+		}
+		finally {
+			fDepth--;
+			fOpenLengths--;
+		}
+		int length = fSize - start - 4;
+		fBuffer[start] = (byte)(length >>> 24);
+		fBuffer[start + 1] = (byte)(length >>> 16);
+		fBuffer[start + 2] = (byte)(length >>> 8);
+		fBuffer[start + 3] = (byte)length;
+		if (fSize >= FLUSH_SIZE) {
+			flushBuffer();
+		}
+	}
+
+	/**
+	 * Gets the reference of an object which is stored outside of this
+	 * output, e.g. a figure in another chunk of a ChunkedFile. Only
+	 * the reference is written for such objects.
+	 *
+	 * @return a non negative reference or -1 if the object is written
+	 *		to this output
+	 */
+	protected long getExternalReference(Storable storable) {
+		return -1;
+	}
+
+	/**
+	 * Writes an int to the output stream.
+	 */
+	public void writeInt(int i) {
+		// zigzag encoding keeps small negative numbers short
+		writeVarLong(((i << 1) ^ (i >> 31)) & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Writes a long to the output stream.
+	 */
+	public void writeLong(long l) {
+		writeVarLong((l << 1) ^ (l >> 63));
+	}
+
+	/**
+	 * Writes a double to the output stream.
+	 */
+	public void writeDouble(double d) {
+		long bits = Double.doubleToLongBits(d);
+		ensureCapacity(8);
+		for (int shift = 56; shift >= 0; shift -= 8) {
+			fBuffer[fSize++] = (byte)(bits >>> shift);
+		}
+	}
+
+	/**
+	 * Writes a boolean to the output stream.
+	 */
+	public void writeBoolean(boolean b) {
+		writeByte(b ? 1 : 0);
+	}
+
+	/**
+	 * Writes a string to the output stream. Each distinct string
+	 * is only written once.
+	 */
+	public void writeString(String s) {
+		writeTableEntry(fStrings, s);
+	}
+
+	/**
+	 * Closes a storable output stream.
+	 */
+	public void close() {
+		flushBuffer();
+		try {
+			fStream.close();
+		}
+		catch (IOException e) {
+			fError = true;
+		}
+	}
+
+	/**
+	 * Checks whether writing to the stream failed.
+	 */
+	public boolean checkError() {
+		flushBuffer();
+		return fError;
+	}
+
+	/**
+	 * Writes the index of a table entry. 0 stands for a new entry
+	 * which follows as a length prefixed UTF-8 string.
+	 */
+	private void writeTableEntry(Map<String, Integer> table, String s) {
+		Integer index = table.get(s);
+		if (index != null) {
+			writeVarLong(index.intValue() + 1);
+			return;
+		}
+		table.put(s, Integer.valueOf(table.size()));
+		writeVarLong(0);
+		byte[] bytes;
+		try {
+			bytes = s.getBytes("UTF-8");
+		}
+		catch (java.io.UnsupportedEncodingException e) {
+			// every Java platform supports UTF-8
+			throw new InternalError(e.getMessage());
+		}
+		writeVarLong(bytes.length);
+		ensureCapacity(bytes.length);
+		System.arraycopy(bytes, 0, fBuffer, fSize, bytes.length);
+		fSize += bytes.length;
+	}
+
+	/**
+	 * Writes a non negative number in groups of 7 bits, least
+	 * significant group first. The high bit of each byte tells
+	 * whether another byte follows.
+	 */
+	private void writeVarLong(long l) {
+		ensureCapacity(10);
+		while ((l & ~0x7FL) != 0) {
+			fBuffer[fSize++] = (byte)((l & 0x7F) | 0x80);
+			l >>>= 7;
+		}
+		fBuffer[fSize++] = (byte)l;
+	}
+
+	private void writeByte(int b) {
+		ensureCapacity(1);
+		fBuffer[fSize++] = (byte)b;
+	}
+
+	private void ensureCapacity(int count) {
+		if (fSize + count > fBuffer.length) {
+			long capacity = Math.max(fBuffer.length * 2L, (long)fSize + count);
+			if (capacity > Integer.MAX_VALUE - 8) {
+				if ((long)fSize + count > Integer.MAX_VALUE - 8) {
+					throw new OutOfMemoryError("Record too large for the binary format");
+				}
+				capacity = Integer.MAX_VALUE - 8;
+			}
+			byte[] grown = new byte[(int)capacity];
+			System.arraycopy(fBuffer, 0, grown, 0, fSize);
+			fBuffer = grown;
+		}
+	}
+
+	private void flushBuffer() {
+		// a record can only be written when its length is known
+		if ((fOpenLengths > 0) || (fSize == 0)) {
+			return;
+		}
+		try {
+			fStream.write(fBuffer, 0, fSize);
+		}
+		catch (IOException e) {
+			fError = true;
+		}
+		fSize = 0;
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * @(#)BinaryStorageFormat.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A storage format which stores drawings in the compact binary format
+ * of BinaryStorableOutput. Drawings are stored through the same Storable
+ * protocol as in the standard format, but the files are smaller and
+ * faster to read.
+ *
+ * @see BinaryStorableOutput
+ * @see BinaryStorableInput
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class BinaryStorageFormat extends StandardStorageFormat {
+
+	public BinaryStorageFormat() {
+		super();
+	}
+
+	protected String createFileExtension() {
+		return "bdraw";
+	}
+
+	public String createFileDescription() {
+		return "Binary Format (" + getFileExtension() + ")";
+	}
+
+	protected StorableOutput createStorableOutput(OutputStream stream) {
+		return new BinaryStorableOutput(stream);
+	}
+
+	protected StorableInput createStorableInput(InputStream stream) throws IOException {
+		return new BinaryStorableInput(stream);
+	}
+
+	protected StorableInput createStorableInput(ByteBuffer buffer) throws IOException {
+		return new BinaryStorableInput(new ByteBufferInputStream(buffer));
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * @(#)ByteBufferInputStream.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream which reads the bytes remaining in a ByteBuffer,
+ * e.g. a memory mapped file.
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class ByteBufferInputStream extends InputStream {
+
+	private ByteBuffer fBuffer;
+
+	public ByteBufferInputStream(ByteBuffer buffer) {
+		fBuffer = buffer;
+	}
+
+	public int read() {
+		if (!fBuffer.hasRemaining()) {
+			return -1;
+		}
+		return fBuffer.get() & 0xFF;
+	}
+
+	public int read(byte[] bytes, int offset, int length) {
+		if (length == 0) {
+			return 0;
+		}
+		if (!fBuffer.hasRemaining()) {
+			return -1;
+		}
+		int count = Math.min(length, fBuffer.remaining());
+		fBuffer.get(bytes, offset, count);
+		return count;
+	}
+
+	public long skip(long n) {
+		int count = (int)Math.max(0, Math.min(n, fBuffer.remaining()));
+		fBuffer.position(fBuffer.position() + count);
+		return count;
+	}
+
+	public int available() {
+		return fBuffer.remaining();
+	}
+}
@@ -0,0 +1,425 @@
+/*
+ * @(#)ByteBufferStorableInput.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A StorableInput which reads the text format written by StorableOutput
+ * directly from the bytes of a ByteBuffer, e.g. a buffer holding a whole
+ * file or a memory mapped file. Unlike StreamTokenizer it doesn't create a
+ * String for every word and a double for every number: ints and longs are
+ * parsed from the bytes, class names are shared and only quoted strings
+ * are decoded into new Strings.
+ * <p>
+ * The format is the one StreamTokenizer reads, including the escapes of
+ * quoted strings, so files written by StorableOutput can be read by
+ * either input.
+ *
+ * @see StorableOutput
+ * @see StorableInput
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class ByteBufferStorableInput extends StorableInput {
+
+	private static final byte[] NULL = { 'N', 'U', 'L', 'L' };
+	private static final byte[] REF = { 'R', 'E', 'F' };
+
+	/**
+	 * The largest array some virtual machines can allocate.
+	 */
+	private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+	private ByteBuffer fBuffer;
+	private int fPosition;
+	private int fLimit;
+	private int fLine;
+	private Charset fCharset;
+
+	/**
+	 * Recently read words by the hash of their bytes. Class names
+	 * repeat a lot, so they are only turned into Strings once.
+	 */
+	private String[] fWords;
+
+	/**
+	 * Holds the unescaped bytes of a quoted string.
+	 */
+	private byte[] fStringBytes;
+
+	/**
+	 * Initializes the input with the bytes remaining in the given buffer.
+	 */
+	public ByteBufferStorableInput(ByteBuffer buffer) {
+		fBuffer = buffer;
+		fPosition = buffer.position();
+		fLimit = buffer.limit();
+		fLine = 1;
+		// StorableOutput writes in the default encoding
+		fCharset = Charset.defaultCharset();
+		fWords = new String[256];
+		fStringBytes = new byte[64];
+	}
+
+	/**
+	 * Initializes the input with the contents of the given stream,
+	 * which is read completely into a buffer.
+	 *
+	 * @throws IOException if the stream doesn't fit into a buffer
+	 */
+	public ByteBufferStorableInput(InputStream stream) throws IOException {
+		this(readFully(stream));
+	}
+
+	private static ByteBuffer readFully(InputStream stream) throws IOException {
+		byte[] bytes = new byte[Math.max(stream.available(), 8192)];
+		int size = 0;
+		int count;
+		while ((count = stream.read(bytes, size, bytes.length - size)) >= 0) {
+			size += count;
+			if (size == bytes.length) {
+				if (size == MAX_BUFFER_SIZE) {
+					if (stream.read() < 0) {
+						break;
+					}
+					throw new IOException("Stream is too large for a buffer");
+				}
+				byte[] grown = new byte[(int)Math.min(bytes.length * 2L, MAX_BUFFER_SIZE)];
+				System.arraycopy(bytes, 0, grown, 0, size);
+				bytes = grown;
+			}
+		}
+		return ByteBuffer.wrap(bytes, 0, size);
+	}
+
+	/**
+	 * Reads and resurrects a Storable object from the input stream.
+	 */
+	public Storable readStorable() throws IOException {
+		skipWhitespace();
+		if ((fPosition < fLimit) && isWordStart(byteAt(fPosition))) {
+			int start = fPosition;
+			int end = skipWord();
+			if (equals(start, end, NULL)) {
+				return null;
+			}
+			if (equals(start, end, REF)) {
+				return retrieve(readInt());
+			}
+			return readObject(word(start, end));
+		}
+		// a class name can also be read as a quoted string
+		return readObject(readString());
+	}
+
+	private Storable readObject(String className) throws IOException {
+		Storable storable = (Storable)makeInstance(className);
+		map(storable);
+		storable.read(this);
+		return storable;
+	}
+
+	/**
+	 * Reads a string from the input stream.
+	 */
+	public String readString() throws IOException {
+		skipWhitespace();
+		if (fPosition < fLimit) {
+			int b = byteAt(fPosition);
+			if (isWordStart(b)) {
+				int start = fPosition;
+				return word(start, skipWord());
+			}
+			if (b == '"') {
+				fPosition++;
+				return quotedString();
+			}
+		}
+		throw new IOException("String expected in line: " + fLine);
+	}
+
+	/**
+	 * Reads an int from the input stream.
+	 */
+	public int readInt() throws IOException {
+		long l = parseLong("Integer");
+		// like a cast of the double read by StreamTokenizer
+		return (int)Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, l));
+	}
+
+	/**
+	 * Reads a long from the input stream.
+	 */
+	public long readLong() throws IOException {
+		return parseLong("Long");
+	}
+
+	/**
+	 * Reads a double from the input stream.
+	 */
+	public double readDouble() throws IOException {
+		skipWhitespace();
+		int start = fPosition;
+		int end = skipNumber();
+		if (end == start) {
+			throw new IOException("Double expected in line: " + fLine);
+		}
+		StringBuffer number = new StringBuffer(end - start);
+		for (int i = start; i < end; i++) {
+			number.append((char)byteAt(i));
+		}
+		if ((number.length() == 1) && (number.charAt(0) == '.')) {
+			// StreamTokenizer reads a single dot as 0
+			return 0;
+		}
+		try {
+			return Double.parseDouble(number.toString());
+		}
+		catch (NumberFormatException e) {
+			throw new IOException("Double expected in line: " + fLine);
+		}
+	}
+
+	/**
+	 * Reads a boolean from the input stream.
+	 */
+	public boolean readBoolean() throws IOException {
+		return parseLong("Integer") == 1;
+	}
+
+	/**
+	 * Parses a number and drops its fraction. Numbers which don't
+	 * fit into a long are clamped.
+	 */
+	private long parseLong(String type) throws IOException {
+		skipWhitespace();
+		int start = fPosition;
+		int end = skipNumber();
+		if (end == start) {
+			throw new IOException(type + " expected in line: " + fLine);
+		}
+		int i = start;
+		boolean negative = (byteAt(i) == '-');
+		if (negative) {
+			i++;
+		}
+		long l = 0;
+		for (; i < end; i++) {
+			int digit = byteAt(i) - '0';
+			if ((digit < 0) || (digit > 9)) {
+				// the fraction
+				break;
+			}
+			if (l > (Long.MAX_VALUE - digit) / 10) {
+				return negative ? Long.MIN_VALUE : Long.MAX_VALUE;
+			}
+			l = l * 10 + digit;
+		}
+		return negative ? -l : l;
+	}
+
+	/**
+	 * Skips a number made of an optional minus sign, digits and a dot
+	 * like StreamTokenizer.
+	 *
+	 * @return the end of the number or the current position if there is no number
+	 */
+	private int skipNumber() {
+		int i = fPosition;
+		if ((i < fLimit) && (byteAt(i) == '-')) {
+			i++;
+		}
+		boolean dot = false;
+		int digits = 0;
+		while (i < fLimit) {
+			int b = byteAt(i);
+			if ((b >= '0') && (b <= '9')) {
+				digits++;
+			}
+			else if ((b == '.') && !dot) {
+				dot = true;
+			}
+			else {
+				break;
+			}
+			i++;
+		}
+		if ((digits == 0) && !dot) {
+			return fPosition;
+		}
+		fPosition = i;
+		return i;
+	}
+
+	/**
+	 * Reads the rest of a quoted string and resolves its escapes.
+	 */
+	private String quotedString() throws IOException {
+		int length = 0;
+		while (fPosition < fLimit) {
+			int b = byteAt(fPosition++);
+			if (b == '"') {
+				break;
+			}
+			if ((b == '\n') || (b == '\r')) {
+				// StreamTokenizer ends an unterminated string at the end of a line
+				fPosition--;
+				break;
+			}
+			if ((b == '\\') && (fPosition < fLimit)) {
+				b = unescape();
+			}
+			if (length == fStringBytes.length) {
+				byte[] grown = new byte[length * 2];
+				System.arraycopy(fStringBytes, 0, grown, 0, length);
+				fStringBytes = grown;
+			}
+			fStringBytes[length++] = (byte)b;
+		}
+		return new String(fStringBytes, 0, length, fCharset);
+	}
+
+	/**
+	 * Resolves the escape sequence after a backslash.
+	 */
+	private int unescape() {
+		int b = byteAt(fPosition++);
+		switch (b) {
+			case 'a': return 0x7;
+			case 'b': return '\b';
+			case 'f': return 0xC;
+			case 'n': return '\n';
+			case 'r': return '\r';
+			case 't': return '\t';
+			case 'v': return 0xB;
+			default:
+				if ((b >= '0') && (b <= '7')) {
+					// up to three octal digits
+					int value = b - '0';
+					int maxDigits = (b <= '3') ? 2 : 1;
+					for (int i = 0; (i < maxDigits) && (fPosition < fLimit); i++) {
+						int next = byteAt(fPosition);
+						if ((next < '0') || (next > '7')) {
+							break;
+						}
+						value = value * 8 + (next - '0');
+						fPosition++;
+					}
+					return value;
+				}
+				// any other character stands for itself, e.g. quotes and backslashes
+				return b;
+		}
+	}
+
+	private void skipWhitespace() {
+		while (fPosition < fLimit) {
+			int b = byteAt(fPosition);
+			if (b > ' ') {
+				return;
+			}
+			if (b == '\n') {
+				fLine++;
+			}
+			fPosition++;
+		}
+	}
+
+	/**
+	 * Skips a word starting at the current position.
+	 *
+	 * @return the end of the word
+	 */
+	private int skipWord() {
+		fPosition++;
+		while ((fPosition < fLimit) && isWordPart(byteAt(fPosition))) {
+			fPosition++;
+		}
+		return fPosition;
+	}
+
+	/**
+	 * Gets the word between start and end. The Strings of
+	 * recently read words are reused.
+	 */
+	private String word(int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + byteAt(i);
+		}
+		int slot = (hash ^ (hash >>> 8)) & (fWords.length - 1);
+		String word = fWords[slot];
+		if ((word == null) || !equals(start, end, word)) {
+			word = new String(bytes(start, end), 0, end - start, fCharset);
+			fWords[slot] = word;
+		}
+		return word;
+	}
+
+	private byte[] bytes(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = start; i < end; i++) {
+			bytes[i - start] = fBuffer.get(i);
+		}
+		return bytes;
+	}
+
+	private boolean equals(int start, int end, String word) {
+		if (end - start != word.length()) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			if (byteAt(i) != word.charAt(i - start)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean equals(int start, int end, byte[] word) {
+		if (end - start != word.length) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			if (byteAt(i) != word[i - start]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether a byte starts a word. Words are made of
+	 * letters, the inner class separator $ and the characters
+	 * above 0xA0 like with StreamTokenizer.
+	 */
+	private static boolean isWordStart(int b) {
+		return ((b >= 'a') && (b <= 'z')) || ((b >= 'A') && (b <= 'Z'))
+			|| (b >= 0xA0) || (b == '$') || (b == '_');
+	}
+
+	/**
+	 * Checks whether a byte continues a word. Besides the characters
+	 * starting a word these are the characters of numbers.
+	 */
+	private static boolean isWordPart(int b) {
+		return isWordStart(b) || ((b >= '0') && (b <= '9')) || (b == '.') || (b == '-');
+	}
+
+	private int byteAt(int index) {
+		return fBuffer.get(index) & 0xFF;
+	}
+}
@@ -0,0 +1,805 @@
+/*
+ * @(#)ChunkedFile.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jhotdraw.framework.Figure;
+
+/**
+ * A file of the ChunkedStorageFormat. The figures of a drawing are
+ * divided into square cells by the center of their display boxes and
+ * the figures of each cell are stored as a chunk in the format of
+ * BinaryStorableOutput, so each chunk can be read on its own. An index
+ * at the end of the file lists the cell, the bounds of the figures,
+ * the location in the file and the referenced chunks of each chunk.
+ * <p>
+ * A figure which refers to a figure of another chunk (e.g. a connection
+ * between figures of two cells) doesn't contain that figure but an
+ * explicit reference to its chunk and its position in the chunk. Chunks
+ * referring to each other form a group and are always read together.
+ * The figures of a chunk are stored by levels: a figure of level 0
+ * doesn't refer to other chunks and a figure of level n only refers to
+ * figures of a lower level, so the chunks of a group can be read
+ * level by level.
+ *
+ * @see ChunkedStorageFormat
+ * @see org.jhotdraw.standard.ChunkedDrawing
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class ChunkedFile {
+
+	/**
+	 * The bytes a chunked file starts and ends with.
+	 */
+	static final byte[] MAGIC = { 'J', 'H', 'D', 'C' };
+
+	static final int VERSION = 1;
+
+	/**
+	 * The size of the trailer at the end of the file: the offset of
+	 * the index and the magic bytes.
+	 */
+	private static final int TRAILER_SIZE = 8 + 4;
+
+	private String fFileName;
+	private RandomAccessFile fFile;
+	private int fCellSize;
+	private int fLowestZValue;
+	private int fHighestZValue;
+	private List<Entry> fEntries;
+
+	/**
+	 * Opens a chunked file and reads its index.
+	 */
+	public ChunkedFile(String fileName) throws IOException {
+		fFileName = fileName;
+		fFile = new RandomAccessFile(fileName, "r");
+		try {
+			readIndex();
+		}
+		catch (IOException e) {
+			fFile.close();
+			throw e;
+		}
+	}
+
+	private void readIndex() throws IOException {
+		long length = fFile.length();
+		if (length < MAGIC.length + 4 + TRAILER_SIZE) {
+			throw new IOException("Not a chunked drawing: " + fFileName);
+		}
+		checkMagic();
+		int version = fFile.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported version of the chunked format: " + version);
+		}
+		fFile.seek(length - TRAILER_SIZE);
+		long indexOffset = fFile.readLong();
+		checkMagic();
+		if ((indexOffset < MAGIC.length + 4) || (indexOffset > length - TRAILER_SIZE)) {
+			throw new IOException("Invalid index offset " + indexOffset + " in " + fFileName);
+		}
+		byte[] bytes = new byte[(int)(length - TRAILER_SIZE - indexOffset)];
+		fFile.seek(indexOffset);
+		fFile.readFully(bytes);
+		DataInputStream index = new DataInputStream(new ByteArrayInputStream(bytes));
+		fCellSize = index.readInt();
+		fLowestZValue = index.readInt();
+		fHighestZValue = index.readInt();
+		int count = index.readInt();
+		fEntries = new ArrayList<Entry>(count);
+		for (int i = 0; i < count; i++) {
+			Entry entry = new Entry();
+			entry.fColumn = index.readInt();
+			entry.fRow = index.readInt();
+			entry.fBounds = new Rectangle(index.readInt(), index.readInt(), index.readInt(), index.readInt());
+			entry.fOffset = index.readLong();
+			entry.fLength = index.readInt();
+			entry.fFigureCount = index.readInt();
+			entry.fGroup = index.readInt();
+			entry.fReferences = new int[index.readInt()];
+			for (int j = 0; j < entry.fReferences.length; j++) {
+				entry.fReferences[j] = index.readInt();
+			}
+			fEntries.add(entry);
+		}
+	}
+
+	private void checkMagic() throws IOException {
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (fFile.readByte() != MAGIC[i]) {
+				throw new IOException("Not a chunked drawing: " + fFileName);
+			}
+		}
+	}
+
+	public String getFileName() {
+		return fFileName;
+	}
+
+	/**
+	 * Gets the width and height of the cells the figures are divided into.
+	 */
+	public int getCellSize() {
+		return fCellSize;
+	}
+
+	public int getLowestZValue() {
+		return fLowestZValue;
+	}
+
+	public int getHighestZValue() {
+		return fHighestZValue;
+	}
+
+	public int getChunkCount() {
+		return fEntries.size();
+	}
+
+	/**
+	 * Gets the index entry of a chunk.
+	 */
+	public Entry getEntry(int chunk) {
+		return fEntries.get(chunk);
+	}
+
+	/**
+	 * Reads the stored bytes of a chunk.
+	 */
+	public synchronized byte[] readChunk(int chunk) throws IOException {
+		Entry entry = getEntry(chunk);
+		byte[] bytes = new byte[entry.fLength];
+		fFile.seek(entry.fOffset);
+		fFile.readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Reads the figures of all chunks of a group.
+	 *
+	 * @return the contents of the chunks of the group
+	 */
+	public List<Content> readGroup(int group) throws IOException {
+		Map<Integer, Content> contents = new HashMap<Integer, Content>();
+		List<ChunkInput> inputs = new ArrayList<ChunkInput>();
+		for (int i = 0; i < fEntries.size(); i++) {
+			if (fEntries.get(i).fGroup == group) {
+				Content content = new Content(i, fEntries.get(i).fFigureCount);
+				contents.put(Integer.valueOf(i), content);
+				inputs.add(new ChunkInput(readChunk(i), content, contents));
+			}
+		}
+		// read the figures of all chunks level by level, so references
+		// to other chunks always refer to figures which have been read
+		int level = 0;
+		while (level != Integer.MAX_VALUE) {
+			int nextLevel = Integer.MAX_VALUE;
+			for (int i = 0; i < inputs.size(); i++) {
+				ChunkInput input = inputs.get(i);
+				input.readLevel(level);
+				if (!input.isFinished()) {
+					nextLevel = Math.min(nextLevel, input.getNextLevel());
+				}
+			}
+			level = nextLevel;
+		}
+		List<Content> result = new ArrayList<Content>(inputs.size());
+		for (int i = 0; i < inputs.size(); i++) {
+			result.add(inputs.get(i).fContent);
+		}
+		return result;
+	}
+
+	/**
+	 * Closes the file.
+	 */
+	public synchronized void close() throws IOException {
+		fFile.close();
+	}
+
+	/**
+	 * Writes chunks to a stream. The stream isn't closed.
+	 * <p>
+	 * A chunk which is taken over unchanged from its source file is
+	 * copied, unless it refers to a chunk which is written again. The
+	 * figures of unchanged chunks are only needed if they are copied
+	 * or figures of other chunks refer to them.
+	 *
+	 * @param cellSize the width and height of the cells
+	 * @param layouts the chunks to be written, the chunks taken over from
+	 *		a file must keep their positions
+	 * @throws IOException if the stream fails or figures of different
+	 *		chunks refer to each other in a cycle
+	 */
+	public static void write(OutputStream stream, int cellSize, List<Layout> layouts) throws IOException {
+		// the figures in memory and their chunks
+		Map<Figure, Integer> chunkOfFigure = new IdentityHashMap<Figure, Integer>();
+		Map<Figure, Integer> levels = new IdentityHashMap<Figure, Integer>();
+		boolean[] written = new boolean[layouts.size()];
+		for (int i = 0; i < layouts.size(); i++) {
+			Layout layout = layouts.get(i);
+			written[i] = !layout.isCopyable(i);
+			if (layout.fFigures != null) {
+				for (int j = 0; j < layout.fFigures.size(); j++) {
+					Figure figure = layout.fFigures.get(j);
+					chunkOfFigure.put(figure, Integer.valueOf(i));
+					if (!written[i]) {
+						levels.put(figure, Integer.valueOf(layout.fLevels[j]));
+					}
+				}
+			}
+		}
+		// copied chunks refer to the figures of other chunks by their
+		// positions, so they are written if the referenced chunks are
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 0; i < layouts.size(); i++) {
+				if (!written[i] && refersTo(layouts.get(i).fSource.getEntry(i).fReferences, written)) {
+					if (layouts.get(i).fFigures == null) {
+						throw new IOException("Chunk " + i + " has to be written, but its figures haven't been read");
+					}
+					written[i] = true;
+					for (int j = 0; j < layouts.get(i).fFigures.size(); j++) {
+						levels.remove(layouts.get(i).fFigures.get(j));
+					}
+					changed = true;
+				}
+			}
+		}
+
+		// collect the references of the written figures
+		ReferenceCollector collector = new ReferenceCollector(chunkOfFigure);
+		Map<Figure, Set<Figure>> references = new IdentityHashMap<Figure, Set<Figure>>();
+		for (int i = 0; i < layouts.size(); i++) {
+			if (written[i]) {
+				for (int j = 0; j < layouts.get(i).fFigures.size(); j++) {
+					Figure figure = layouts.get(i).fFigures.get(j);
+					references.put(figure, collector.collect(figure, i));
+				}
+			}
+		}
+		// the figures are visited in drawing order, visiting them in the
+		// order of an identity map fills the levels map in clusters
+		Map<Figure, Boolean> visiting = new IdentityHashMap<Figure, Boolean>();
+		for (int i = 0; i < layouts.size(); i++) {
+			if (written[i]) {
+				for (int j = 0; j < layouts.get(i).fFigures.size(); j++) {
+					computeLevel(layouts.get(i).fFigures.get(j), references, levels, visiting);
+				}
+			}
+		}
+
+		// order the written chunks by levels
+		final Map<Figure, Integer> figureLevels = levels;
+		Map<Figure, Integer> positions = new IdentityHashMap<Figure, Integer>();
+		int[][] chunkReferences = new int[layouts.size()][];
+		int lowestZ = 0;
+		int highestZ = 0;
+		for (int i = 0; i < layouts.size(); i++) {
+			Layout layout = layouts.get(i);
+			if (layout.fSource != null) {
+				lowestZ = Math.min(lowestZ, layout.fSource.getLowestZValue());
+				highestZ = Math.max(highestZ, layout.fSource.getHighestZValue());
+			}
+			if (written[i]) {
+				List<Figure> ordered = new ArrayList<Figure>(layout.fFigures);
+				// a stable sort keeps the drawing order within a level
+				Collections.sort(ordered, new Comparator<Figure>() {
+					public int compare(Figure f1, Figure f2) {
+						return figureLevels.get(f1).compareTo(figureLevels.get(f2));
+					}
+				});
+				layout.fFigures = ordered;
+				layout.fLevels = new int[ordered.size()];
+				Set<Integer> referencedChunks = new LinkedHashSet<Integer>();
+				for (int j = 0; j < ordered.size(); j++) {
+					Figure figure = ordered.get(j);
+					layout.fLevels[j] = figureLevels.get(figure).intValue();
+					lowestZ = Math.min(lowestZ, figure.getZValue());
+					highestZ = Math.max(highestZ, figure.getZValue());
+					for (Figure target : references.get(figure)) {
+						referencedChunks.add(chunkOfFigure.get(target));
+					}
+				}
+				chunkReferences[i] = new int[referencedChunks.size()];
+				int j = 0;
+				for (Integer chunk : referencedChunks) {
+					chunkReferences[i][j++] = chunk.intValue();
+				}
+			}
+			else {
+				chunkReferences[i] = layout.fSource.getEntry(i).fReferences;
+			}
+			if (layout.fFigures != null) {
+				for (int j = 0; j < layout.fFigures.size(); j++) {
+					positions.put(layout.fFigures.get(j), Integer.valueOf(j));
+				}
+			}
+		}
+		int[] groups = computeGroups(chunkReferences);
+
+		// write the chunks and the index
+		PositionOutputStream output = new PositionOutputStream(stream);
+		DataOutputStream data = new DataOutputStream(output);
+		data.write(MAGIC);
+		data.writeInt(VERSION);
+		List<Entry> entries = new ArrayList<Entry>(layouts.size());
+		for (int i = 0; i < layouts.size(); i++) {
+			Layout layout = layouts.get(i);
+			Entry entry = new Entry();
+			entry.fColumn = layout.fColumn;
+			entry.fRow = layout.fRow;
+			entry.fOffset = output.getPosition();
+			entry.fGroup = groups[i];
+			entry.fReferences = chunkReferences[i];
+			if (written[i]) {
+				ChunkOutput chunkOutput = new ChunkOutput(data, i, chunkOfFigure, positions);
+				chunkOutput.writeInt(layout.fFigures.size());
+				Rectangle bounds = null;
+				for (int j = 0; j < layout.fFigures.size(); j++) {
+					Figure figure = layout.fFigures.get(j);
+					chunkOutput.writeInt(layout.fLevels[j]);
+					chunkOutput.writeInt(figure.getZValue());
+					chunkOutput.writeStorable(figure);
+					if (bounds == null) {
+						bounds = figure.displayBox();
+					}
+					else {
+						bounds.add(figure.displayBox());
+					}
+				}
+				if (chunkOutput.checkError()) {
+					throw new IOException("Could not write chunk " + i);
+				}
+				entry.fBounds = (bounds != null) ? bounds : new Rectangle(layout.fColumn * cellSize, layout.fRow * cellSize, 0, 0);
+				entry.fFigureCount = layout.fFigures.size();
+			}
+			else {
+				data.write(layout.fSource.readChunk(i));
+				entry.fBounds = layout.fSource.getEntry(i).getBounds();
+				entry.fFigureCount = layout.fSource.getEntry(i).fFigureCount;
+			}
+			entry.fLength = (int)(output.getPosition() - entry.fOffset);
+			entries.add(entry);
+			layout.fWritten = written[i];
+		}
+		long indexOffset = output.getPosition();
+		data.writeInt(cellSize);
+		data.writeInt(lowestZ);
+		data.writeInt(highestZ);
+		data.writeInt(entries.size());
+		for (int i = 0; i < entries.size(); i++) {
+			Entry entry = entries.get(i);
+			data.writeInt(entry.fColumn);
+			data.writeInt(entry.fRow);
+			data.writeInt(entry.fBounds.x);
+			data.writeInt(entry.fBounds.y);
+			data.writeInt(entry.fBounds.width);
+			data.writeInt(entry.fBounds.height);
+			data.writeLong(entry.fOffset);
+			data.writeInt(entry.fLength);
+			data.writeInt(entry.fFigureCount);
+			data.writeInt(entry.fGroup);
+			data.writeInt(entry.fReferences.length);
+			for (int j = 0; j < entry.fReferences.length; j++) {
+				data.writeInt(entry.fReferences[j]);
+			}
+		}
+		data.writeLong(indexOffset);
+		data.write(MAGIC);
+		data.flush();
+	}
+
+	private static boolean refersTo(int[] chunks, boolean[] written) {
+		for (int i = 0; i < chunks.length; i++) {
+			if (written[chunks[i]]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int computeLevel(Figure figure, Map<Figure, Set<Figure>> references, Map<Figure, Integer> levels, Map<Figure, Boolean> visiting) throws IOException {
+		Integer level = levels.get(figure);
+		if (level != null) {
+			return level.intValue();
+		}
+		if (visiting.put(figure, Boolean.TRUE) != null) {
+			throw new IOException("Figures of different chunks refer to each other in a cycle: " + figure);
+		}
+		int result = 0;
+		for (Figure target : references.get(figure)) {
+			result = Math.max(result, computeLevel(target, references, levels, visiting) + 1);
+		}
+		visiting.remove(figure);
+		levels.put(figure, Integer.valueOf(result));
+		return result;
+	}
+
+	/**
+	 * Assigns the chunks referring to each other directly or indirectly
+	 * to the same group.
+	 */
+	private static int[] computeGroups(int[][] references) {
+		int[] parents = new int[references.length];
+		for (int i = 0; i < parents.length; i++) {
+			parents[i] = i;
+		}
+		for (int i = 0; i < references.length; i++) {
+			for (int j = 0; j < references[i].length; j++) {
+				parents[root(parents, i)] = root(parents, references[i][j]);
+			}
+		}
+		int[] groups = new int[references.length];
+		for (int i = 0; i < groups.length; i++) {
+			groups[i] = root(parents, i);
+		}
+		return groups;
+	}
+
+	private static int root(int[] parents, int i) {
+		while (parents[i] != i) {
+			parents[i] = parents[parents[i]];
+			i = parents[i];
+		}
+		return i;
+	}
+
+	/**
+	 * The index entry of a chunk.
+	 */
+	public static final class Entry {
+		int fColumn;
+		int fRow;
+		Rectangle fBounds;
+		long fOffset;
+		int fLength;
+		int fFigureCount;
+		int fGroup;
+		int[] fReferences;
+
+		Entry() {
+		}
+
+		/**
+		 * Gets the column of the cell of the chunk.
+		 */
+		public int getColumn() {
+			return fColumn;
+		}
+
+		/**
+		 * Gets the row of the cell of the chunk.
+		 */
+		public int getRow() {
+			return fRow;
+		}
+
+		/**
+		 * Gets the union of the display boxes of the figures. The
+		 * figures may extend beyond their cell.
+		 */
+		public Rectangle getBounds() {
+			return new Rectangle(fBounds);
+		}
+
+		public int getFigureCount() {
+			return fFigureCount;
+		}
+
+		/**
+		 * Gets the group of chunks which are read together.
+		 */
+		public int getGroup() {
+			return fGroup;
+		}
+
+		/**
+		 * Gets the chunks whose figures are referred to by this chunk.
+		 */
+		public int[] getReferences() {
+			return fReferences.clone();
+		}
+	}
+
+	/**
+	 * The figures read from a chunk in the order they are stored.
+	 */
+	public static final class Content {
+		private int fChunk;
+		private Figure[] fFigures;
+		private int[] fLevels;
+		private int fSize;
+
+		Content(int chunk, int figureCount) {
+			fChunk = chunk;
+			fFigures = new Figure[figureCount];
+			fLevels = new int[figureCount];
+		}
+
+		public int getChunk() {
+			return fChunk;
+		}
+
+		public Figure[] getFigures() {
+			return fFigures;
+		}
+
+		/**
+		 * Gets the levels of the figures which have to be passed on to
+		 * a Layout if the chunk is stored again.
+		 */
+		public int[] getLevels() {
+			return fLevels;
+		}
+	}
+
+	/**
+	 * Describes a chunk to be written.
+	 *
+	 * @see ChunkedFile#write
+	 */
+	public static class Layout {
+		private int fColumn;
+		private int fRow;
+		private ChunkedFile fSource;
+		private List<Figure> fFigures;
+		private int[] fLevels;
+		private boolean fWritten;
+
+		/**
+		 * Creates the layout of the chunk of the given cell.
+		 */
+		public Layout(int column, int row) {
+			fColumn = column;
+			fRow = row;
+		}
+
+		/**
+		 * Sets the file the chunk is taken over from. The chunk must
+		 * keep its position.
+		 */
+		public void setSource(ChunkedFile source) {
+			fSource = source;
+		}
+
+		/**
+		 * Sets the figures of the chunk.
+		 *
+		 * @param levels the stored levels of the figures if they are
+		 *		unchanged and in the order of the source file, otherwise null
+		 */
+		public void setFigures(List<Figure> figures, int[] levels) {
+			fFigures = figures;
+			fLevels = levels;
+		}
+
+		/**
+		 * Gets the figures in the order they have been written.
+		 */
+		public List<Figure> getFigures() {
+			return fFigures;
+		}
+
+		/**
+		 * Gets the levels of the figures as they have been written.
+		 */
+		public int[] getLevels() {
+			return fLevels;
+		}
+
+		/**
+		 * Checks whether the chunk has been written again instead of
+		 * being copied.
+		 */
+		public boolean isWritten() {
+			return fWritten;
+		}
+
+		boolean isCopyable(int position) {
+			return (fSource != null) && (position < fSource.getChunkCount())
+				&& ((fFigures == null) || (fLevels != null));
+		}
+	}
+
+	/**
+	 * Reads the figures of a chunk. References to figures of other
+	 * chunks are resolved through the contents of the group.
+	 */
+	private static class ChunkInput extends BinaryStorableInput {
+		private Content fContent;
+		private Map<Integer, Content> fContents;
+		private int fNextLevel;
+
+		ChunkInput(byte[] bytes, Content content, Map<Integer, Content> contents) throws IOException {
+			super(new ByteArrayInputStream(bytes));
+			fContent = content;
+			fContents = contents;
+			if (readInt() != content.fFigures.length) {
+				throw new IOException("Invalid figure count in chunk " + content.fChunk);
+			}
+			if (!isFinished()) {
+				fNextLevel = readInt();
+			}
+		}
+
+		boolean isFinished() {
+			return fContent.fSize == fContent.fFigures.length;
+		}
+
+		int getNextLevel() {
+			return fNextLevel;
+		}
+
+		void readLevel(int level) throws IOException {
+			while (!isFinished() && (fNextLevel == level)) {
+				int z = readInt();
+				Figure figure = (Figure)readStorable();
+				figure.setZValue(z);
+				fContent.fLevels[fContent.fSize] = level;
+				fContent.fFigures[fContent.fSize++] = figure;
+				if (!isFinished()) {
+					fNextLevel = readInt();
+					if (fNextLevel < level) {
+						throw new IOException("Invalid level " + fNextLevel + " in chunk " + fContent.fChunk);
+					}
+				}
+			}
+		}
+
+		protected Storable resolveExternalReference(long reference) throws IOException {
+			Content content = fContents.get(Integer.valueOf((int)(reference >>> 32)));
+			int position = (int)reference;
+			if ((content == null) || (position < 0) || (position >= content.fSize)) {
+				throw new IOException("Invalid reference to figure " + position + " of chunk "
+					+ (reference >>> 32) + " in chunk " + fContent.fChunk);
+			}
+			return content.fFigures[position];
+		}
+	}
+
+	/**
+	 * Writes the figures of a chunk. Figures of other chunks are
+	 * written as references to their chunk and position.
+	 */
+	private static class ChunkOutput extends BinaryStorableOutput {
+		private int fChunk;
+		private Map<Figure, Integer> fChunkOfFigure;
+		private Map<Figure, Integer> fPositions;
+
+		ChunkOutput(OutputStream stream, int chunk, Map<Figure, Integer> chunkOfFigure, Map<Figure, Integer> positions) {
+			super(stream);
+			fChunk = chunk;
+			fChunkOfFigure = chunkOfFigure;
+			fPositions = positions;
+		}
+
+		protected long getExternalReference(Storable storable) {
+			Integer chunk = fChunkOfFigure.get(storable);
+			if ((chunk == null) || (chunk.intValue() == fChunk)) {
+				return -1;
+			}
+			return ((long)chunk.intValue() << 32) | fPositions.get(storable).intValue();
+		}
+	}
+
+	/**
+	 * Walks through the objects a figure writes and collects the
+	 * figures of other chunks it refers to.
+	 */
+	private static class ReferenceCollector extends StorableOutput {
+		private Map<Figure, Integer> fChunkOfFigure;
+		private int fChunk;
+		private Map<Storable, Boolean> fVisited = new IdentityHashMap<Storable, Boolean>();
+		private Set<Figure> fTargets;
+
+		ReferenceCollector(Map<Figure, Integer> chunkOfFigure) {
+			fChunkOfFigure = chunkOfFigure;
+		}
+
+		Set<Figure> collect(Figure figure, int chunk) {
+			fChunk = chunk;
+			fVisited.clear();
+			fTargets = Collections.emptySet();
+			fVisited.put(figure, Boolean.TRUE);
+			figure.write(this);
+			return fTargets;
+		}
+
+		public void writeStorable(Storable storable) {
+			if (storable == null) {
+				return;
+			}
+			Integer chunk = fChunkOfFigure.get(storable);
+			if ((chunk != null) && (chunk.intValue() != fChunk)) {
+				if (fTargets.isEmpty()) {
+					fTargets = Collections.newSetFromMap(new IdentityHashMap<Figure, Boolean>(4));
+				}
+				fTargets.add((Figure)storable);
+				return;
+			}
+			if (fVisited.put(storable, Boolean.TRUE) == null) {
+				storable.write(this);
+			}
+		}
+
+		public void writeInt(int i) {
+		}
+
+		public void writeLong(long l) {
+		}
+
+		public void writeColor(Color c) {
+		}
+
+		public void writeDouble(double d) {
+		}
+
+		public void writeBoolean(boolean b) {
+		}
+
+		public void writeString(String s) {
+		}
+
+		public void close() {
+		}
+
+		public boolean checkError() {
+			return false;
+		}
+	}
+
+	/**
+	 * Counts the bytes written, a DataOutputStream only counts up to 2 GB.
+	 */
+	private static class PositionOutputStream extends FilterOutputStream {
+		private long fPosition;
+
+		PositionOutputStream(OutputStream stream) {
+			super(stream);
+		}
+
+		public void write(int b) throws IOException {
+			out.write(b);
+			fPosition++;
+		}
+
+		public void write(byte[] bytes, int offset, int length) throws IOException {
+			out.write(bytes, offset, length);
+			fPosition += length;
+		}
+
+		long getPosition() {
+			return fPosition;
+		}
+	}
+}
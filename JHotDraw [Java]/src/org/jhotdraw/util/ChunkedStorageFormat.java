@@ -0,0 +1,168 @@
+/*
+ * @(#)ChunkedStorageFormat.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.framework.FigureEnumeration;
+import org.jhotdraw.standard.ChunkedDrawing;
+
+/**
+ * A storage format for very large drawings. The figures are divided
+ * into square cells which are stored as separately readable chunks of
+ * a ChunkedFile. Restoring a drawing only reads the index of the file,
+ * the returned ChunkedDrawing reads the chunks around the visible area
+ * of its views when they are drawn.
+ * <p>
+ * Storing a ChunkedDrawing copies the unchanged chunks from the file it
+ * has been restored from and only writes the changed chunks again.
+ *
+ * @see ChunkedFile
+ * @see ChunkedDrawing
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class ChunkedStorageFormat extends StandardStorageFormat {
+
+	/**
+	 * The default width and height of the cells the figures are
+	 * divided into.
+	 */
+	public static final int DEFAULT_CELL_SIZE = 1024;
+
+	private int fCellSize;
+
+	public ChunkedStorageFormat() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * @param cellSize the width and height of the cells of drawings
+	 *		which haven't been restored from a chunked file
+	 */
+	public ChunkedStorageFormat(int cellSize) {
+		super();
+		if (cellSize < 1) {
+			throw new IllegalArgumentException("cellSize must be at least 1: " + cellSize);
+		}
+		fCellSize = cellSize;
+	}
+
+	protected String createFileExtension() {
+		return "cdraw";
+	}
+
+	public String createFileDescription() {
+		return "Chunked Format (" + getFileExtension() + ")";
+	}
+
+	public int getCellSize() {
+		return fCellSize;
+	}
+
+	/**
+	 * Stores a drawing in a chunked file. The file is written to a
+	 * temporary file first, which replaces the file when it is complete.
+	 * A ChunkedDrawing reads its figures from the new file afterwards.
+	 */
+	public String store(String fileName, Drawing saveDrawing) throws IOException {
+		File file = new File(adjustFileName(fileName));
+		ChunkedDrawing chunkedDrawing = (saveDrawing instanceof ChunkedDrawing) ? (ChunkedDrawing)saveDrawing : null;
+		int cellSize = (chunkedDrawing != null) ? chunkedDrawing.getCellSize() : fCellSize;
+		List<ChunkedFile.Layout> layouts = (chunkedDrawing != null) ? chunkedDrawing.getLayouts() : createLayouts(saveDrawing, cellSize);
+		File tempFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+		boolean written = false;
+		try {
+			FileOutputStream stream = new FileOutputStream(tempFile);
+			OutputStream output = new FileChannelOutputStream(stream.getChannel(), true);
+			try {
+				ChunkedFile.write(output, cellSize, layouts);
+			}
+			finally {
+				output.close();
+			}
+			written = true;
+		}
+		finally {
+			if (!written) {
+				tempFile.delete();
+			}
+		}
+		// replaceFile decides whether the temporary file can be deleted
+		replaceFile(tempFile, file);
+		if (chunkedDrawing != null) {
+			chunkedDrawing.chunksStored(new ChunkedFile(file.getPath()), layouts);
+		}
+		return adjustFileName(fileName);
+	}
+
+	/**
+	 * Divides the figures of a drawing into cells by the centers
+	 * of their display boxes.
+	 */
+	protected List<ChunkedFile.Layout> createLayouts(Drawing drawing, int cellSize) {
+		Map<Long, List<Figure>> cells = new HashMap<Long, List<Figure>>();
+		List<ChunkedFile.Layout> layouts = new ArrayList<ChunkedFile.Layout>();
+		FigureEnumeration fe = drawing.figures();
+		while (fe.hasNextFigure()) {
+			Figure figure = fe.nextFigure();
+			Rectangle r = figure.displayBox();
+			int column = cell(r.x + r.width / 2, cellSize);
+			int row = cell(r.y + r.height / 2, cellSize);
+			Long key = Long.valueOf(((long)column << 32) | (row & 0xFFFFFFFFL));
+			List<Figure> figures = cells.get(key);
+			if (figures == null) {
+				figures = new ArrayList<Figure>();
+				cells.put(key, figures);
+				ChunkedFile.Layout layout = new ChunkedFile.Layout(column, row);
+				layout.setFigures(figures, null);
+				layouts.add(layout);
+			}
+			figures.add(figure);
+		}
+		return layouts;
+	}
+
+	private static int cell(int coordinate, int cellSize) {
+		// round towards negative infinity
+		return (coordinate >= 0) ? coordinate / cellSize : -((-coordinate - 1) / cellSize) - 1;
+	}
+
+	/**
+	 * Restores a drawing from a chunked file. Only the index of the
+	 * file is read, the figures are read when they are needed.
+	 */
+	public Drawing restore(String fileName) throws IOException {
+		if (!hasCorrectFileExtension(fileName)) {
+			return null;
+		}
+		return new ChunkedDrawing(new ChunkedFile(fileName));
+	}
+
+	/**
+	 * Restores a drawing without handing the figures to the background
+	 * restore. The figures are read when they are drawn anyway.
+	 */
+	protected Drawing restore(String fileName, DrawingRestore restore) throws IOException {
+		return restore(fileName);
+	}
+}
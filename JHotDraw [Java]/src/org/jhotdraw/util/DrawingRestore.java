@@ -0,0 +1,291 @@
+/*
+ * @(#)DrawingRestore.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.SwingUtilities;
+
+import org.jhotdraw.framework.Drawing;
+import org.jhotdraw.framework.Figure;
+import org.jhotdraw.standard.FigureEnumerator;
+
+/**
+ * Restores a drawing on a background thread. A storage format which
+ * reads the figures of a drawing one after the other hands them to
+ * readFigures(). They are added to the drawing in chunks on the event
+ * dispatch thread, each chunk as one batch of changes, so the drawing can
+ * be displayed and scrolled while it is still being read. Other storage
+ * formats restore the whole drawing before it is published.
+ * <p>
+ * The figures are read while the drawing lock is held, because a figure
+ * being read may connect itself to figures which are already part of the
+ * drawing. Views should not let the user change the drawing until the
+ * restore has finished.
+ *
+ * @see StorageFormat#restoreInBackground
+ * @see DrawingRestoreListener
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class DrawingRestore implements Runnable {
+
+	/**
+	 * The default number of figures added to the drawing at once.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	/**
+	 * The number of chunks which may wait to be added to the drawing.
+	 * Reading is suspended until they are added, so the event queue is
+	 * not flooded and user input is still handled in time.
+	 */
+	private static final int MAX_PENDING_CHUNKS = 2;
+
+	private StorageFormat fFormat;
+	private String fFileName;
+	private DrawingRestoreListener fListener;
+	private volatile int fChunkSize = DEFAULT_CHUNK_SIZE;
+	private volatile boolean fCancelled;
+	private int fPendingChunks;
+
+	/*
+	 * The state published to the event dispatch thread.
+	 */
+	private Drawing fDrawing;
+	private int fFigureCount;
+	private int fRestoredCount;
+	private boolean fProgressive;
+	private boolean fFinished;
+	private IOException fException;
+
+	public DrawingRestore(StorageFormat format, String fileName, DrawingRestoreListener listener) {
+		fFormat = format;
+		fFileName = fileName;
+		fListener = listener;
+	}
+
+	/**
+	 * Starts restoring the drawing on a new thread.
+	 */
+	public void start() {
+		Thread thread = new Thread(this, "DrawingRestore-" + fFileName);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Restores the drawing. Called on the background thread.
+	 */
+	public void run() {
+		Drawing drawing = null;
+		IOException exception = null;
+		try {
+			drawing = restore();
+		}
+		catch (IOException e) {
+			exception = e;
+		}
+		catch (RuntimeException e) {
+			exception = new IOException("Could not restore drawing '" + fFileName + "': " + e);
+			exception.initCause(e);
+		}
+		finish(drawing, exception);
+	}
+
+	/**
+	 * Reads the drawing from the file. The default implementation
+	 * restores the whole drawing before it is published.
+	 *
+	 * @see StandardStorageFormat#restore(String, DrawingRestore)
+	 */
+	protected Drawing restore() throws IOException {
+		return fFormat.restore(fFileName);
+	}
+
+	/**
+	 * Reads the figures of the restored drawing and adds them in chunks.
+	 * Called by the drawing while it is read on the background thread.
+	 *
+	 * @param count the number of figures to read
+	 */
+	public void readFigures(final Drawing drawing, StorableInput input, final int count) throws IOException {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				fDrawing = drawing;
+				fFigureCount = count;
+				fProgressive = true;
+				fListener.drawingCreated(DrawingRestore.this);
+			}
+		});
+		List<Figure> chunk = new ArrayList<Figure>(fChunkSize);
+		for (int i = 0; i < count; i++) {
+			checkCancelled();
+			drawing.lock();
+			try {
+				chunk.add((Figure)input.readStorable());
+			}
+			finally {
+				drawing.unlock();
+			}
+			if (chunk.size() == fChunkSize) {
+				publish(drawing, chunk);
+				chunk = new ArrayList<Figure>(fChunkSize);
+			}
+		}
+		publish(drawing, chunk);
+	}
+
+	private void publish(final Drawing drawing, final List<Figure> chunk) throws IOException {
+		synchronized (this) {
+			while ((fPendingChunks >= MAX_PENDING_CHUNKS) && !fCancelled) {
+				try {
+					wait();
+				}
+				catch (InterruptedException e) {
+					throw new InterruptedIOException("Restore of '" + fFileName + "' interrupted");
+				}
+			}
+			fPendingChunks++;
+		}
+		checkCancelled();
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				synchronized (DrawingRestore.this) {
+					fPendingChunks--;
+					DrawingRestore.this.notifyAll();
+				}
+				if (fCancelled) {
+					return;
+				}
+				drawing.lock();
+				try {
+					drawing.addAll(new FigureEnumerator(chunk));
+				}
+				finally {
+					drawing.unlock();
+				}
+				fRestoredCount += chunk.size();
+				fListener.figuresRestored(DrawingRestore.this);
+			}
+		});
+	}
+
+	private void finish(final Drawing drawing, final IOException exception) {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				fException = exception;
+				if ((exception == null) && !fCancelled && (drawing != null)) {
+					if (fProgressive) {
+						// bulk load the index like a drawing restored at once
+						drawing.lock();
+						try {
+							drawing.init(drawing.displayBox());
+						}
+						finally {
+							drawing.unlock();
+						}
+					}
+					else {
+						fDrawing = drawing;
+						fListener.drawingCreated(DrawingRestore.this);
+					}
+				}
+				fFinished = true;
+				fListener.restoreFinished(DrawingRestore.this);
+			}
+		});
+	}
+
+	private void checkCancelled() throws IOException {
+		if (fCancelled) {
+			throw new InterruptedIOException("Restore of '" + fFileName + "' cancelled");
+		}
+	}
+
+	/**
+	 * Cancels the restore. The figures already added remain in the drawing.
+	 */
+	public void cancel() {
+		fCancelled = true;
+		synchronized (this) {
+			notifyAll();
+		}
+	}
+
+	public boolean isCancelled() {
+		return fCancelled;
+	}
+
+	/**
+	 * Checks whether the restore has ended. Must be called on the event
+	 * dispatch thread like the following methods.
+	 */
+	public boolean isFinished() {
+		return fFinished;
+	}
+
+	/**
+	 * Gets the restored drawing or null if it hasn't been created yet
+	 * or the file has the wrong format.
+	 */
+	public Drawing getDrawing() {
+		return fDrawing;
+	}
+
+	/**
+	 * Gets the number of figures in the stored drawing or 0 if the
+	 * figures aren't added in chunks.
+	 */
+	public int getFigureCount() {
+		return fFigureCount;
+	}
+
+	/**
+	 * Gets the number of figures added to the drawing so far.
+	 */
+	public int getRestoredFigureCount() {
+		return fRestoredCount;
+	}
+
+	/**
+	 * Gets the exception which ended the restore or null.
+	 */
+	public IOException getException() {
+		return fException;
+	}
+
+	public String getFileName() {
+		return fFileName;
+	}
+
+	public StorageFormat getStorageFormat() {
+		return fFormat;
+	}
+
+	/**
+	 * Sets the number of figures added to the drawing at once.
+	 * A new size applies from the next chunk on.
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be at least 1: " + chunkSize);
+		}
+		fChunkSize = chunkSize;
+	}
+
+	public int getChunkSize() {
+		return fChunkSize;
+	}
+}
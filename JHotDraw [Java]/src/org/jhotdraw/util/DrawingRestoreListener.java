@@ -0,0 +1,41 @@
+/*
+ * @(#)DrawingRestoreListener.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+/**
+ * Listens to a drawing which is restored in the background. All
+ * methods are called on the event dispatch thread.
+ *
+ * @see DrawingRestore
+ * @see StorageFormat#restoreInBackground
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public interface DrawingRestoreListener {
+
+	/**
+	 * Called when the drawing has been created. Its figures are added
+	 * in chunks afterwards, so the drawing can already be displayed.
+	 */
+	public void drawingCreated(DrawingRestore restore);
+
+	/**
+	 * Called after a chunk of figures has been added to the drawing.
+	 */
+	public void figuresRestored(DrawingRestore restore);
+
+	/**
+	 * Called when the restore has ended, because the drawing has been
+	 * restored completely, the restore failed or it was cancelled.
+	 */
+	public void restoreFinished(DrawingRestore restore);
+}
@@ -0,0 +1,128 @@
+/*
+ * @(#)FileChannelOutputStream.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An output stream which writes to a FileChannel. The bytes are
+ * collected in several direct buffers which are written with a single
+ * gathering write when they are all full, so large files are written
+ * in a few large writes without copying the bytes into the Java heap.
+ *
+ * @see StandardStorageFormat#store
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class FileChannelOutputStream extends OutputStream {
+
+	/**
+	 * The default size of each buffer.
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+	/**
+	 * The default number of buffers.
+	 */
+	public static final int DEFAULT_BUFFER_COUNT = 4;
+
+	private FileChannel fChannel;
+	private ByteBuffer[] fBuffers;
+	private int fCurrent;
+	private boolean fForce;
+
+	/**
+	 * Creates a stream writing to the given channel.
+	 *
+	 * @param force whether the written bytes are forced to the storage
+	 *		device when the stream is closed
+	 */
+	public FileChannelOutputStream(FileChannel channel, boolean force) {
+		this(channel, force, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+	}
+
+	public FileChannelOutputStream(FileChannel channel, boolean force, int bufferSize, int bufferCount) {
+		fChannel = channel;
+		fForce = force;
+		fBuffers = new ByteBuffer[bufferCount];
+		for (int i = 0; i < bufferCount; i++) {
+			fBuffers[i] = ByteBuffer.allocateDirect(bufferSize);
+		}
+	}
+
+	public void write(int b) throws IOException {
+		if (!fBuffers[fCurrent].hasRemaining()) {
+			nextBuffer();
+		}
+		fBuffers[fCurrent].put((byte)b);
+	}
+
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+		while (length > 0) {
+			ByteBuffer buffer = fBuffers[fCurrent];
+			if (!buffer.hasRemaining()) {
+				nextBuffer();
+				buffer = fBuffers[fCurrent];
+			}
+			int count = Math.min(length, buffer.remaining());
+			buffer.put(bytes, offset, count);
+			offset += count;
+			length -= count;
+		}
+	}
+
+	/**
+	 * Writes the buffered bytes to the channel.
+	 */
+	public void flush() throws IOException {
+		for (int i = 0; i <= fCurrent; i++) {
+			fBuffers[i].flip();
+		}
+		// a gathering write may not write all bytes at once
+		long remaining;
+		do {
+			fChannel.write(fBuffers, 0, fCurrent + 1);
+			remaining = 0;
+			for (int i = 0; i <= fCurrent; i++) {
+				remaining += fBuffers[i].remaining();
+			}
+		} while (remaining > 0);
+		for (int i = 0; i <= fCurrent; i++) {
+			fBuffers[i].clear();
+		}
+		fCurrent = 0;
+	}
+
+	public void close() throws IOException {
+		try {
+			flush();
+			if (fForce) {
+				fChannel.force(false);
+			}
+		}
+		finally {
+			fChannel.close();
+		}
+	}
+
+	private void nextBuffer() throws IOException {
+		if (fCurrent == fBuffers.length - 1) {
+			flush();
+		}
+		else {
+			fCurrent++;
+		}
+	}
+}
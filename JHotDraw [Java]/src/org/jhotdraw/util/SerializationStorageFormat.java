@@ -84,4 +84,12 @@ public class SerializationStorageFormat extends StandardStorageFormat {
 			throw new IOException("Could not restore drawing '" + fileName +"': class not found!");
 		}
 	}
+
+	/**
+	 * Restores the whole drawing at once, because serialized figures
+	 * can't be read one after the other.
+	 */
+	protected Drawing restore(String fileName, DrawingRestore restore) throws IOException {
+		return restore(fileName);
+	}
 }
\ No newline at end of file
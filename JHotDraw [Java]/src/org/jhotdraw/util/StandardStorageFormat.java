@@ -15,7 +15,11 @@ import javax.swing.filechooser.FileFilter;
 import java.io.IOException;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import org.jhotdraw.framework.Drawing;
 
 /**
@@ -29,6 +33,11 @@ import org.jhotdraw.framework.Drawing;
  */
 public class StandardStorageFormat implements StorageFormat {
 
+	/**
+	 * Files up to this size are read into memory, larger files are mapped.
+	 */
+	private static final long MAP_THRESHOLD = 64 * 1024 * 1024;
+
 	/**
 	 * FileFilter for a javax.swing.JFileChooser which recognizes files with the
 	 * extension "draw"
@@ -174,18 +183,81 @@ public class StandardStorageFormat implements StorageFormat {
 	 * Store a Drawing under a given name. If the file name does not have the correct
 	 * file extension, then the file extension is added.
 	 *
+	 * The drawing is written to a temporary file in the same directory
+	 * which then replaces the file, so an existing file is not destroyed
+	 * if storing fails.
+	 *
 	 * @param fileName file name of the Drawing under which it should be stored
 	 * @param saveDrawing drawing to be saved
 	 * @return file name with correct file extension
 	 */
 	public String store(String fileName, Drawing saveDrawing) throws IOException {
-		FileOutputStream stream = new FileOutputStream(adjustFileName(fileName));
-		StorableOutput output = new StorableOutput(stream);
-		output.writeStorable(saveDrawing);
-		output.close();
+		File file = new File(adjustFileName(fileName));
+		File tempFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+		boolean written = false;
+		try {
+			FileOutputStream stream = new FileOutputStream(tempFile);
+			StorableOutput output = createStorableOutput(new FileChannelOutputStream(stream.getChannel(), true));
+			try {
+				output.writeStorable(saveDrawing);
+			}
+			finally {
+				output.close();
+			}
+			if (output.checkError()) {
+				throw new IOException("Could not store drawing '" + file + "'");
+			}
+			written = true;
+		}
+		finally {
+			if (!written) {
+				tempFile.delete();
+			}
+		}
+		// replaceFile decides whether the temporary file can be deleted
+		replaceFile(tempFile, file);
 		return adjustFileName(fileName);
 	}
 
+	/**
+	 * Renames a file replacing the target file. The rename is atomic if
+	 * the platform replaces existing files on rename (e.g. on POSIX file
+	 * systems). Otherwise the target file is renamed to a backup first,
+	 * which is deleted when the source took its place and renamed back
+	 * if the source can't be renamed.
+	 * <p>
+	 * If the target can't be replaced, the source is deleted as long as
+	 * the target is still in place. If not even the backup can be renamed
+	 * back, both files are kept and named by the exception.
+	 */
+	protected void replaceFile(File source, File target) throws IOException {
+		if (source.renameTo(target)) {
+			return;
+		}
+		File backup = null;
+		if (target.exists()) {
+			backup = File.createTempFile(target.getName(), ".bak", target.getAbsoluteFile().getParentFile());
+			// some platforms don't rename to an existing file
+			if (!backup.delete() || !target.renameTo(backup)) {
+				backup.delete();
+				source.delete();
+				throw new IOException("Could not replace '" + target + "'");
+			}
+		}
+		if (source.renameTo(target)) {
+			if (backup != null) {
+				backup.delete();
+			}
+			return;
+		}
+		if ((backup == null) || backup.renameTo(target)) {
+			source.delete();
+			throw new IOException("Could not rename '" + source + "' to '" + target + "'");
+		}
+		throw new IOException("Could not rename '" + source + "' to '" + target
+			+ "', the previous file has been moved to '" + backup + "'");
+	}
+
 	/**
 	 * Restore a Drawing from a file with a given name.
 	 *
@@ -193,16 +265,96 @@ public class StandardStorageFormat implements StorageFormat {
 	 * @return restored Drawing
 	 */
 	public Drawing restore(String fileName) throws IOException {
+		return restore(fileName, null);
+	}
+
+	/**
+	 * Restore a Drawing from a file with a given name. The figures of the
+	 * drawing are handed to the background restore, if one is given.
+	 * <p>
+	 * Files up to 64 MB are read into memory. Larger files are mapped,
+	 * and a mapping is only released when its buffer is collected. Until
+	 * then some platforms (e.g. Windows) don't allow to replace the file,
+	 * so storing the drawing again fails without changing the file.
+	 *
+	 * @param fileName of the file in which the Drawing has been saved
+	 * @param restore background restore or null
+	 * @return restored Drawing
+	 */
+	protected Drawing restore(String fileName, DrawingRestore restore) throws IOException {
 		if (!hasCorrectFileExtension(fileName)) {
 			return null;
 		}
 		else {
 			FileInputStream stream = new FileInputStream(fileName);
-			StorableInput input = new StorableInput(stream);
-			return (Drawing)input.readStorable();
+			try {
+				FileChannel channel = stream.getChannel();
+				long size = channel.size();
+				StorableInput input;
+				if (size <= MAP_THRESHOLD) {
+					ByteBuffer buffer = ByteBuffer.allocate((int)size);
+					while (buffer.hasRemaining()) {
+						if (channel.read(buffer) == -1) {
+							throw new IOException("Unexpected end of file '" + fileName + "'");
+						}
+					}
+					buffer.flip();
+					input = createStorableInput(buffer);
+				}
+				// a mapped buffer can't be larger than 2 GB
+				else if (size <= Integer.MAX_VALUE) {
+					input = createStorableInput(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+				}
+				else {
+					input = createStorableInput(stream);
+				}
+				input.setRestore(restore);
+				return (Drawing)input.readStorable();
+			}
+			finally {
+				stream.close();
+			}
 		}
 	}
 
+	/**
+	 * Restore a Drawing from a file with a given name on a background thread.
+	 * The figures are added to the drawing in chunks while they are read.
+	 */
+	public DrawingRestore restoreInBackground(String fileName, DrawingRestoreListener listener) {
+		DrawingRestore restore = new DrawingRestore(this, fileName, listener) {
+			protected Drawing restore() throws IOException {
+				return StandardStorageFormat.this.restore(getFileName(), this);
+			}
+		};
+		restore.start();
+		return restore;
+	}
+
+	/**
+	 * Factory method for the output which flattens the drawing.
+	 */
+	protected StorableOutput createStorableOutput(OutputStream stream) {
+		return new StorableOutput(stream);
+	}
+
+	/**
+	 * Factory method for the input which resurrects the drawing from a
+	 * stream, e.g. a file too large to be mapped. The input parses the
+	 * stream while it is read instead of buffering it completely.
+	 */
+	protected StorableInput createStorableInput(InputStream stream) throws IOException {
+		return new StorableInput(stream);
+	}
+
+	/**
+	 * Factory method for the input which resurrects the drawing from
+	 * a buffer, e.g. a memory mapped file.
+	 */
+	protected StorableInput createStorableInput(ByteBuffer buffer) throws IOException {
+		return new ByteBufferStorableInput(buffer);
+	}
+
 	/**
 	 * Test, whether two StorageFormats are the same. They are the same if they both support the
 	 * same file extension.
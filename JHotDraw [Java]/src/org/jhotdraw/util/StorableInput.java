@@ -24,9 +24,14 @@ import java.util.List;
 /**
  * An input stream that can be used to resurrect Storable objects.
  * StorableInput preserves the object identity of the stored objects.
+ * <p>
+ * StorableInput reads the text format written by StorableOutput. It is
+ * also the protocol by which Storables read themselves, so subclasses
+ * can read other formats by overriding the read methods.
  *
  * @see Storable
  * @see StorableOutput
+ * @see BinaryStorableInput
  *
  * @version <$CURRENT_VERSION$>s
  */
@@ -34,16 +39,27 @@ public class StorableInput {
 
 	private StreamTokenizer fTokenizer;
 	private List<Storable> fMap;
+	private StorableRegistry fRegistry;
+	private DrawingRestore fRestore;
 
 	/**
 	 * Initializes a Storable input with the given input stream.
 	 */
 	public StorableInput(InputStream stream) {
+		this();
 		Reader r = new BufferedReader(new InputStreamReader(stream));
 		fTokenizer = new StreamTokenizer(r);
 		// include inner class separate in class names
 		fTokenizer.wordChars('$', '$');
+	}
+
+	/**
+	 * Initializes a StorableInput for subclasses which read
+	 * another format.
+	 */
+	protected StorableInput() {
 		fMap = new ArrayList<Storable>();
+		fRegistry = StorableRegistry.getRegistry();
 	}
 
 	/**
@@ -63,6 +79,7 @@ public class StorableInput {
 		}
 
 		storable = (Storable) makeInstance(s);
+		// the reference number of an object is its position in the stream
 		map(storable);
 		storable.read(this);
 		return storable;
@@ -143,33 +160,54 @@ public class StorableInput {
 		throw new IOException(msg);
 	}
 
-	private Object makeInstance(String className) throws IOException {
-		try {
-			Class<?> cl = Class.forName(className);
-			return cl.newInstance();
-		}
-		catch (NoSuchMethodError e) {
-			throw new IOException("Class " + className
-				+ " does not seem to have a no-arg constructor");
-		}
-		catch (ClassNotFoundException e) {
-			throw new IOException("No class: " + className);
-		}
-		catch (InstantiationException e) {
-			throw new IOException("Cannot instantiate: " + className);
-		}
-		catch (IllegalAccessException e) {
-			throw new IOException("Class (" + className + ") not accessible");
-		}
+	/**
+	 * Creates an instance of the class with the given name
+	 * through the registry.
+	 */
+	protected Object makeInstance(String className) throws IOException {
+		return getRegistry().newInstance(className);
 	}
 
-	private void map(Storable storable) {
-		if (!fMap.contains(storable)) {
-			fMap.add(storable);
-		}
+	/**
+	 * Sets the registry which creates the objects that are read.
+	 */
+	public void setRegistry(StorableRegistry registry) {
+		fRegistry = registry;
 	}
 
-	private Storable retrieve(int ref) {
-		return (Storable)fMap.get(ref);
+	public StorableRegistry getRegistry() {
+		return fRegistry;
+	}
+
+	/**
+	 * Sets the background restore which receives the figures of the
+	 * drawing that is read.
+	 *
+	 * @see org.jhotdraw.standard.StandardDrawing#readFigures
+	 */
+	public void setRestore(DrawingRestore restore) {
+		fRestore = restore;
+	}
+
+	public DrawingRestore getRestore() {
+		return fRestore;
+	}
+
+	/**
+	 * Assigns the next reference number to an object which
+	 * is about to be read.
+	 */
+	protected void map(Storable storable) {
+		fMap.add(storable);
+	}
+
+	/**
+	 * Gets the object that was read with the given reference number.
+	 */
+	protected Storable retrieve(int ref) throws IOException {
+		if ((ref < 0) || (ref >= fMap.size())) {
+			throw new IOException("Invalid reference: " + ref);
+		}
+		return fMap.get(ref);
 	}
 }
@@ -13,30 +13,44 @@ package org.jhotdraw.util;
 
 import java.io.*;
 import java.awt.Color;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * An output stream that can be used to flatten Storable objects.
  * StorableOutput preserves the object identity of the stored objects.
+ * <p>
+ * StorableOutput writes the indented text format of .draw files. It is
+ * also the protocol by which Storables write themselves, so subclasses
+ * can write other formats by overriding the write methods.
  *
  * @see Storable
  * @see StorableInput
+ * @see BinaryStorableOutput
  *
  * @version <$CURRENT_VERSION$>
  */
 public  class StorableOutput extends Object {
 
 	private PrintWriter     fStream;
-	private List<Storable>            fMap;
+	private Map<Storable, Integer>    fMap;
 	private int             fIndent;
 
 	/**
 	 * Initializes the StorableOutput with the given output stream.
 	 */
 	public StorableOutput(OutputStream stream) {
+		this();
 		fStream = new PrintWriter(stream);
-		fMap = new ArrayList<Storable>();
+	}
+
+	/**
+	 * Initializes a StorableOutput for subclasses which write
+	 * another format.
+	 */
+	protected StorableOutput() {
+		// maps each stored object to its reference number
+		fMap = new IdentityHashMap<Storable, Integer>();
 		fIndent = 0;
 	}
 
@@ -50,8 +64,9 @@ public  class StorableOutput extends Object {
 			return;
 		}
 
-		if (mapped(storable)) {
-			writeRef(storable);
+		int ref = getReference(storable);
+		if (ref != -1) {
+			writeRef(ref);
 			return;
 		}
 
@@ -136,19 +151,31 @@ public  class StorableOutput extends Object {
 		fStream.close();
 	}
 
-	private boolean mapped(Storable storable) {
-		return fMap.contains(storable);
+	/**
+	 * Checks whether writing to the stream failed.
+	 */
+	public boolean checkError() {
+		return fStream.checkError();
 	}
 
-	private void map(Storable storable) {
-		if (!fMap.contains(storable)) {
-			fMap.add(storable);
-		}
+	/**
+	 * Gets the reference number of an object that has already
+	 * been stored or -1 if the object has not been stored yet.
+	 */
+	protected int getReference(Storable storable) {
+		Integer ref = fMap.get(storable);
+		return (ref != null) ? ref.intValue() : -1;
 	}
 
-	private void writeRef(Storable storable) {
-		int ref = fMap.indexOf(storable);
+	/**
+	 * Assigns the next reference number to an object which
+	 * is about to be stored.
+	 */
+	protected void map(Storable storable) {
+		fMap.put(storable, Integer.valueOf(fMap.size()));
+	}
 
+	private void writeRef(int ref) {
 		fStream.print("REF");
 		space();
 		fStream.print(ref);
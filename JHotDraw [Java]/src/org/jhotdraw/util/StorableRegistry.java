@@ -0,0 +1,255 @@
+/*
+ * @(#)StorableRegistry.java
+ *
+ * Project:		JHotdraw - a GUI framework for technical drawings
+ *				http://www.jhotdraw.org
+ *				http://jhotdraw.sourceforge.net
+ * Copyright:	� by the original author(s) and all contributors
+ * License:		Lesser GNU Public License (LGPL)
+ *				http://www.opensource.org/licenses/lgpl-license.html
+ */
+
+package org.jhotdraw.util;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the Storable objects read by a StorableInput. Looking up a
+ * class by its name and finding its no-arg constructor is done once per
+ * class, afterwards the cached constructor is used. Frequently stored
+ * classes can be registered with a Factory that creates their instances
+ * without reflection.
+ * <p>
+ * There is one registry per class loader, which resolves class names
+ * with that class loader. The registry is shared by all StorableInputs,
+ * i.e. by all storage formats and by the clipboard. The registry of a
+ * class loader other than the ones of JHotDraw refers to the loader
+ * weakly and caches the constructors of its classes softly, so the
+ * loader can be collected at the latest when memory runs low.
+ * Registered factories are held strongly though. The registry of a
+ * discarded loader should be removed to release it right away.
+ *
+ * @see StorableInput#makeInstance
+ *
+ * @version <$CURRENT_VERSION$>
+ */
+public class StorableRegistry {
+
+	/**
+	 * Creates new instances of a Storable class.
+	 */
+	public interface Factory {
+		public Storable create();
+	}
+
+	private static final Map<ClassLoader, StorableRegistry> fgRegistries = new WeakHashMap<ClassLoader, StorableRegistry>();
+
+	/**
+	 * Gets the registry which resolves class names with the
+	 * class loader of JHotDraw.
+	 */
+	public static StorableRegistry getRegistry() {
+		return getRegistry(StorableRegistry.class.getClassLoader());
+	}
+
+	/**
+	 * Gets the registry which resolves class names with the
+	 * given class loader.
+	 */
+	public static synchronized StorableRegistry getRegistry(ClassLoader loader) {
+		StorableRegistry registry = fgRegistries.get(loader);
+		if (registry == null) {
+			registry = new StorableRegistry(loader);
+			fgRegistries.put(loader, registry);
+		}
+		return registry;
+	}
+
+	/**
+	 * Removes the registry of the given class loader together with
+	 * the factories registered for it.
+	 */
+	public static synchronized void removeRegistry(ClassLoader loader) {
+		fgRegistries.remove(loader);
+	}
+
+	/**
+	 * Checks whether a class loader is one of the loaders of JHotDraw,
+	 * which are never collected before the registries.
+	 */
+	private static boolean isShared(ClassLoader loader) {
+		if (loader == null) {
+			return true;
+		}
+		for (ClassLoader l = StorableRegistry.class.getClassLoader(); l != null; l = l.getParent()) {
+			if (l == loader) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// the registry is the value of a weak map keyed by the class loader,
+	// so it must not refer to the loader strongly
+	private WeakReference<ClassLoader> fLoader;
+	private boolean fShared;
+	private Map<String, Factory> fFactories;
+
+	protected StorableRegistry(ClassLoader loader) {
+		fLoader = new WeakReference<ClassLoader>(loader);
+		fShared = isShared(loader);
+		fFactories = new ConcurrentHashMap<String, Factory>();
+	}
+
+	/**
+	 * Registers the factory for the instances of a class.
+	 */
+	public void register(Class<? extends Storable> storableClass, Factory factory) {
+		register(storableClass.getName(), factory);
+	}
+
+	/**
+	 * Registers the factory for the instances of the class
+	 * with the given name.
+	 */
+	public void register(String className, Factory factory) {
+		fFactories.put(className, factory);
+	}
+
+	/**
+	 * Removes a registered factory. The instances of the class are
+	 * created by its no-arg constructor again.
+	 */
+	public void unregister(String className) {
+		fFactories.remove(className);
+	}
+
+	/**
+	 * Creates an instance of the class with the given name.
+	 */
+	public Storable newInstance(String className) throws IOException {
+		Factory factory = fFactories.get(className);
+		if (factory == null) {
+			factory = createFactory(className);
+			fFactories.put(className, factory);
+		}
+		return factory.create();
+	}
+
+	/**
+	 * Creates the factory for a class which has not been registered.
+	 * The factory calls the public no-arg constructor of the class.
+	 */
+	protected Factory createFactory(String className) throws IOException {
+		ClassLoader loader = fLoader.get();
+		if ((loader == null) && !fShared) {
+			throw new IOException("The class loader of the registry has been collected");
+		}
+		Class<?> cl;
+		try {
+			cl = Class.forName(className, true, loader);
+		}
+		catch (ClassNotFoundException e) {
+			throw new IOException("No class: " + className);
+		}
+		if (!Storable.class.isAssignableFrom(cl)) {
+			throw new IOException("Class " + className + " is not Storable");
+		}
+		if (Modifier.isAbstract(cl.getModifiers()) || cl.isInterface()) {
+			throw new IOException("Cannot instantiate: " + className);
+		}
+		if (!Modifier.isPublic(cl.getModifiers())) {
+			throw new IOException("Class (" + className + ") not accessible");
+		}
+		try {
+			if (isShared(cl.getClassLoader())) {
+				return new ConstructorFactory(cl.getConstructor());
+			}
+			// a strongly cached constructor would keep the loader
+			// of the class from being collected
+			return new ClassFactory(cl, cl.getConstructor());
+		}
+		catch (NoSuchMethodException e) {
+			throw new IOException("Class " + className
+				+ " does not seem to have a no-arg constructor");
+		}
+	}
+
+	/**
+	 * A factory which calls a cached constructor.
+	 */
+	private static class ConstructorFactory implements Factory {
+		private Constructor<?> fConstructor;
+
+		ConstructorFactory(Constructor<?> constructor) {
+			fConstructor = constructor;
+		}
+
+		public Storable create() {
+			return newInstance(fConstructor);
+		}
+
+		static Storable newInstance(Constructor<?> constructor) {
+			try {
+				return (Storable)constructor.newInstance();
+			}
+			catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException)cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error)cause;
+				}
+				throw new IllegalStateException("Cannot instantiate: " + constructor.getName(), cause);
+			}
+			catch (InstantiationException e) {
+				throw new IllegalStateException("Cannot instantiate: " + constructor.getName(), e);
+			}
+			catch (IllegalAccessException e) {
+				throw new IllegalStateException("Class (" + constructor.getName() + ") not accessible", e);
+			}
+		}
+	}
+
+	/**
+	 * A factory which refers to its class weakly and caches the
+	 * constructor softly. The constructor is only looked up again
+	 * after it has been cleared because memory ran low.
+	 */
+	private static class ClassFactory implements Factory {
+		private WeakReference<Class<?>> fClass;
+		private SoftReference<Constructor<?>> fConstructor;
+
+		ClassFactory(Class<?> cl, Constructor<?> constructor) {
+			fClass = new WeakReference<Class<?>>(cl);
+			fConstructor = new SoftReference<Constructor<?>>(constructor);
+		}
+
+		public Storable create() {
+			Constructor<?> constructor = fConstructor.get();
+			if (constructor == null) {
+				Class<?> cl = fClass.get();
+				if (cl == null) {
+					throw new IllegalStateException("Class has been unloaded");
+				}
+				try {
+					constructor = cl.getConstructor();
+				}
+				catch (NoSuchMethodException e) {
+					throw new IllegalStateException("Cannot instantiate: " + cl.getName(), e);
+				}
+				fConstructor = new SoftReference<Constructor<?>>(constructor);
+			}
+			return ConstructorFactory.newInstance(constructor);
+		}
+	}
+}
@@ -70,4 +70,16 @@ public interface StorageFormat {
 	 * @return restored Drawing
 	 */
 	public Drawing restore(String fileName) throws IOException;
+
+	/**
+	 * Restore a Drawing from a file with a given name on a background thread.
+	 * The listener is notified on the event dispatch thread when the drawing
+	 * has been created, while its figures are added and when the restore
+	 * has ended.
+	 *
+	 * @param fileName of the file in which the Drawing has been saved
+	 * @param listener listener which receives the restored Drawing
+	 * @return the running restore, e.g. to cancel it
+	 */
+	public DrawingRestore restoreInBackground(String fileName, DrawingRestoreListener listener);
 }